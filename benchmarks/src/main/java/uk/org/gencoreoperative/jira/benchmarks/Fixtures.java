@@ -0,0 +1,138 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Search pages for the benchmarks, built from a page of issues recorded from JIRA.
+ * <p>
+ * Larger pages repeat the recorded issues with new ids and keys. The detailed variant keeps
+ * the descriptions and components of the recorded issues, the plain variant only keeps the
+ * summary, which shows how much of the cost of a page comes from its larger fields.
+ */
+public class Fixtures {
+    private static final String RECORDED = "/fixtures/search-page.json";
+    private static final List<JsonObject> ISSUES = load();
+
+    /**
+     * The sizes of page that are benchmarked.
+     */
+    public enum Size {
+        SMALL(ISSUES.size()),
+        PAGE_100(100),
+        PAGE_1000(1000);
+
+        private final int issues;
+
+        Size(int issues) {
+            this.issues = issues;
+        }
+
+        public int getIssues() {
+            return issues;
+        }
+    }
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param count The number of issues.
+     * @param detailed True to include descriptions and components.
+     * @return The JSON of each issue.
+     */
+    public static List<String> issues(int count, boolean detailed) {
+        List<String> issues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            JsonObject issue = ISSUES.get(i % ISSUES.size()).deepCopy();
+            int id = 100_000 + i;
+            issue.addProperty("id", Integer.toString(id));
+            issue.addProperty("key", "OPENAM-" + id);
+            issue.addProperty("self", "https://xyz.org/jira/rest/api/2/issue/" + id);
+            if (!detailed) {
+                JsonObject fields = issue.getAsJsonObject("fields");
+                fields.remove("description");
+                fields.remove("components");
+            }
+            issues.add(issue.toString());
+        }
+        return issues;
+    }
+
+    /**
+     * @param issues The JSON of every issue in the result set.
+     * @param startAt The offset of the page.
+     * @param maxResults The size of the page.
+     * @return The JSON search response for the page.
+     */
+    public static String page(List<String> issues, int startAt, int maxResults) {
+        StringBuilder page = new StringBuilder()
+                .append("{\"expand\":\"schema,names\",\"startAt\":").append(startAt)
+                .append(",\"maxResults\":").append(maxResults)
+                .append(",\"total\":").append(issues.size())
+                .append(",\"issues\":[");
+        int end = Math.min(issues.size(), startAt + maxResults);
+        for (int i = startAt; i < end; i++) {
+            if (i > startAt) page.append(',');
+            page.append(issues.get(i));
+        }
+        return page.append("]}").toString();
+    }
+
+    /**
+     * @param size The size of page.
+     * @param detailed True to include descriptions and components.
+     * @return A complete search response containing a single page.
+     */
+    public static String page(Size size, boolean detailed) {
+        return page(issues(size.getIssues(), detailed), 0, size.getIssues());
+    }
+
+    private static List<JsonObject> load() {
+        try (InputStream stream = Fixtures.class.getResourceAsStream(RECORDED);
+             Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            JsonArray issues = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonArray("issues");
+            List<JsonObject> result = new ArrayList<>();
+            for (JsonElement issue : issues) {
+                result.add(issue.getAsJsonObject());
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + RECORDED, e);
+        }
+    }
+}
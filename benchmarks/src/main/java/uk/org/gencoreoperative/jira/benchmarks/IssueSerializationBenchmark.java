@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.Gson;
+
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+import uk.org.gencoreoperative.jira.rest.IssueReader;
+
+/**
+ * Measures writing a page of issues as JSON, as {@code Main} does for its output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IssueSerializationBenchmark {
+    /**
+     * Whether to use the hand-written {@link ModelAdapters} rather than Gson's reflective adapters.
+     */
+    @Param({ "true", "false" })
+    private boolean adapters;
+
+    private Gson gson;
+
+    @Param({ "PAGE_100", "PAGE_1000" })
+    private Fixtures.Size size;
+
+    @Param({ "true", "false" })
+    private boolean detailed;
+
+    private final List<Issue> issues = new ArrayList<>();
+    private final Writer discard = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Setup
+    public void setup() {
+        gson = adapters ? ModelAdapters.gson() : new Gson();
+        issues.clear();
+        new IssueReader(gson, new StringReader(Fixtures.page(size, detailed))).forEachRemaining(issues::add);
+    }
+
+    /**
+     * Serialise each issue to a String, as {@code Main} does with {@code GSON::toJson}.
+     */
+    @Benchmark
+    public void toJsonString(Blackhole blackhole) {
+        for (Issue issue : issues) {
+            blackhole.consume(gson.toJson(issue));
+        }
+    }
+
+    /**
+     * Serialise each issue straight to a {@link Writer}, without a String per issue.
+     */
+    @Benchmark
+    public void toJsonWriter() throws IOException {
+        for (Issue issue : issues) {
+            gson.toJson(issue, discard);
+            discard.write('\n');
+        }
+    }
+}
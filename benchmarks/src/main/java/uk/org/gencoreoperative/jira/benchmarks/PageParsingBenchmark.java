@@ -0,0 +1,90 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.Gson;
+
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+import uk.org.gencoreoperative.jira.model.SearchResults;
+import uk.org.gencoreoperative.jira.rest.IssueReader;
+
+/**
+ * Measures parsing a page of search results, both into a whole {@link SearchResults} and one
+ * issue at a time with the {@link IssueReader} used by the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageParsingBenchmark {
+    /**
+     * Whether to use the hand-written {@link ModelAdapters} rather than Gson's reflective adapters.
+     */
+    @Param({ "true", "false" })
+    private boolean adapters;
+
+    private Gson gson;
+
+    @Param({ "SMALL", "PAGE_100", "PAGE_1000" })
+    private Fixtures.Size size;
+
+    @Param({ "true", "false" })
+    private boolean detailed;
+
+    private String page;
+
+    @Setup
+    public void setup() {
+        gson = adapters ? ModelAdapters.gson() : new Gson();
+        page = Fixtures.page(size, detailed);
+    }
+
+    @Benchmark
+    public SearchResults searchResults() {
+        return gson.fromJson(page, SearchResults.class);
+    }
+
+    @Benchmark
+    public void issueReader(Blackhole blackhole) {
+        new IssueReader(gson, new StringReader(page)).forEachRemaining(blackhole::consume);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.Gson;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.rest.FakeJiraServer;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+
+/**
+ * Measures the whole {@link RESTClient#stream()} pipeline, from request to serialised output,
+ * against a {@link FakeJiraServer} in the same process. Each operation exports every issue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamBenchmark {
+    private static final Gson GSON = new Gson();
+
+    @Param({ "1000", "10000" })
+    private int issues;
+
+    @Param({ "true", "false" })
+    private boolean detailed;
+
+    @Param({ "1", "4" })
+    private int concurrency;
+
+    private FakeJiraServer server;
+    private RESTClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new FakeJiraServer(Fixtures.issues(issues, detailed));
+        Config config = server.config();
+        config.setConcurrency(concurrency);
+        client = new RESTClient(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public void export(Blackhole blackhole) {
+        try (Stream<Issue> stream = client.stream()) {
+            stream.map(GSON::toJson).forEach(blackhole::consume);
+        }
+    }
+}
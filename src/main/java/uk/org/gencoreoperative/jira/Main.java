@@ -23,18 +23,40 @@
  */
 package uk.org.gencoreoperative.jira;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
 import com.google.gson.Gson;
 
 import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.export.Aggregation;
+import uk.org.gencoreoperative.jira.export.AsyncIssueWriter;
+import uk.org.gencoreoperative.jira.export.BatchExport;
+import uk.org.gencoreoperative.jira.export.ColumnarWriter;
+import uk.org.gencoreoperative.jira.export.Format;
+import uk.org.gencoreoperative.jira.export.IncrementalExport;
+import uk.org.gencoreoperative.jira.export.ResumableExport;
+import uk.org.gencoreoperative.jira.metrics.Metrics;
+import uk.org.gencoreoperative.jira.model.Issue;
 import uk.org.gencoreoperative.jira.rest.RESTClient;
+import uk.org.gencoreoperative.jira.store.IssueStore;
 
 /**
  * Demonstration client that will print the exported JIRA {@link uk.org.gencoreoperative.jira.model.Issue} as
  * JSON on the {@code stdout}.
  */
 public class Main {
-    private static final Gson GSON = new Gson();
     public static void main(String... args) {
         Config object = new Config();
         JCommander commander = new JCommander(object);
@@ -46,8 +68,41 @@ public class Main {
             if (object.isHelp()) {
                 commander.usage();
             } else {
+                if ((object.getJql() == null) == (object.getBatch() == null)) {
+                    throw new ParameterException("Either --jql or --batch is required, but not both");
+                }
+                if (object.getBatch() != null && (object.getOutput() == null || object.isResume()
+                        || object.getIncremental() != null || object.getFormat() != Format.JSON)) {
+                    throw new ParameterException("--batch needs an --output directory and only writes JSON");
+                }
+                if (object.isResume() && object.getOutput() == null) {
+                    throw new ParameterException("--resume needs an --output file to continue");
+                }
+                if (object.getIncremental() != null && object.getOutput() != null) {
+                    throw new ParameterException("--output cannot be used with --incremental");
+                }
+                if (object.getFormat() != Format.JSON && (object.getOutput() == null || object.isResume())) {
+                    throw new ParameterException(
+                            "The " + object.getFormat() + " format needs an --output and cannot be resumed");
+                }
+                if (object.isGzip() && (object.isResume() || object.getFormat() != Format.JSON
+                        || object.getBatch() != null)) {
+                    throw new ParameterException("--gzip only compresses JSON from --jql and cannot be resumed");
+                }
+                if (object.getCountBy() != null && (object.getBatch() != null || object.getOutput() != null
+                        || object.getIncremental() != null)) {
+                    throw new ParameterException("--countBy prints the counts and cannot be used with --output, " +
+                            "--incremental or --batch");
+                }
                 RESTClient client = new RESTClient(object);
-                client.stream().map(GSON::toJson).forEach(System.out::println);
+                Metrics metrics = new Metrics();
+                if (object.isMetrics() || object.isJmx()) client.addListener(metrics);
+                if (object.isJmx()) metrics.register();
+                try {
+                    export(object, client);
+                } finally {
+                    if (object.isMetrics()) System.err.println(metrics.summary(client.getTransport().getStats()));
+                }
             }
             exit = 0;
         } catch (Throwable e) {
@@ -56,4 +111,58 @@ public class Main {
             System.exit(exit);
         }
     }
+
+    private static void export(Config object, RESTClient client) throws IOException {
+        if (object.getCountBy() != null) {
+            Map<String, Long> counts = new Aggregation(client, object).countBy(object.getJql(), object.getCountBy());
+            System.out.println(new Gson().toJson(counts));
+        } else if (object.getBatch() != null) {
+            Path directory = Paths.get(object.getOutput());
+            new BatchExport(client, object, BatchExport.read(Paths.get(object.getBatch())), directory).run();
+        } else if (object.getIncremental() != null) {
+            IncrementalExport export = new IncrementalExport(client, object, Paths.get(object.getIncremental()));
+            try (AsyncIssueWriter writer = writer(object, client)) {
+                export.run(writer::write);
+            }
+        } else if (object.getFormat() == Format.COLUMNAR) {
+            try (ColumnarWriter writer = new ColumnarWriter(Paths.get(object.getOutput()));
+                 Stream<Issue> issues = client.stream()) {
+                for (Iterator<Issue> iterator = issues.iterator(); iterator.hasNext(); ) {
+                    Issue issue = iterator.next();
+                    long start = System.nanoTime();
+                    writer.add(issue);
+                    client.getListener().issueWritten(System.nanoTime() - start);
+                }
+                writer.finish();
+            }
+        } else if (object.getFormat() == Format.STORE) {
+            try (IssueStore store = IssueStore.open(Paths.get(object.getOutput()));
+                 Stream<Issue> issues = client.stream()) {
+                for (Iterator<Issue> iterator = issues.iterator(); iterator.hasNext(); ) {
+                    Issue issue = iterator.next();
+                    long start = System.nanoTime();
+                    store.put(issue);
+                    client.getListener().issueWritten(System.nanoTime() - start);
+                }
+            }
+        } else if (object.getOutput() != null && !object.isGzip()) {
+            new ResumableExport(client, object, Paths.get(object.getOutput())).run(object.isResume());
+        } else {
+            try (AsyncIssueWriter writer = writer(object, client);
+                 Stream<Issue> issues = client.stream()) {
+                issues.forEach(writer::write);
+            }
+        }
+    }
+
+    /**
+     * @return A writer to the --output file, or to stdout if there is none, compressed if --gzip was given.
+     */
+    private static AsyncIssueWriter writer(Config object, RESTClient client) throws IOException {
+        OutputStream out = object.getOutput() == null
+                ? new FileOutputStream(FileDescriptor.out)
+                : Files.newOutputStream(Paths.get(object.getOutput()));
+        if (object.isGzip()) out = new GZIPOutputStream(out, AsyncIssueWriter.BUFFER_SIZE);
+        return new AsyncIssueWriter(out, AsyncIssueWriter.DEFAULT_CAPACITY, client.getListener());
+    }
 }
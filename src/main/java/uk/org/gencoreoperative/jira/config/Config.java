@@ -25,12 +25,13 @@
 package uk.org.gencoreoperative.jira.config;
 
 import static java.util.Arrays.stream;
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.toCollection;
 
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Scanner;
 import java.util.Set;
 
@@ -41,6 +42,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import uk.org.gencoreoperative.jira.export.Format;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
 
 /**
  * Configuration object that represents the configuration for the client.
@@ -73,15 +76,149 @@ public class Config {
 
     @Parameter(names = { "-j", "--jql" },
                description = "The JQL statement to query the server with. " +
-                       "See https://www.atlassian.com/software/jira/guides/jql/overview#what-is-jql for more information.",
-               required = true)
+                       "See https://www.atlassian.com/software/jira/guides/jql/overview#what-is-jql for more " +
+                       "information. Required unless --batch is used.")
     private String jql;
 
     @Parameter(names = { "-f", "--fields" },
-            description = "The fields from JIRA to extract from the JIRA Issue. If this is not specified then all " +
-                    "fields will be extracted.")
+            description = "The fields from JIRA to extract from the JIRA Issue, by id or by name, including custom " +
+                    "fields. If this is not specified then all fields will be requested, and only the summary, " +
+                    "description, components and updated fields will be extracted.")
     private String fields;
 
+    @Parameter(names = { "-c", "--concurrency" },
+            description = "The number of pages to request from JIRA in parallel. Issues are still returned in " +
+                    "the order of the query.",
+            validateValueWith = PositiveIntegerValidator.class)
+    private int concurrency = 1;
+
+    @Parameter(names = { "-w", "--pageSize" },
+            description = "The number of issues to request from JIRA per page. JIRA may return fewer than this " +
+                    "if it is above the server limit.",
+            validateValueWith = PositiveIntegerValidator.class)
+    private int pageSize = RESTClient.WINDOW;
+
+    @Parameter(names = { "-a", "--adaptive" },
+            description = "Request pages until JIRA returns a page with fewer issues than were requested, rather " +
+                    "than relying on the total reported by the first page. Use this when the issues matching the " +
+                    "JQL may change during the export.")
+    private boolean adaptive;
+
+    @Parameter(names = { "--shards" },
+            description = "Page through the issues by issue id rather than by offset, splitting the ids into this " +
+                    "many ranges that are fetched in parallel up to the concurrency. Issues are returned in the " +
+                    "order of their id. Use this for very large exports.",
+            validateValueWith = NonNegativeIntegerValidator.class)
+    private int shards;
+
+    @Parameter(names = { "--connectTimeout" },
+            description = "The timeout in milliseconds for establishing a connection to JIRA.",
+            validateValueWith = PositiveIntegerValidator.class)
+    private int connectTimeout = 10_000;
+
+    @Parameter(names = { "--readTimeout" },
+            description = "The timeout in milliseconds to wait for data from JIRA.",
+            validateValueWith = PositiveIntegerValidator.class)
+    private int readTimeout = 60_000;
+
+    @Parameter(names = { "--maxConnections" },
+            description = "The maximum number of connections to keep open to JIRA, and of requests in flight. " +
+                    "Defaults to the concurrency.",
+            validateValueWith = PositiveIntegerValidator.class)
+    private Integer maxConnections;
+
+    @Parameter(names = { "--idleTimeout" },
+            description = "The number of seconds an idle connection is kept open for reuse.",
+            validateValueWith = PositiveIntegerValidator.class)
+    private int idleTimeout = 5;
+
+    @Parameter(names = { "--maxRetries" },
+            description = "The number of times to retry a request that JIRA throttled or failed, and to request " +
+                    "a page again if the connection is lost while it is read. Requests wait for as long as JIRA " +
+                    "asks, or back off exponentially.",
+            validateValueWith = NonNegativeIntegerValidator.class)
+    private int maxRetries = 5;
+
+    @Parameter(names = { "--http2" },
+            description = "Use the HTTP/2 client on Java 11 and later, which sends every request over a single " +
+                    "connection. Falls back to HTTP/1.1 on earlier versions of Java.")
+    private boolean http2;
+
+    @Parameter(names = { "--virtualThreads" },
+            description = "On Java 21 and later, request each page and run each query of a --batch on its own " +
+                    "virtual thread rather than a pool of platform threads. The concurrency and --maxConnections " +
+                    "still limit the requests in flight. Falls back to platform threads on earlier versions of Java.")
+    private boolean virtualThreads;
+
+    @Parameter(names = { "--disableCompression" },
+            description = "Do not ask JIRA to compress its responses.")
+    private boolean disableCompression;
+
+    @Parameter(names = { "--cacheDir" },
+            description = "A directory to cache the pages returned by JIRA in. Cached pages are checked with " +
+                    "JIRA before they are used again.")
+    private String cacheDir;
+
+    @Parameter(names = { "--cacheSize" },
+            description = "The maximum size of the page cache in megabytes. The least recently used pages are " +
+                    "removed first.",
+            validateValueWith = PositiveIntegerValidator.class)
+    private int cacheSize = 256;
+
+    @Parameter(names = { "-i", "--incremental" },
+            description = "A directory holding a snapshot of the issues from a previous export. Only the issues " +
+                    "updated since that export are requested, merged into the snapshot and printed.")
+    private String incremental;
+
+    @Parameter(names = { "-o", "--output" },
+            description = "A file to write the issues to instead of printing them. Progress is recorded in a " +
+                    "journal next to the file so that the export can be resumed.")
+    private String output;
+
+    @Parameter(names = { "--format" },
+            description = "The format to write the issues in. JSON writes one issue per line. COLUMNAR writes a " +
+                    "compact snapshot to the --output file that can be memory mapped and searched by key. STORE " +
+                    "adds the issues to an issue store in the --output directory, replacing issues with the same key.")
+    private Format format = Format.JSON;
+
+    @Parameter(names = { "--changelog" },
+            description = "Include the history of each issue, expanding each page of the search with the " +
+                    "changelog of its issues. Only the histories of issues with more changes than the search " +
+                    "returns are requested separately.")
+    private boolean changelog;
+
+    @Parameter(names = { "--gzip" },
+            description = "Compress the JSON written to the --output file or stdout with gzip. Compressed --output " +
+                    "files are not journalled and cannot be resumed.")
+    private boolean gzip;
+
+    @Parameter(names = { "--batch" },
+            description = "A file of named queries, one 'name = JQL' per line, to export together instead of --jql. " +
+                    "The issues of each query are written to name.json in the --output directory, and issues that " +
+                    "match several queries are only fetched once. Each file is in the order of the issue ids, and " +
+                    "the ORDER BY of a query is ignored.")
+    private String batch;
+
+    @Parameter(names = { "--countBy" },
+            description = "Print the number of issues with each value of this field, such as components, as JSON " +
+                    "instead of the issues. Only the field is requested from JIRA.")
+    private String countBy;
+
+    @Parameter(names = { "--metrics" },
+            description = "Print a summary of where the time went to stderr at the end of the export: the time to " +
+                    "each response, waiting for and parsing each page and writing each issue.")
+    private boolean metrics;
+
+    @Parameter(names = { "--jmx" },
+            description = "Publish the metrics of the export over JMX while it runs, as " +
+                    "uk.org.gencoreoperative.jira:type=Metrics.")
+    private boolean jmx;
+
+    @Parameter(names = { "--resume" },
+            description = "Continue an export to the --output file from the last page recorded in its journal, " +
+                    "rather than starting again.")
+    private boolean resume;
+
     @SneakyThrows
     public URI getServer() {
         return server.endsWith("/") ? new URI(server.substring(0, server.length() - 1)) : new URI(server);
@@ -92,7 +229,13 @@ public class Config {
         return new Scanner(Files.newInputStream(Paths.get(passwordFile))).nextLine().toCharArray();
     }
 
+    public int getMaxConnections() {
+        return maxConnections == null ? concurrency : maxConnections;
+    }
+
     public Set<String> getFields() {
-        return Strings.isStringEmpty(fields) ? Collections.emptySet() : stream(fields.split(",")).collect(toSet());
+        return Strings.isStringEmpty(fields) ? Collections.emptySet() : stream(fields.split(","))
+                .map(String::trim)
+                .collect(toCollection(LinkedHashSet::new));
     }
 }
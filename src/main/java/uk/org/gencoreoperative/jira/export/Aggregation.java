@@ -0,0 +1,231 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Component;
+import uk.org.gencoreoperative.jira.model.Field;
+import uk.org.gencoreoperative.jira.model.FieldDefinition;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.rest.Jql;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+import uk.org.gencoreoperative.jira.rest.Threads;
+
+/**
+ * Counts the issues that match a search, grouped by the values of one of their fields, without
+ * keeping the issues.
+ * <p>
+ * There are two ways to count:
+ * <ul>
+ *     <li>{@link #countBy(String, String)} pages through the issues asking only for the field,
+ *     for example {@code fields=components}, and adds each issue to the count of its values as
+ *     the page is read. Only the counts are kept, so memory grows with the number of groups
+ *     rather than the number of issues.</li>
+ *     <li>{@link #countEach(String, String, Collection)} counts groups that are already known
+ *     with one {@code maxResults=0} query each, so no issues are downloaded at all. The queries
+ *     run in parallel up to the configured concurrency. JQL only searches text fields, such as
+ *     the summary, for the words they contain, so they cannot be counted this way.</li>
+ * </ul>
+ * An issue with several values, such as several components or labels, is counted in the group of
+ * each of them. Issues with no value are counted in the group {@link #NONE}.
+ */
+public class Aggregation {
+    /**
+     * The group of the issues that have no value for the field.
+     */
+    public static final String NONE = "(none)";
+    /**
+     * The fields that JQL searches with {@code ~} rather than {@code =}, by id, and by the type of custom field.
+     */
+    private static final Set<String> TEXT_FIELDS = new HashSet<>(
+            Arrays.asList("summary", "description", "environment", "comment"));
+    private static final Set<String> TEXT_TYPES = new HashSet<>(Arrays.asList(
+            "com.atlassian.jira.plugin.system.customfieldtypes:textfield",
+            "com.atlassian.jira.plugin.system.customfieldtypes:textarea",
+            "com.atlassian.jira.plugin.system.customfieldtypes:readonlyfield"));
+
+    private final RESTClient client;
+    private final Config config;
+
+    /**
+     * @param client The client used to query JIRA.
+     * @param config The configuration, which provides the page size and concurrency.
+     */
+    public Aggregation(@NonNull RESTClient client, @NonNull Config config) {
+        this.client = client;
+        this.config = config;
+    }
+
+    /**
+     * Count the issues matching the JQL by the values of a field, reading only that field of each issue.
+     *
+     * @param jql The JQL statement to query JIRA with.
+     * @param field The id or name of the field to group the issues by.
+     * @return The number of issues with each value, the largest groups first.
+     * @throws IllegalArgumentException If the server does not have the field.
+     */
+    public Map<String, Long> countBy(@NonNull String jql, @NonNull String field) {
+        String id = resolve(field);
+        Map<String, long[]> counts = new HashMap<>();
+        Consumer<String> count = group -> counts.computeIfAbsent(group, key -> new long[1])[0]++;
+        try (Stream<Issue> issues = client.stream(jql, Collections.singleton(id), 0, false)) {
+            for (Iterator<Issue> iterator = issues.iterator(); iterator.hasNext(); ) {
+                groups(iterator.next().getFields(), id, count);
+            }
+        }
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Comparator.<Map.Entry<String, long[]>>comparingLong(entry -> -entry.getValue()[0])
+                .thenComparing(Map.Entry::getKey));
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return sorted;
+    }
+
+    /**
+     * Count the issues matching the JQL with each of the given values of a field, with a query for
+     * the number of matching issues for each value.
+     *
+     * @param jql The JQL statement to query JIRA with.
+     * @param field The id or name of the field to group the issues by.
+     * @param groups The values to count, which may include {@link #NONE}.
+     * @return The number of issues with each value, in the order of the groups.
+     * @throws IllegalArgumentException If the server does not have the field, or it is a text field.
+     */
+    public Map<String, Long> countEach(@NonNull String jql, @NonNull String field,
+                                       @NonNull Collection<String> groups) {
+        String id = resolve(field);
+        if (isText(id)) {
+            throw new IllegalArgumentException("Text fields cannot be searched for a value to count: " + field);
+        }
+        String clause = clause(id);
+        ExecutorService pool = Threads.newExecutor("jira-count", config.getConcurrency(), config.isVirtualThreads());
+        try {
+            Map<String, Future<Integer>> counts = new LinkedHashMap<>();
+            for (String group : groups) {
+                String condition = group.equals(NONE) ? clause + " is EMPTY" : clause + " = " + quote(group);
+                counts.put(group, pool.submit(() -> client.count(Jql.and(jql, condition))));
+            }
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<Integer>> entry : counts.entrySet()) {
+                result.put(entry.getKey(), (long) Threads.await(entry.getValue()));
+            }
+            return result;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The id of the field, which is how it is asked for in a search.
+     */
+    private String resolve(String field) {
+        if (Field.NAMES.contains(field)) return field;
+        return client.getSchema().find(field).map(FieldDefinition::getId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + field));
+    }
+
+    /**
+     * @return True if JQL only searches the field for the words it contains.
+     */
+    private boolean isText(String id) {
+        if (TEXT_FIELDS.contains(id)) return true;
+        if (Field.NAMES.contains(id)) return false;
+        return client.getSchema().find(id)
+                .map(FieldDefinition::getSchema)
+                .map(schema -> TEXT_TYPES.contains(schema.getCustom()))
+                .orElse(false);
+    }
+
+    /**
+     * Pass each of the groups of an issue to the consumer.
+     */
+    private static void groups(Field fields, String id, Consumer<String> count) {
+        Object value;
+        switch (id) {
+            case "components":
+                value = fields == null ? null : fields.getComponents();
+                break;
+            case "summary":
+                value = fields == null ? null : fields.getSummary();
+                break;
+            case "description":
+                value = fields == null ? null : fields.getDescription();
+                break;
+            case "updated":
+                value = fields == null ? null : fields.getUpdated();
+                break;
+            default:
+                value = fields == null ? null : fields.get(id);
+        }
+        if (value instanceof Collection && !((Collection<?>) value).isEmpty()) {
+            for (Object each : (Collection<?>) value) count.accept(group(each));
+        } else if (value instanceof Collection || value == null) {
+            count.accept(NONE);
+        } else {
+            count.accept(group(value));
+        }
+    }
+
+    private static String group(Object value) {
+        if (value instanceof Component) return ((Component) value).getName();
+        // Numbers are decoded as doubles, but are usually whole, like story points
+        if (value instanceof Double && (Double) value % 1 == 0) {
+            return Long.toString(((Double) value).longValue());
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * @return How the field is named in JQL: custom fields by their number and components as {@code component}.
+     */
+    private static String clause(String id) {
+        if (id.equals("components")) return "component";
+        if (id.startsWith("customfield_")) return "cf[" + id.substring("customfield_".length()) + "]";
+        return id;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
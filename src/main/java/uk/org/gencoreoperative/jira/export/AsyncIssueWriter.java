@@ -0,0 +1,150 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.metrics.ExportListener;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+
+/**
+ * Writes issues as JSON, one per line, on a thread of its own, so that fetching the issues and
+ * writing them do not hold each other up.
+ * <p>
+ * Issues are handed to the writer thread through a bounded queue. When the output cannot keep up
+ * the queue fills and {@link #write(Issue)} blocks until there is room, so a slow consumer of the
+ * output slows the export down rather than filling the heap. The writer thread serialises each
+ * issue straight into a large buffer in front of the output, without building a String for it,
+ * and only flushes when the buffer is full or the writer is closed.
+ * <p>
+ * If the output fails, the next call to {@link #write(Issue)} or {@link #close()} reports it.
+ */
+public class AsyncIssueWriter implements Closeable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int BUFFER_SIZE = 1 << 16;
+    private static final Gson GSON = ModelAdapters.gson();
+    private static final Issue END = new Issue();
+    private static final long POLL = 100;
+
+    private final BlockingQueue<Issue> queue;
+    private final Writer writer;
+    private final ExportListener listener;
+    private final Thread thread;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    /**
+     * @param out The output to write to. It is closed when this writer is closed.
+     * @param capacity The number of issues that can wait to be written before {@link #write(Issue)} blocks.
+     * @param listener Told how long each issue took to write.
+     */
+    public AsyncIssueWriter(@NonNull OutputStream out, int capacity, @NonNull ExportListener listener) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.listener = listener;
+        this.thread = new Thread(this::drain, "jira-writer");
+        thread.start();
+    }
+
+    /**
+     * Queue an issue to be written, waiting for room in the queue if it is full.
+     *
+     * @param issue The issue to write.
+     * @throws RuntimeException If the output has failed.
+     */
+    public void write(@NonNull Issue issue) {
+        if (closed) throw new IllegalStateException("The writer is closed");
+        enqueue(issue);
+    }
+
+    /**
+     * Wait for the queued issues to be written, then flush and close the output.
+     *
+     * @throws IOException If the output failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (failure == null) enqueue(END);
+        } catch (RuntimeException e) {
+            // The failure is reported below
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            thread.interrupt();
+            throw new IOException("Interrupted waiting for the output to be written", e);
+        }
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure != null) throw new IOException("Failed to write the output", failure);
+    }
+
+    private void enqueue(Issue issue) {
+        try {
+            while (!queue.offer(issue, POLL, TimeUnit.MILLISECONDS)) {
+                if (failure != null) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting to write an issue", e);
+        }
+        if (failure != null) throw new RuntimeException("Failed to write the output", failure);
+    }
+
+    private void drain() {
+        try (Writer output = writer) {
+            while (true) {
+                Issue issue = queue.take();
+                if (issue == END) break;
+                long start = System.nanoTime();
+                GSON.toJson(issue, Issue.class, output);
+                output.write(System.lineSeparator());
+                listener.issueWritten(System.nanoTime() - start);
+            }
+        } catch (Throwable e) {
+            // Gson wraps the failures of the output it writes to
+            failure = e instanceof JsonIOException && e.getCause() != null ? e.getCause() : e;
+            // Nothing more will be written, so stop the queue from holding anyone up
+            queue.clear();
+        }
+    }
+}
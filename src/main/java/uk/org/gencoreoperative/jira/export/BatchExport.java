@@ -0,0 +1,290 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+import uk.org.gencoreoperative.jira.rest.Jql;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+import uk.org.gencoreoperative.jira.rest.Threads;
+
+/**
+ * Exports the issues of many named queries in one run, writing the issues of each query to its
+ * own file in an output directory, one JSON issue per line.
+ * <p>
+ * The queries share the client, and so its connections and request scheduling, and run on a
+ * pool of worker threads the size of the configured concurrency. Each task of the pool requests
+ * one page at a time, so no more requests than the concurrency are in flight. The export has two
+ * steps:
+ * <ol>
+ *     <li>Each query is run asking for as little of each issue as possible, to find the ids of
+ *     the issues it matches.</li>
+ *     <li>The issues matched by any of the queries are then fetched once, in pages of ids, and
+ *     each issue is written to the file of every query that matched it.</li>
+ * </ol>
+ * The issues in each file are in the order of their id, whatever the {@code ORDER BY} of its
+ * query. Each file is written to a temporary file in the directory, and only moved into place once
+ * every query has been written.
+ * <p>
+ * The queries are read from a file with one query per line, as {@code name = JQL}. The name is
+ * used for the output file, {@code name.json}, so may only use letters, digits, {@code .},
+ * {@code _} and {@code -}. Blank lines and lines starting with {@code #} are ignored.
+ * <pre>
+ * # Nightly exports
+ * open-bugs = project = ABC AND type = Bug AND resolution is EMPTY
+ * this-week = project = ABC AND updated >= startOfWeek()
+ * </pre>
+ */
+public class BatchExport {
+    public static final String SUFFIX = ".json";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final Gson GSON = ModelAdapters.gson();
+    /**
+     * A small field that is always decoded, asked for when finding the ids of the issues matching each query.
+     */
+    private static final Set<String> ID_FIELDS = Collections.singleton("updated");
+    /**
+     * The most characters the ids of a page may take in the search URL. Each id is followed by an
+     * encoded comma, so a page of ten digit ids takes 13 characters an id. Servers and proxies commonly
+     * refuse URLs over 8KB, which leaves room for the rest of the JQL and the fields.
+     */
+    static final int MAX_IDS_LENGTH = 4000;
+
+    private final RESTClient client;
+    private final Config config;
+    private final List<Query> queries;
+    private final Path directory;
+
+    /**
+     * @param client The client used to query JIRA.
+     * @param config The configuration, which provides the fields, page size and concurrency.
+     * @param queries The queries to export. Their names must be distinct.
+     * @param directory The directory to write a file of issues to for each query.
+     */
+    public BatchExport(@NonNull RESTClient client, @NonNull Config config, @NonNull List<Query> queries,
+                       @NonNull Path directory) {
+        this.client = client;
+        this.config = config;
+        this.queries = new ArrayList<>(queries);
+        this.directory = directory;
+    }
+
+    /**
+     * Read the named queries from a file.
+     *
+     * @param file A file of queries, one {@code name = JQL} per line.
+     * @return The queries, in the order of the file.
+     * @throws IllegalArgumentException If a line is not a query, a name is not valid or is used
+     * twice, or there are no queries.
+     */
+    public static List<Query> read(@NonNull Path file) throws IOException {
+        List<Query> queries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int split = line.indexOf('=');
+            String name = split < 0 ? "" : line.substring(0, split).trim();
+            String jql = split < 0 ? "" : line.substring(split + 1).trim();
+            if (!NAME.matcher(name).matches() || jql.isEmpty()) {
+                throw new IllegalArgumentException(file + ":" + (i + 1) + " is not a query of the form name = JQL");
+            }
+            if (!names.add(name)) {
+                throw new IllegalArgumentException(file + ":" + (i + 1) + " uses the name " + name + " again");
+            }
+            queries.add(new Query(name, jql));
+        }
+        if (queries.isEmpty()) throw new IllegalArgumentException("No queries in " + file);
+        return queries;
+    }
+
+    /**
+     * Run the export, replacing the files of the queries in the output directory.
+     *
+     * @return The number of issues written for each query, by name, in the order of the queries.
+     */
+    public Map<String, Integer> run() throws IOException {
+        Files.createDirectories(directory);
+        ExecutorService pool = Threads.newExecutor("jira-batch", config.getConcurrency(), config.isVirtualThreads());
+        List<Path> spools = new ArrayList<>();
+        try {
+            List<Future<int[]>> matches = new ArrayList<>();
+            for (Query query : queries) {
+                matches.add(pool.submit(() -> ids(query.getJql())));
+            }
+            TreeMap<Integer, BitSet> members = new TreeMap<>();
+            for (int query = 0; query < queries.size(); query++) {
+                for (int id : Threads.await(matches.get(query))) {
+                    members.computeIfAbsent(id, key -> new BitSet()).set(query);
+                }
+            }
+
+            Writer[] writers = new Writer[queries.size()];
+            int[] counts = new int[queries.size()];
+            try {
+                for (int query = 0; query < queries.size(); query++) {
+                    Path spool = Files.createTempFile(directory, queries.get(query).getName(), ".tmp");
+                    spools.add(spool);
+                    writers[query] = Files.newBufferedWriter(spool, StandardCharsets.UTF_8);
+                }
+                write(pool, members, writers, counts);
+            } finally {
+                for (Writer writer : writers) {
+                    if (writer != null) writer.close();
+                }
+            }
+
+            Map<String, Integer> written = new LinkedHashMap<>();
+            for (int query = 0; query < queries.size(); query++) {
+                String name = queries.get(query).getName();
+                Files.move(spools.get(query), directory.resolve(name + SUFFIX),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                written.put(name, counts[query]);
+            }
+            spools.clear();
+            return written;
+        } finally {
+            pool.shutdownNow();
+            for (Path spool : spools) {
+                Files.deleteIfExists(spool);
+            }
+        }
+    }
+
+    /**
+     * Fetch the issues in pages of ids, keeping up to the configured concurrency of pages in
+     * flight, and write each to the queries that matched it in the order of the ids.
+     */
+    private void write(ExecutorService pool, TreeMap<Integer, BitSet> members, Writer[] writers, int[] counts)
+            throws IOException {
+        int[] ids = members.keySet().stream().mapToInt(Integer::intValue).toArray();
+        int pageSize = config.getPageSize();
+        Deque<Future<List<Issue>>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        while (next < ids.length || !inFlight.isEmpty()) {
+            while (inFlight.size() < config.getConcurrency() && next < ids.length) {
+                int from = next;
+                int to = end(ids, from, pageSize);
+                inFlight.add(pool.submit(() -> fetch(ids, from, to)));
+                next = to;
+            }
+            for (Issue issue : Threads.await(inFlight.poll())) {
+                BitSet matched = members.get(issue.getId());
+                // An issue changed between the two steps may come back with a different id
+                if (matched == null) continue;
+                long start = System.nanoTime();
+                String json = GSON.toJson(issue);
+                for (int query = matched.nextSetBit(0); query >= 0; query = matched.nextSetBit(query + 1)) {
+                    writers[query].write(json);
+                    writers[query].write(System.lineSeparator());
+                    counts[query]++;
+                }
+                client.getListener().issueWritten(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @return The end of the page of ids starting at {@code from}: at most a page size of ids, and
+     * never more than {@link #MAX_IDS_LENGTH} of them once encoded, but always at least one.
+     */
+    static int end(int[] ids, int from, int pageSize) {
+        int to = from;
+        int length = 0;
+        while (to < ids.length && to - from < pageSize) {
+            // The id and the comma after it, which is encoded as %2C
+            length += Integer.toString(ids[to]).length() + 3;
+            if (length > MAX_IDS_LENGTH && to > from) break;
+            to++;
+        }
+        return to;
+    }
+
+    private int[] ids(String jql) {
+        try (Stream<Issue> issues = client.stream(jql, ID_FIELDS, 0, false, 1)) {
+            return issues.mapToInt(Issue::getId).toArray();
+        }
+    }
+
+    private List<Issue> fetch(int[] ids, int from, int to) {
+        String in = IntStream.range(from, to)
+                .mapToObj(i -> Integer.toString(ids[i]))
+                .collect(Collectors.joining(",", "id in (", ")"));
+        try (Stream<Issue> issues = client.stream(Jql.orderBy(in, "id ASC"), config.getFields(), 0,
+                config.isChangelog(), 1)) {
+            return issues.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * A named JQL query.
+     */
+    @Getter
+    @ToString
+    public static class Query {
+        private final String name;
+        private final String jql;
+
+        /**
+         * @param name The name of the query, used to name its output file.
+         * @param jql The JQL of the query.
+         */
+        public Query(@NonNull String name, @NonNull String jql) {
+            this.name = name;
+            this.jql = jql;
+        }
+    }
+}
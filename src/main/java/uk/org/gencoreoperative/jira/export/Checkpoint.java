@@ -0,0 +1,128 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+import com.google.gson.Gson;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * The point an incremental export has reached: the time the export started, and the most recent
+ * {@code updated} time it saw.
+ * <p>
+ * An issue can be edited while the export is running, after its page has been fetched, so the
+ * most recent {@code updated} time is not enough to know where the next export must start. Every
+ * edit the export may have missed happened after it started, so the next export starts from
+ * whichever of the two times is earlier.
+ * <pre>
+ * {"updated":"2024-01-15T10:22:33.000+0000","started":"2024-01-15T10:25:00.000+0000"}
+ * </pre>
+ */
+@Getter
+@ToString
+public class Checkpoint {
+    private static final Gson GSON = new Gson();
+    private static final DateTimeFormatter JIRA_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    private final String updated;
+    private final String started;
+
+    /**
+     * @param updated The most recent {@code updated} time seen, or null if no issues were seen.
+     * @param started The time the export started, or null for a checkpoint written before it was recorded.
+     */
+    public Checkpoint(String updated, String started) {
+        if (updated == null && started == null) throw new IllegalArgumentException("A checkpoint needs a time");
+        this.updated = updated;
+        this.started = started;
+    }
+
+    /**
+     * @return The time the next export must look for updates from.
+     */
+    public Instant getSince() {
+        if (started == null) return parse(updated);
+        if (updated == null) return parse(started);
+        Instant first = parse(started);
+        Instant second = parse(updated);
+        return first.isBefore(second) ? first : second;
+    }
+
+    /**
+     * @param time A time in the JIRA format, for example {@code 2024-01-15T10:22:33.000+0000}.
+     * @return The time as an {@link Instant}.
+     */
+    public static Instant parse(@NonNull String time) {
+        return OffsetDateTime.parse(time, JIRA_TIME).toInstant();
+    }
+
+    /**
+     * @param instant A time.
+     * @return The time in the JIRA format.
+     */
+    public static String format(@NonNull Instant instant) {
+        return JIRA_TIME.format(instant.atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * @param file The checkpoint file.
+     * @return The checkpoint, or empty if the file does not exist.
+     */
+    public static Optional<Checkpoint> load(@NonNull Path file) throws IOException {
+        if (!Files.exists(file)) return Optional.empty();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Checkpoint checkpoint = GSON.fromJson(reader, Checkpoint.class);
+            return Optional.of(new Checkpoint(checkpoint.updated, checkpoint.started));
+        }
+    }
+
+    /**
+     * Write the checkpoint, replacing the file in a single step so that a failure never leaves
+     * a partial checkpoint behind.
+     *
+     * @param file The checkpoint file.
+     */
+    public void save(@NonNull Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "checkpoint", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            GSON.toJson(this, writer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
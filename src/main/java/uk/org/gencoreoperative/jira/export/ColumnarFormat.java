@@ -0,0 +1,87 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+/**
+ * The layout of a columnar snapshot, shared by the {@link ColumnarWriter} and {@link ColumnarSnapshot}.
+ * <p>
+ * The file starts with a header, followed by the sections listed in the header:
+ * <pre>
+ * int     magic ("JCOL")
+ * int     version
+ * int     number of rows
+ * int     number of sections
+ * long[2] offset and length of each section, in the order of {@link Section}
+ * </pre>
+ * All numbers are big endian. Each text column is held in two sections: the position of each
+ * row's value in the data, and the data, where each value is its length followed by its UTF-8
+ * bytes, with a length of -1 for a missing value.
+ * <p>
+ * Components are dictionary encoded. The dictionary holds each distinct component once, as its
+ * id followed by its name and self URL as length prefixed text. Each row refers to its
+ * components by their index in the dictionary. {@link Section#COMPONENT_ROWS} holds the start of
+ * each row's indexes in {@link Section#COMPONENTS}, with an extra entry for the end of the last row.
+ * <p>
+ * The lookup section is an open addressing hash table of the issue keys, holding its capacity,
+ * a power of two, followed by a slot for each entry holding the row plus one, or zero if empty.
+ */
+final class ColumnarFormat {
+    static final int MAGIC = 0x4A434F4C;
+    static final int VERSION = 1;
+    static final int NULL_ID = Integer.MIN_VALUE;
+    static final int HEADER = 16;
+
+    enum Section {
+        ID,
+        KEY_POSITIONS, KEY,
+        SELF_POSITIONS, SELF,
+        SUMMARY_POSITIONS, SUMMARY,
+        DESCRIPTION_POSITIONS, DESCRIPTION,
+        UPDATED_POSITIONS, UPDATED,
+        COMPONENT_ROWS, COMPONENTS,
+        DICTIONARY,
+        LOOKUP
+    }
+
+    private ColumnarFormat() {
+    }
+
+    /**
+     * @return A hash of the key, which is never negative. The lookup for a key starts at the slot
+     * given by the hash modulo the capacity of the table.
+     */
+    static int hash(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return The capacity of the lookup table for the number of rows, keeping it at most half full.
+     */
+    static int capacity(int rows) {
+        int capacity = 2;
+        while (capacity < rows * 2L) capacity <<= 1;
+        return capacity;
+    }
+}
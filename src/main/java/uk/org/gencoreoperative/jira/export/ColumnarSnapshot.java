@@ -0,0 +1,274 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.export.ColumnarFormat.Section;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+
+/**
+ * Reads a columnar snapshot written by {@link ColumnarWriter}, mapping it into memory rather
+ * than reading it. The layout is described in {@link ColumnarFormat}.
+ * <p>
+ * Each column is read on its own, so a scan of one column does not touch the others, and an
+ * issue can be found by its key with a single hash table probe. Only the values asked for are
+ * decoded. Components are returned as indexes into the dictionary, so grouping by component
+ * does not need to compare any text.
+ * <p>
+ * Each section of the file is mapped separately and must be smaller than 2GB. A snapshot can be
+ * read by many threads at once.
+ */
+public class ColumnarSnapshot implements Closeable {
+    /**
+     * The id returned for an issue or component without one.
+     */
+    public static final int NO_ID = ColumnarFormat.NULL_ID;
+    private static final Gson GSON = ModelAdapters.gson();
+
+    private final FileChannel channel;
+    private final int rows;
+    private final Map<Section, ByteBuffer> sections = new EnumMap<>(Section.class);
+    private final int[] componentIds;
+    private final String[] componentNames;
+    private final String[] componentSelfs;
+    private final int capacity;
+
+    private ColumnarSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        Section[] all = Section.values();
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(channel.size(), ColumnarFormat.HEADER + 16L * all.length));
+        if (header.remaining() < ColumnarFormat.HEADER || header.getInt(0) != ColumnarFormat.MAGIC) {
+            throw new IOException("Not a columnar snapshot");
+        }
+        if (header.getInt(4) != ColumnarFormat.VERSION || header.getInt(12) != all.length) {
+            throw new IOException("Unsupported version of columnar snapshot: " + header.getInt(4));
+        }
+        this.rows = header.getInt(8);
+        for (Section section : all) {
+            int entry = ColumnarFormat.HEADER + 16 * section.ordinal();
+            long offset = header.getLong(entry);
+            long length = header.getLong(entry + 8);
+            if (length > Integer.MAX_VALUE || offset + length > channel.size()) {
+                throw new IOException("The " + section + " section cannot be mapped: " + length + " bytes");
+            }
+            sections.put(section, channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+        }
+
+        ByteBuffer dictionary = sections.get(Section.DICTIONARY).duplicate();
+        int count = dictionary.getInt();
+        componentIds = new int[count];
+        componentNames = new String[count];
+        componentSelfs = new String[count];
+        for (int i = 0; i < count; i++) {
+            componentIds[i] = dictionary.getInt();
+            componentNames[i] = readText(dictionary);
+            componentSelfs[i] = readText(dictionary);
+        }
+        capacity = sections.get(Section.LOOKUP).getInt(0);
+    }
+
+    /**
+     * @param file The snapshot to read.
+     * @return The snapshot, which the caller must close.
+     */
+    public static ColumnarSnapshot open(@NonNull Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of issues in the snapshot.
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * @param key The key of an issue, for example {@code OPENAM-16598}.
+     * @return The row of the issue, or -1 if it is not in the snapshot.
+     */
+    public int find(@NonNull String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer lookup = sections.get(Section.LOOKUP);
+        for (int slot = ColumnarFormat.hash(key) & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+            int entry = lookup.getInt(4 + 4 * slot);
+            if (entry == 0) return -1;
+            if (textEquals(Section.KEY_POSITIONS, Section.KEY, entry - 1, bytes)) return entry - 1;
+        }
+    }
+
+    public int getId(int row) {
+        return sections.get(Section.ID).getInt(4 * check(row));
+    }
+
+    public String getKey(int row) {
+        return text(Section.KEY_POSITIONS, Section.KEY, row);
+    }
+
+    public String getSelf(int row) {
+        return text(Section.SELF_POSITIONS, Section.SELF, row);
+    }
+
+    public String getSummary(int row) {
+        return text(Section.SUMMARY_POSITIONS, Section.SUMMARY, row);
+    }
+
+    public String getDescription(int row) {
+        return text(Section.DESCRIPTION_POSITIONS, Section.DESCRIPTION, row);
+    }
+
+    public String getUpdated(int row) {
+        return text(Section.UPDATED_POSITIONS, Section.UPDATED, row);
+    }
+
+    /**
+     * @return The number of components of the issue.
+     */
+    public int getComponentCount(int row) {
+        ByteBuffer offsets = sections.get(Section.COMPONENT_ROWS);
+        return offsets.getInt(4 * (check(row) + 1)) - offsets.getInt(4 * row);
+    }
+
+    /**
+     * @param row The row of the issue.
+     * @param index The position of the component in the issue's components.
+     * @return The index of the component in the dictionary.
+     */
+    public int getComponent(int row, int index) {
+        if (index < 0 || index >= getComponentCount(row)) throw new IndexOutOfBoundsException("Component " + index);
+        int start = sections.get(Section.COMPONENT_ROWS).getInt(4 * row);
+        return sections.get(Section.COMPONENTS).getInt(4 * (start + index));
+    }
+
+    /**
+     * @return The number of distinct components in the snapshot.
+     */
+    public int getDictionarySize() {
+        return componentIds.length;
+    }
+
+    public int getComponentId(int component) {
+        return componentIds[component];
+    }
+
+    public String getComponentName(int component) {
+        return componentNames[component];
+    }
+
+    public String getComponentSelf(int component) {
+        return componentSelfs[component];
+    }
+
+    /**
+     * Decode every column of a row back into an {@link Issue}. Scans are faster using the
+     * columns directly.
+     *
+     * @param row The row of the issue.
+     * @return The issue.
+     */
+    public Issue getIssue(int row) {
+        JsonObject fields = new JsonObject();
+        fields.addProperty("summary", getSummary(row));
+        fields.addProperty("description", getDescription(row));
+        fields.addProperty("updated", getUpdated(row));
+        JsonArray components = new JsonArray();
+        for (int i = 0; i < getComponentCount(row); i++) {
+            int component = getComponent(row, i);
+            JsonObject json = new JsonObject();
+            json.addProperty("self", getComponentSelf(component));
+            json.addProperty("id", id(getComponentId(component)));
+            json.addProperty("name", getComponentName(component));
+            components.add(json);
+        }
+        fields.add("components", components);
+        JsonObject issue = new JsonObject();
+        issue.addProperty("id", id(getId(row)));
+        issue.addProperty("self", getSelf(row));
+        issue.addProperty("key", getKey(row));
+        issue.add("fields", fields);
+        return GSON.fromJson(issue, Issue.class);
+    }
+
+    /**
+     * The mapped sections are released once they are no longer referenced.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static Integer id(int id) {
+        return id == NO_ID ? null : id;
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= rows) throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+        return row;
+    }
+
+    private String text(Section positions, Section data, int row) {
+        ByteBuffer values = sections.get(data).duplicate();
+        values.position((int) sections.get(positions).getLong(8 * check(row)));
+        return readText(values);
+    }
+
+    private boolean textEquals(Section positions, Section data, int row, byte[] expected) {
+        ByteBuffer values = sections.get(data);
+        int position = (int) sections.get(positions).getLong(8 * row);
+        if (values.getInt(position) != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (values.get(position + 4 + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private static String readText(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.export.ColumnarFormat.Section;
+import uk.org.gencoreoperative.jira.model.Component;
+import uk.org.gencoreoperative.jira.model.Field;
+import uk.org.gencoreoperative.jira.model.Issue;
+
+/**
+ * Writes issues to a columnar snapshot, which can be read with {@link ColumnarSnapshot}. The
+ * layout is described in {@link ColumnarFormat}.
+ * <p>
+ * Each column is written to its own temporary file as issues are added, so only the component
+ * dictionary and a hash of each key are held in memory. The snapshot is put together from the
+ * columns by {@link #finish()}, and replaces the file in a single step. Closing the writer
+ * without finishing leaves the file as it was, so a failed export does not replace a good snapshot.
+ */
+public class ColumnarWriter implements Closeable {
+    private static final int NO_KEY = -1;
+
+    private final Path file;
+    private final Path directory;
+    private final Map<Section, Column> columns = new EnumMap<>(Section.class);
+    private final Map<List<Object>, Integer> dictionary = new HashMap<>();
+    private final List<Component> components = new ArrayList<>();
+    private int[] hashes = new int[1024];
+    private int rows;
+    private int references;
+    private boolean finished;
+
+    /**
+     * @param file The snapshot to write.
+     */
+    public ColumnarWriter(@NonNull Path file) throws IOException {
+        this.file = file;
+        this.directory = Files.createTempDirectory(file.toAbsolutePath().getParent(), "columns");
+        try {
+            for (Section section : Section.values()) {
+                columns.put(section, new Column(directory.resolve(section.name())));
+            }
+            columns.get(Section.COMPONENT_ROWS).writeInt(0);
+        } catch (IOException e) {
+            delete();
+            throw e;
+        }
+    }
+
+    /**
+     * @param issue The issue to add as the next row.
+     */
+    public void add(@NonNull Issue issue) throws IOException {
+        if (finished) throw new IllegalStateException("The snapshot has already been written");
+        Field fields = issue.getFields();
+        columns.get(Section.ID).writeInt(issue.getId() == null ? ColumnarFormat.NULL_ID : issue.getId());
+        text(Section.KEY_POSITIONS, Section.KEY, issue.getKey());
+        text(Section.SELF_POSITIONS, Section.SELF, issue.getSelfLink());
+        text(Section.SUMMARY_POSITIONS, Section.SUMMARY, fields == null ? null : fields.getSummary());
+        text(Section.DESCRIPTION_POSITIONS, Section.DESCRIPTION, fields == null ? null : fields.getDescription());
+        text(Section.UPDATED_POSITIONS, Section.UPDATED, fields == null ? null : fields.getUpdated());
+        if (fields != null && fields.getComponents() != null) {
+            for (Component component : fields.getComponents()) {
+                columns.get(Section.COMPONENTS).writeInt(index(component));
+                references++;
+            }
+        }
+        columns.get(Section.COMPONENT_ROWS).writeInt(references);
+        if (rows == hashes.length) hashes = Arrays.copyOf(hashes, rows * 2);
+        hashes[rows++] = issue.getKey() == null ? NO_KEY : ColumnarFormat.hash(issue.getKey());
+    }
+
+    /**
+     * Put the snapshot together from the columns. No more issues can be added.
+     */
+    public void finish() throws IOException {
+        if (finished) throw new IllegalStateException("The snapshot has already been written");
+        finished = true;
+        writeDictionary(columns.get(Section.DICTIONARY));
+        writeLookup(columns.get(Section.LOOKUP));
+        for (Column column : columns.values()) {
+            column.out.close();
+        }
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "snapshot", ".tmp");
+        try {
+            assemble(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Remove the temporary files.
+     */
+    @Override
+    public void close() throws IOException {
+        delete();
+    }
+
+    private void assemble(Path temp) throws IOException {
+        Section[] sections = Section.values();
+        ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.HEADER + 16 * sections.length);
+        header.putInt(ColumnarFormat.MAGIC).putInt(ColumnarFormat.VERSION).putInt(rows).putInt(sections.length);
+        long offset = header.capacity();
+        for (Section section : sections) {
+            long size = columns.get(section).size;
+            header.putLong(offset).putLong(size);
+            offset += size;
+        }
+        header.flip();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (Section section : sections) {
+                try (FileChannel in = FileChannel.open(columns.get(section).file, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long copied = 0; copied < size; ) {
+                        copied += in.transferTo(copied, size - copied, out);
+                    }
+                }
+            }
+            out.force(false);
+        }
+    }
+
+    private void writeDictionary(Column column) throws IOException {
+        column.writeInt(components.size());
+        for (Component component : components) {
+            column.writeInt(component.getId() == null ? ColumnarFormat.NULL_ID : component.getId());
+            column.writeText(component.getName());
+            column.writeText(component.getSelfLink());
+        }
+    }
+
+    private void writeLookup(Column column) throws IOException {
+        int capacity = ColumnarFormat.capacity(rows);
+        int[] slots = new int[capacity];
+        for (int row = 0; row < rows; row++) {
+            if (hashes[row] == NO_KEY) continue;
+            int slot = hashes[row] & (capacity - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            slots[slot] = row + 1;
+        }
+        column.writeInt(capacity);
+        for (int slot : slots) {
+            column.writeInt(slot);
+        }
+    }
+
+    /**
+     * @return The index of the component in the dictionary, adding it if it is new.
+     */
+    private int index(Component component) {
+        List<Object> identity = Arrays.asList(component.getId(), component.getName(), component.getSelfLink());
+        return dictionary.computeIfAbsent(identity, key -> {
+            components.add(component);
+            return components.size() - 1;
+        });
+    }
+
+    private void text(Section positions, Section data, String value) throws IOException {
+        Column column = columns.get(data);
+        columns.get(positions).writeLong(column.size);
+        column.writeText(value);
+    }
+
+    private void delete() throws IOException {
+        for (Column column : columns.values()) {
+            column.out.close();
+            Files.deleteIfExists(column.file);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * A temporary file holding a section of the snapshot.
+     */
+    private static class Column {
+        private final Path file;
+        private final DataOutputStream out;
+        private long size;
+
+        Column(Path file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 65536));
+        }
+
+        void writeInt(int value) throws IOException {
+            out.writeInt(value);
+            size += 4;
+        }
+
+        void writeLong(long value) throws IOException {
+            out.writeLong(value);
+            size += 8;
+        }
+
+        void writeText(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            out.write(bytes);
+            size += bytes.length;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+import uk.org.gencoreoperative.jira.rest.Jql;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+
+/**
+ * Keeps a local snapshot of the issues matching the configured JQL up to date by only
+ * requesting the issues that have been updated since the last export.
+ * <p>
+ * The directory holds the snapshot, one JSON issue per line, and the {@link Checkpoint}
+ * describing how far the snapshot has got. The first export fetches every issue and writes
+ * them straight to the snapshot. Following exports add an {@code updated} clause to the JQL so
+ * that JIRA only returns the issues changed since the checkpoint, and merge those into the
+ * snapshot.
+ * <p>
+ * JQL compares dates in the time zone of the user, so the clause is written relative to now
+ * with a margin for the clocks of the client and server being apart. Each issue returned is
+ * compared with its line in the snapshot, and is only counted as changed if its {@code updated}
+ * time differs.
+ * <p>
+ * The changes are written to a file beside the snapshot as they arrive. Only their keys and
+ * where they are in that file are held in memory while the snapshot is rewritten, and each is
+ * parsed again with the fields it was requested with as it is merged.
+ * <p>
+ * Issues that are deleted, or that stop matching the JQL, are not removed from the snapshot.
+ */
+public class IncrementalExport {
+    public static final String SNAPSHOT = "snapshot.jsonl";
+    public static final String CHECKPOINT = "checkpoint.json";
+    private static final String UPDATED = "updated";
+    private static final long MARGIN_MINUTES = 10;
+    private static final Gson GSON = ModelAdapters.gson();
+
+    private final RESTClient client;
+    private final Config config;
+    private final Path directory;
+    private final Path snapshot;
+    private final Path checkpoint;
+
+    /**
+     * @param client The client used to query JIRA.
+     * @param config The configuration, which provides the JQL and fields to export.
+     * @param directory The directory holding the snapshot and checkpoint. It is created if it does not exist.
+     */
+    public IncrementalExport(@NonNull RESTClient client, @NonNull Config config, @NonNull Path directory)
+            throws IOException {
+        this.client = client;
+        this.config = config;
+        this.directory = Files.createDirectories(directory);
+        this.snapshot = directory.resolve(SNAPSHOT);
+        this.checkpoint = directory.resolve(CHECKPOINT);
+    }
+
+    /**
+     * Fetch the issues that have changed since the last export, merge them into the snapshot and
+     * move the checkpoint on.
+     *
+     * @param changed Receives each issue that is new or has changed since the last export.
+     * @return The number of issues that were new or had changed.
+     */
+    public int run(@NonNull Consumer<Issue> changed) throws IOException {
+        Instant started = Instant.now();
+        Optional<Checkpoint> previous = Files.exists(snapshot) ? Checkpoint.load(checkpoint) : Optional.empty();
+
+        Set<String> fields = new HashSet<>(config.getFields());
+        if (!fields.isEmpty()) fields.add(UPDATED);
+
+        Latest latest = new Latest(previous.map(Checkpoint::getUpdated).orElse(null));
+        int count;
+        if (previous.isPresent()) {
+            String jql = Jql.and(config.getJql(), "updated >= -" + minutesSince(previous.get().getSince()) + "m");
+            count = merge(fetch(jql, fields, latest), client.getGson(fields), changed);
+        } else {
+            count = replace(fields, latest, changed);
+        }
+        new Checkpoint(latest.updated, Checkpoint.format(started)).save(checkpoint);
+        return count;
+    }
+
+    /**
+     * Write every issue straight to a new snapshot.
+     */
+    private int replace(Set<String> fields, Latest latest, Consumer<Issue> changed) throws IOException {
+        Path temp = Files.createTempFile(directory, "snapshot", ".tmp");
+        int count = 0;
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+                 Stream<Issue> issues = client.stream(config.getJql(), fields)) {
+                Iterator<Issue> iterator = issues.iterator();
+                while (iterator.hasNext()) {
+                    Issue issue = iterator.next();
+                    GSON.toJson(issue, Issue.class, writer);
+                    writer.newLine();
+                    latest.add(issue);
+                    changed.accept(issue);
+                    count++;
+                }
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return count;
+    }
+
+    /**
+     * Write the issues returned by the query to a file of changes.
+     */
+    private Changes fetch(String jql, Set<String> fields, Latest latest) throws IOException {
+        Changes changes = new Changes(Files.createTempFile(directory, "changes", ".tmp"));
+        try (OutputStream out = Files.newOutputStream(changes.file);
+             Stream<Issue> issues = client.stream(jql, fields)) {
+            Iterator<Issue> iterator = issues.iterator();
+            while (iterator.hasNext()) {
+                Issue issue = iterator.next();
+                byte[] json = GSON.toJson(issue, Issue.class).getBytes(StandardCharsets.UTF_8);
+                changes.add(issue.getKey(), updated(issue), json.length);
+                out.write(json);
+                latest.add(issue);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(changes.file);
+            throw e;
+        }
+        return changes;
+    }
+
+    /**
+     * Rewrite the snapshot, replacing the lines of issues that have changed and adding new issues at the end.
+     */
+    private int merge(Changes changes, Gson gson, Consumer<Issue> changed) throws IOException {
+        Path temp = Files.createTempFile(directory, "snapshot", ".tmp");
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(changes.file, StandardOpenOption.READ)) {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+                 BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Header header = Header.of(line);
+                    Change change = changes.remove(header.key);
+                    if (change != null && !Objects.equals(change.updated, header.updated)) {
+                        line = changes.read(channel, change);
+                        changed.accept(gson.fromJson(line, Issue.class));
+                        count++;
+                    }
+                    writer.write(line);
+                    writer.newLine();
+                }
+                for (Change change : changes.remaining()) {
+                    String json = changes.read(channel, change);
+                    writer.write(json);
+                    writer.newLine();
+                    changed.accept(gson.fromJson(json, Issue.class));
+                    count++;
+                }
+            }
+            if (count > 0) {
+                Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(changes.file);
+        }
+        return count;
+    }
+
+    private static Instant updated(Issue issue) {
+        if (issue.getFields() == null || issue.getFields().getUpdated() == null) return null;
+        return Checkpoint.parse(issue.getFields().getUpdated());
+    }
+
+    private static long minutesSince(Instant instant) {
+        return Duration.between(instant, Instant.now()).toMinutes() + MARGIN_MINUTES;
+    }
+
+    /**
+     * Where an issue returned by the query is in the file of changes.
+     */
+    private static class Change {
+        private final Instant updated;
+        private final long position;
+        private final int length;
+
+        Change(Instant updated, long position, int length) {
+            this.updated = updated;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The issues returned by the query, by key, in the order they were returned. An issue returned
+     * twice is taken from where it was returned last.
+     */
+    private static class Changes {
+        private final Path file;
+        private final Map<String, Change> changes = new LinkedHashMap<>();
+        private long position;
+
+        Changes(Path file) {
+            this.file = file;
+        }
+
+        void add(String key, Instant updated, int length) {
+            changes.remove(key);
+            changes.put(key, new Change(updated, position, length));
+            position += length;
+        }
+
+        Change remove(String key) {
+            return key == null ? null : changes.remove(key);
+        }
+
+        Iterable<Change> remaining() {
+            return changes.values();
+        }
+
+        String read(FileChannel channel, Change change) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(change.length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, change.position + buffer.position()) < 0) {
+                    throw new IOException("The changes file " + file + " is shorter than was written");
+                }
+            }
+            buffer.flip();
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+    }
+
+    /**
+     * The key and {@code updated} time of a line of the snapshot, read without parsing the rest of the issue.
+     */
+    private static class Header {
+        private String key;
+        private Instant updated;
+
+        static Header of(String line) throws IOException {
+            Header header = new Header();
+            try (JsonReader reader = new JsonReader(new StringReader(line))) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals("key")) {
+                        header.key = reader.nextString();
+                    } else if (name.equals("fields") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (reader.nextName().equals(UPDATED) && reader.peek() == JsonToken.STRING) {
+                                header.updated = Checkpoint.parse(reader.nextString());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Tracks the most recent update seen, starting from the previous checkpoint.
+     */
+    private static class Latest {
+        private String updated;
+        private Instant instant;
+
+        Latest(String previous) {
+            if (previous != null) {
+                updated = previous;
+                instant = Checkpoint.parse(previous);
+            }
+        }
+
+        void add(Issue issue) {
+            Instant at = IncrementalExport.updated(issue);
+            if (at != null && (instant == null || at.isAfter(instant))) {
+                updated = issue.getFields().getUpdated();
+                instant = at;
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * An append-only record of how far an export to a file has got.
+ * <p>
+ * The first line describes the export, so that the journal is only used to continue the same
+ * export. A line is added each time a page of issues has reached the disk, with the number of
+ * issues written, the id of the last one and the length of the output at that point:
+ * <pre>
+ * {"jql":"project = OPENAM","fields":["summary"],"sharded":false,"changelog":false}
+ * {"issues":100,"lastId":10099,"position":48211,"complete":false}
+ * {"issues":230,"lastId":10229,"position":110877,"complete":true}
+ * </pre>
+ * Each line is forced to the disk before the export carries on. A line that was only partly
+ * written when an export died is ignored, and removed when the journal is opened.
+ */
+public class Journal implements Closeable {
+    private static final Gson GSON = new Gson();
+
+    private final FileChannel channel;
+    private final Header header;
+    private Entry last;
+
+    private Journal(FileChannel channel, Header header, Entry last) {
+        this.channel = channel;
+        this.header = header;
+        this.last = last;
+    }
+
+    /**
+     * Start a new journal, replacing any journal already in the file.
+     *
+     * @param file The journal file.
+     * @param jql The JQL being exported.
+     * @param fields The fields being exported.
+     * @param sharded True if the export pages by issue id.
+     * @param changelog True if the export includes the history of each issue.
+     * @return The journal, which the caller must close.
+     */
+    public static Journal create(@NonNull Path file, @NonNull String jql, @NonNull Set<String> fields,
+                                 boolean sharded, boolean changelog) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        Journal journal = new Journal(channel, new Header(jql, fields, sharded, changelog), null);
+        try {
+            journal.write(GSON.toJson(journal.header));
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Open an existing journal to continue an export.
+     *
+     * @param file The journal file.
+     * @param jql The JQL being exported.
+     * @param fields The fields being exported.
+     * @param sharded True if the export pages by issue id.
+     * @param changelog True if the export includes the history of each issue.
+     * @return The journal, which the caller must close, or empty if there is no journal.
+     * @throws IllegalStateException If the journal was written by a different export.
+     */
+    public static Optional<Journal> open(@NonNull Path file, @NonNull String jql, @NonNull Set<String> fields,
+                                         boolean sharded, boolean changelog) throws IOException {
+        if (!Files.exists(file)) return Optional.empty();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            List<String> lines = new ArrayList<>();
+            long valid = readLines(channel, lines);
+            Header header = lines.isEmpty() ? null : parse(lines.get(0), Header.class);
+            if (header == null) {
+                throw new IllegalStateException("The journal " + file + " does not describe an export");
+            }
+            if (!header.equals(new Header(jql, fields, sharded, changelog))) {
+                throw new IllegalStateException("The journal " + file + " is for a different export: " + header);
+            }
+            Entry last = null;
+            for (String line : lines.subList(1, lines.size())) {
+                Entry entry = parse(line, Entry.class);
+                if (entry != null) last = entry;
+            }
+            channel.truncate(valid);
+            channel.position(valid);
+            return Optional.of(new Journal(channel, header, last));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The last point the export reached, or empty if it had not finished a page.
+     */
+    public Optional<Entry> getLast() {
+        return Optional.ofNullable(last);
+    }
+
+    /**
+     * Record a point the export has reached. The output must already be on the disk.
+     *
+     * @param entry The point reached.
+     */
+    public void append(@NonNull Entry entry) throws IOException {
+        write(GSON.toJson(entry));
+        last = entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Read the complete lines of the file.
+     * @return The length of the file up to the end of the last complete line.
+     */
+    private static long readLines(FileChannel channel, List<String> lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = 0;
+        long valid = 0;
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                position++;
+                if (b == '\n') {
+                    lines.add(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                    line.reset();
+                    valid = position;
+                } else {
+                    line.write(b);
+                }
+            }
+            buffer.clear();
+        }
+        return valid;
+    }
+
+    private static <T> T parse(String line, Class<T> type) {
+        try {
+            return GSON.fromJson(line, type);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Describes the export the journal belongs to.
+     */
+    @ToString
+    private static class Header {
+        private final String jql;
+        private final Set<String> fields;
+        private final boolean sharded;
+        private final boolean changelog;
+
+        Header(String jql, Set<String> fields, boolean sharded, boolean changelog) {
+            this.jql = jql;
+            this.fields = new TreeSet<>(fields);
+            this.sharded = sharded;
+            this.changelog = changelog;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Header)) return false;
+            Header other = (Header) o;
+            return Objects.equals(jql, other.jql) && Objects.equals(fields, other.fields) && sharded == other.sharded
+                    && changelog == other.changelog;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(jql, fields, sharded, changelog);
+        }
+    }
+
+    /**
+     * A point the export reached.
+     */
+    @Getter
+    @ToString
+    public static class Entry {
+        private final long issues;
+        private final Integer lastId;
+        private final long position;
+        private final boolean complete;
+
+        /**
+         * @param issues The number of issues written.
+         * @param lastId The id of the last issue written, or null if none have been written.
+         * @param position The length of the output after the last issue.
+         * @param complete True if the export has finished.
+         */
+        public Entry(long issues, Integer lastId, long position, boolean complete) {
+            this.issues = issues;
+            this.lastId = lastId;
+            this.position = position;
+            this.complete = complete;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+import uk.org.gencoreoperative.jira.rest.Jql;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+
+/**
+ * Exports the issues matching the configured JQL to a file, one JSON issue per line, in a way
+ * that can be continued if the export dies part way through.
+ * <p>
+ * Progress is recorded in a {@link Journal} next to the output, named after the output with
+ * {@code .journal} added. Once each page of issues has been written the output is forced to the
+ * disk and the point reached is added to the journal. To continue, the output is cut back to the
+ * length recorded for the last page, removing any issues written after it, and the export starts
+ * again from the next issue. Exports that page by offset skip the issues already written, while
+ * sharded exports only ask for issues with a greater id than the last one written.
+ * <p>
+ * Paging by offset assumes the issues before the offset have not changed since the export
+ * started. Where issues are being created or deleted during a long export, shards are safer.
+ */
+public class ResumableExport {
+    public static final String JOURNAL_SUFFIX = ".journal";
+    private static final Gson GSON = ModelAdapters.gson();
+
+    private final RESTClient client;
+    private final Config config;
+    private final Path output;
+    private final Path journal;
+
+    /**
+     * @param client The client used to query JIRA.
+     * @param config The configuration, which provides the JQL, fields, changelog and page size.
+     * @param output The file to write the issues to.
+     */
+    public ResumableExport(@NonNull RESTClient client, @NonNull Config config, @NonNull Path output) {
+        this.client = client;
+        this.config = config;
+        this.output = output;
+        this.journal = Paths.get(output.toString() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Run the export.
+     *
+     * @param resume True to continue from the journal of an earlier run, if there is one. Otherwise
+     * the export starts again, replacing the output.
+     * @return The number of issues written by this run.
+     */
+    public long run(boolean resume) throws IOException {
+        String jql = config.getJql();
+        Set<String> fields = config.getFields();
+        boolean sharded = config.getShards() > 0;
+        boolean changelog = config.isChangelog();
+        Optional<Journal> existing = resume ? Journal.open(journal, jql, fields, sharded, changelog) : Optional.empty();
+        try (Journal progress = existing.isPresent() ? existing.get()
+                : Journal.create(journal, jql, fields, sharded, changelog);
+             FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            Journal.Entry from = progress.getLast().orElse(new Journal.Entry(0, null, 0, false));
+            if (from.isComplete()) return 0;
+            channel.truncate(from.getPosition());
+            channel.position(from.getPosition());
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                    StandardCharsets.UTF_8));
+            long issues = from.getIssues();
+            Integer lastId = from.getLastId();
+            int page = 0;
+            try (Stream<Issue> stream = open(jql, fields, sharded, from)) {
+                Iterator<Issue> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    Issue issue = iterator.next();
+                    long start = System.nanoTime();
+                    writer.write(GSON.toJson(issue));
+                    writer.write(System.lineSeparator());
+                    client.getListener().issueWritten(System.nanoTime() - start);
+                    issues++;
+                    lastId = issue.getId();
+                    if (++page == config.getPageSize()) {
+                        checkpoint(writer, channel, progress, issues, lastId, false);
+                        page = 0;
+                    }
+                }
+            }
+            checkpoint(writer, channel, progress, issues, lastId, true);
+            return issues - from.getIssues();
+        }
+    }
+
+    /**
+     * @return The issues after the point reached.
+     */
+    private Stream<Issue> open(String jql, Set<String> fields, boolean sharded, Journal.Entry from) {
+        if (sharded) {
+            return client.stream(from.getLastId() == null ? jql : Jql.and(jql, "id > " + from.getLastId()), fields);
+        }
+        return client.stream(jql, fields, Math.toIntExact(from.getIssues()));
+    }
+
+    /**
+     * Force the output to the disk, then record its length in the journal.
+     */
+    private static void checkpoint(Writer writer, FileChannel channel, Journal progress,
+                                   long issues, Integer lastId, boolean complete) throws IOException {
+        writer.flush();
+        channel.force(false);
+        progress.append(new Journal.Entry(issues, lastId, channel.position(), complete));
+    }
+}
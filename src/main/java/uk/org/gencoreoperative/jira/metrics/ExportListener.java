@@ -0,0 +1,74 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.metrics;
+
+import java.net.URL;
+
+/**
+ * Receives timings from each stage of an export, to see where the time goes. Every method does
+ * nothing by default, so a listener only needs to implement the stages it is interested in.
+ * <p>
+ * Listeners are called on the threads doing the work, often several at once, so must be thread
+ * safe and quick.
+ */
+public interface ExportListener {
+    /**
+     * A listener that ignores everything.
+     */
+    ExportListener NONE = new ExportListener() {
+    };
+
+    /**
+     * Called when the response to a request has been received, before its body is read. The time
+     * covers connecting, the TLS handshake, the server's own time and any retries.
+     *
+     * @param url The URL requested.
+     * @param status The HTTP status of the response.
+     * @param nanos The time from making the request to receiving the response, in nanoseconds.
+     */
+    default void requestCompleted(URL url, int status, long nanos) {
+    }
+
+    /**
+     * Called when a page of search results has been read and closed. Issues are parsed as the
+     * body arrives, so the time spent waiting for the body and the time spent parsing it are
+     * reported separately. Neither includes the time the issues spent with the consumer.
+     *
+     * @param url The URL of the page.
+     * @param issues The number of issues read from the page.
+     * @param bytes The number of bytes read from the body, after any decompression.
+     * @param transferNanos The time spent waiting for the body, in nanoseconds.
+     * @param parseNanos The time spent parsing the body, in nanoseconds.
+     */
+    default void pageRead(URL url, int issues, long bytes, long transferNanos, long parseNanos) {
+    }
+
+    /**
+     * Called when an issue has been written to the output.
+     *
+     * @param nanos The time taken to serialise and write the issue, in nanoseconds.
+     */
+    default void issueWritten(long nanos) {
+    }
+}
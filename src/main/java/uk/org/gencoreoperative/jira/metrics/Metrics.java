@@ -0,0 +1,212 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.metrics;
+
+import static java.text.MessageFormat.format;
+
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import lombok.Getter;
+import uk.org.gencoreoperative.jira.rest.transport.TransportStats;
+
+/**
+ * An {@link ExportListener} that keeps histograms of the time spent in each stage of an export,
+ * and counts of the requests, bytes and issues, to tune the page size and concurrency with.
+ * <ul>
+ *     <li>Request: from making a request to receiving the response, per request.</li>
+ *     <li>Transfer: waiting for the body of a page, per page.</li>
+ *     <li>Parse: parsing the body of a page, per page.</li>
+ *     <li>Write: serialising and writing an issue to the output, per issue.</li>
+ * </ul>
+ * The metrics can be printed as a {@link #summary(TransportStats) summary} at the end of a run,
+ * or watched during the run over JMX once {@link #register() registered}.
+ */
+public class Metrics implements ExportListener, MetricsMXBean {
+    public static final String OBJECT_NAME = "uk.org.gencoreoperative.jira:type=Metrics";
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+    @Getter
+    private final Histogram requestTimes = new Histogram();
+    @Getter
+    private final Histogram transferTimes = new Histogram();
+    @Getter
+    private final Histogram parseTimes = new Histogram();
+    @Getter
+    private final Histogram writeTimes = new Histogram();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder issues = new LongAdder();
+    private final long started = System.nanoTime();
+
+    @Override
+    public void requestCompleted(URL url, int status, long nanos) {
+        requestTimes.record(nanos);
+        if (status != HttpURLConnection.HTTP_OK) failed.increment();
+    }
+
+    @Override
+    public void pageRead(URL url, int issues, long bytes, long transferNanos, long parseNanos) {
+        transferTimes.record(transferNanos);
+        parseTimes.record(parseNanos);
+        this.bytes.add(bytes);
+        this.issues.add(issues);
+    }
+
+    @Override
+    public void issueWritten(long nanos) {
+        writeTimes.record(nanos);
+    }
+
+    /**
+     * Register these metrics with the platform MBean server as {@value #OBJECT_NAME}, replacing
+     * any registered before.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics with JMX", e);
+        }
+    }
+
+    /**
+     * @param stats The counters of the transport used for the export.
+     * @return A description of the export so far, over several lines.
+     */
+    public String summary(TransportStats stats) {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return String.join(System.lineSeparator(),
+                format("Export took {0}s: {1} issues read, {2} written, {3} issues/s",
+                        decimal(seconds), getIssuesRead(), getIssuesWritten(), decimal(getIssuesPerSecond())),
+                format("Requests: {0} ({1} failed, {2} retried, {3} TLS handshakes, {4} reused connections) {5}",
+                        getRequests(), getFailedRequests(), stats.getRetries(), stats.getHandshakes(),
+                        stats.getReused() == TransportStats.UNKNOWN ? "unknown" : stats.getReused(),
+                        times(requestTimes)),
+                format("Pages:    {0} ({1} KB, {2} KB on the wire)",
+                        getPages(), getBytesRead() / 1024, stats.getWireBytes() / 1024),
+                format("Transfer: {0}", times(transferTimes)),
+                format("Parse:    {0}", times(parseTimes)),
+                format("Write:    {0}", times(writeTimes, NANOS_PER_MICRO, "us")));
+    }
+
+    private static String times(Histogram histogram) {
+        return times(histogram, NANOS_PER_MILLI, "ms");
+    }
+
+    private static String times(Histogram histogram, double nanosPerUnit, String unit) {
+        return format("p50 {0}{4} p90 {1}{4} p99 {2}{4} max {3}{4}",
+                decimal(histogram.getPercentile(50) / nanosPerUnit),
+                decimal(histogram.getPercentile(90) / nanosPerUnit),
+                decimal(histogram.getPercentile(99) / nanosPerUnit),
+                decimal(histogram.getMax() / nanosPerUnit), unit);
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    @Override
+    public long getRequests() {
+        return requestTimes.getCount();
+    }
+
+    @Override
+    public long getFailedRequests() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getPages() {
+        return transferTimes.getCount();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getIssuesRead() {
+        return issues.sum();
+    }
+
+    @Override
+    public long getIssuesWritten() {
+        return writeTimes.getCount();
+    }
+
+    @Override
+    public double getRequestMillisP50() {
+        return requestTimes.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getRequestMillisP99() {
+        return requestTimes.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getTransferMillisP50() {
+        return transferTimes.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getTransferMillisP99() {
+        return transferTimes.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getParseMillisP50() {
+        return parseTimes.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getParseMillisP99() {
+        return parseTimes.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getWriteMillisP99() {
+        return writeTimes.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getIssuesPerSecond() {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return seconds == 0 ? 0 : getIssuesRead() / seconds;
+    }
+}
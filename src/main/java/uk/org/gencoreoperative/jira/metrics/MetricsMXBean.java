@@ -0,0 +1,57 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.metrics;
+
+/**
+ * The JMX view of the {@link Metrics} of an export. Times are in milliseconds.
+ */
+public interface MetricsMXBean {
+    long getRequests();
+
+    long getFailedRequests();
+
+    long getPages();
+
+    long getBytesRead();
+
+    long getIssuesRead();
+
+    long getIssuesWritten();
+
+    double getRequestMillisP50();
+
+    double getRequestMillisP99();
+
+    double getTransferMillisP50();
+
+    double getTransferMillisP99();
+
+    double getParseMillisP50();
+
+    double getParseMillisP99();
+
+    double getWriteMillisP99();
+
+    double getIssuesPerSecond();
+}
@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * The history of an issue, returned when a search is expanded with {@code expand=changelog} or
+ * from {@code /rest/api/2/issue/{key}/changelog}.
+ * <pre>
+ * {"startAt":0,"maxResults":100,"total":143,"histories":[{...},{...}]}
+ * </pre>
+ * A search may only include the first of many histories. The rest are read from the changelog of
+ * the issue, which lists them as {@code values} rather than {@code histories}, and added with
+ * {@link #append(Changelog)}.
+ */
+@Getter
+@ToString
+public class Changelog {
+    int startAt;
+    int maxResults;
+    int total;
+    List<History> histories;
+
+    /**
+     * @return True if there are histories that were not included.
+     */
+    public boolean isTruncated() {
+        return getNextStartAt() < total;
+    }
+
+    /**
+     * @return The offset of the first history that was not included.
+     */
+    public int getNextStartAt() {
+        return startAt + (histories == null ? 0 : histories.size());
+    }
+
+    /**
+     * Add the histories from the next page of the changelog.
+     *
+     * @param page A page starting at {@link #getNextStartAt()}.
+     * @throws IllegalArgumentException If the page does not follow on from the histories already included.
+     */
+    public void append(@NonNull Changelog page) {
+        if (page.startAt != getNextStartAt()) {
+            throw new IllegalArgumentException(
+                    "Expected the changelog from " + getNextStartAt() + " not " + page.startAt);
+        }
+        if (histories == null) histories = new ArrayList<>();
+        if (page.histories != null) histories.addAll(page.histories);
+        maxResults = histories.size();
+        total = Math.max(total, page.total);
+    }
+}
@@ -25,13 +25,40 @@ package uk.org.gencoreoperative.jira.model;
 
 import java.net.URL;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Getter
 @ToString
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
 public class Component {
-    private URL self;
-    private Integer id;
-    private String name;
+    String self;
+    int id = ModelAdapters.NO_ID;
+    String name;
+
+    /**
+     * @return The id of the component, or null if JIRA did not send one.
+     */
+    public Integer getId() {
+        return id == ModelAdapters.NO_ID ? null : id;
+    }
+
+    /**
+     * @return The {@code self} link of the component, or null if JIRA did not send one.
+     * @throws IllegalStateException If the link is not a URL.
+     */
+    public URL getSelf() {
+        return ModelAdapters.url(self);
+    }
+
+    /**
+     * @return The {@code self} link of the component as JIRA sent it, or null if it did not send one.
+     */
+    public String getSelfLink() {
+        return self;
+    }
 }
@@ -0,0 +1,72 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.TypeAdapter;
+
+/**
+ * Holds a single instance of each distinct {@link Component}, so that the issues of an export
+ * share their components rather than each holding a copy.
+ * <p>
+ * JIRA repeats the whole component, including its {@code self} URL, in every issue that has it,
+ * so a large export would otherwise allocate the same few hundred components many thousands of
+ * times. Components are the same if they have the same id, name and {@code self} URL. The
+ * registry is given to {@link ModelAdapters}, which reads components through it.
+ * <p>
+ * The registry keeps every component it has seen until it is discarded.
+ */
+public class ComponentRegistry {
+    private final Map<List<Object>, Component> components = new ConcurrentHashMap<>();
+
+    /**
+     * @return The registered component with the given values, registering a new one if there is none.
+     */
+    public Component intern(int id, String name, String self) {
+        List<Object> identity = Arrays.asList(id, name, self);
+        Component component = components.get(identity);
+        if (component != null) return component;
+        Component created = new Component(self, id, name);
+        component = components.putIfAbsent(identity, created);
+        return component == null ? created : component;
+    }
+
+    /**
+     * @return The number of distinct components registered.
+     */
+    public int size() {
+        return components.size();
+    }
+
+    /**
+     * @return A Gson {@link TypeAdapter} that reads components through this registry.
+     */
+    public TypeAdapter<Component> adapter() {
+        return new ModelAdapters.ComponentAdapter(this);
+    }
+}
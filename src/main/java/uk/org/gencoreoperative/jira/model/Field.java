@@ -23,15 +23,51 @@
  */
 package uk.org.gencoreoperative.jira.model;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.ToString;
 
+/**
+ * The fields of an issue. The fields below are always decoded, any others that were asked for are
+ * decoded according to a {@link Projection} and can be looked up with {@link #get(String)}.
+ */
 @Getter
 @ToString
 public class Field {
+    /**
+     * The ids of the fields that are always decoded.
+     */
+    public static final Set<String> NAMES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("summary", "description", "components", "updated")));
+
     String summary;
     String description;
     Set<Component> components;
+    /**
+     * When the issue was last updated, in the JIRA format {@code 2024-01-15T10:22:33.000+0000}.
+     */
+    String updated;
+    /**
+     * The projection that the other fields were decoded with, or null if there were none.
+     */
+    transient Projection projection;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    transient Object[] values;
+
+    /**
+     * @param field The id or name of a field in the {@link #getProjection() projection}.
+     * @return The decoded value of the field, or null if the issue has no value for it or it was not decoded.
+     */
+    public Object get(@NonNull String field) {
+        if (projection == null || values == null) return null;
+        int slot = projection.slot(field);
+        return slot < 0 ? null : values[slot];
+    }
 }
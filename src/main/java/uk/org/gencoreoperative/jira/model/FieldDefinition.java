@@ -0,0 +1,57 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The definition of a JIRA field, as listed by {@code /rest/api/2/field}. Custom fields have
+ * ids of the form {@code customfield_10010}, and are usually asked for by their name.
+ * <pre>
+ * {"id":"customfield_10010","name":"Story Points","custom":true,
+ *  "schema":{"type":"number","custom":"com.atlassian.jira.plugin.system.customfieldtypes:float","customId":10010}}
+ * </pre>
+ */
+@Getter
+@ToString
+public class FieldDefinition {
+    private String id;
+    private String name;
+    private boolean custom;
+    private Schema schema;
+
+    /**
+     * The type of the field's value. Fields whose values are lists have the type {@code array},
+     * and the type of their elements in {@code items}. Custom fields also name their type of
+     * custom field in {@code custom}.
+     */
+    @Getter
+    @ToString
+    public static class Schema {
+        private String type;
+        private String items;
+        private String custom;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.NonNull;
+
+/**
+ * The fields a JIRA server knows about, used to resolve the fields asked for on the command line
+ * into a {@link Projection}. Fields can be named by id ({@code customfield_10010}) or by their name
+ * ({@code Story Points}), ignoring case.
+ */
+public class FieldSchema {
+    private final Map<String, FieldDefinition> ids = new LinkedHashMap<>();
+    private final Map<String, FieldDefinition> names = new HashMap<>();
+
+    /**
+     * @param definitions The definitions of every field, as returned by {@code /rest/api/2/field}.
+     */
+    public FieldSchema(@NonNull Collection<FieldDefinition> definitions) {
+        for (FieldDefinition definition : definitions) {
+            ids.put(definition.getId(), definition);
+            if (definition.getName() != null) {
+                names.putIfAbsent(definition.getName().toLowerCase(Locale.ROOT), definition);
+            }
+        }
+    }
+
+    /**
+     * @return The definitions of every field, in the order the server listed them.
+     */
+    public Collection<FieldDefinition> getFields() {
+        return Collections.unmodifiableCollection(ids.values());
+    }
+
+    /**
+     * @param field The id or name of a field.
+     * @return The definition of the field, if the server has one.
+     */
+    public Optional<FieldDefinition> find(@NonNull String field) {
+        FieldDefinition definition = ids.get(field);
+        if (definition == null) definition = names.get(field.toLowerCase(Locale.ROOT));
+        return Optional.ofNullable(definition);
+    }
+
+    /**
+     * Resolve the fields to decode for each issue. The fields that {@link Field} always decodes
+     * are left out of the projection.
+     *
+     * @param fields The ids or names of the fields, in the order they should be written.
+     * @return The projection of the fields.
+     * @throws IllegalArgumentException If the server does not have one of the fields.
+     */
+    public Projection project(@NonNull Collection<String> fields) {
+        List<FieldDefinition> projected = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+        for (String field : fields) {
+            if (Field.NAMES.contains(field)) continue;
+            Optional<FieldDefinition> definition = find(field);
+            if (!definition.isPresent()) {
+                unknown.add(field);
+            } else if (!Field.NAMES.contains(definition.get().getId()) && !projected.contains(definition.get())) {
+                projected.add(definition.get());
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown fields: " + unknown.stream().collect(joining(", ")));
+        }
+        return new Projection(projected);
+    }
+}
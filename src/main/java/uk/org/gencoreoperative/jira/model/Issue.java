@@ -53,12 +53,40 @@ import lombok.ToString;
  *                 ]
  *             }
  * </pre>
+ * The {@code self} link is kept as the String JIRA sent, and only parsed into a {@link URL} when
+ * {@link #getSelf()} is called.
  */
 @Getter
 @ToString
 public class Issue {
-    private Integer id;
-    private URL self;
-    private String key;
-    private Field fields;
+    int id = ModelAdapters.NO_ID;
+    String self;
+    String key;
+    Field fields;
+    /**
+     * The history of the issue, if the search was expanded with {@code expand=changelog}.
+     */
+    Changelog changelog;
+
+    /**
+     * @return The id of the issue, or null if JIRA did not send one.
+     */
+    public Integer getId() {
+        return id == ModelAdapters.NO_ID ? null : id;
+    }
+
+    /**
+     * @return The {@code self} link of the issue, or null if JIRA did not send one.
+     * @throws IllegalStateException If the link is not a URL.
+     */
+    public URL getSelf() {
+        return ModelAdapters.url(self);
+    }
+
+    /**
+     * @return The {@code self} link of the issue as JIRA sent it, or null if it did not send one.
+     */
+    public String getSelfLink() {
+        return self;
+    }
 }
@@ -0,0 +1,565 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Hand-written Gson {@link TypeAdapter}s for the model, used in place of Gson's reflective adapters.
+ * <p>
+ * Each adapter reads the JSON straight into the fields it knows, parsing ids as {@code int}s, and
+ * skips every other value without building a tree for it. The JIRA search response carries far more
+ * than the model needs, so most of each issue is skipped. The adapters write the same JSON as the
+ * reflective adapters would: the fields in the order they are declared, leaving out nulls and
+ * missing ids.
+ * <p>
+ * Given a {@link Projection}, the adapters also decode the other fields it names into the
+ * {@link Field} of each issue, and write them after the fields that are always decoded.
+ */
+public class ModelAdapters implements TypeAdapterFactory {
+    /**
+     * The id held by an issue or component that JIRA sent without one. JIRA ids are never negative.
+     */
+    static final int NO_ID = Integer.MIN_VALUE;
+
+    private final Projection projection;
+    private final TypeAdapter<Component> component;
+    private final TypeAdapter<Field> field = new FieldAdapter();
+    private final TypeAdapter<Issue> issue = new IssueAdapter();
+    private final TypeAdapter<SearchResults> results = new SearchResultsAdapter();
+    private final TypeAdapter<Changelog> changelog = new ChangelogAdapter();
+
+    /**
+     * @param registry If not null, the registry that components are interned through.
+     */
+    public ModelAdapters(ComponentRegistry registry) {
+        this(registry, null);
+    }
+
+    /**
+     * @param registry If not null, the registry that components are interned through.
+     * @param projection If not null, the other fields to decode for each issue.
+     */
+    public ModelAdapters(ComponentRegistry registry, Projection projection) {
+        this.component = new ComponentAdapter(registry);
+        this.projection = projection;
+    }
+
+    /**
+     * @return A {@link Gson} that uses these adapters, without interning components.
+     */
+    public static Gson gson() {
+        return gson(null);
+    }
+
+    /**
+     * @param registry If not null, the registry that components are interned through.
+     * @return A {@link Gson} that uses these adapters.
+     */
+    public static Gson gson(ComponentRegistry registry) {
+        return gson(registry, null);
+    }
+
+    /**
+     * @param registry If not null, the registry that components are interned through.
+     * @param projection If not null, the other fields to decode for each issue.
+     * @return A {@link Gson} that uses these adapters.
+     */
+    public static Gson gson(ComponentRegistry registry, Projection projection) {
+        return new GsonBuilder().registerTypeAdapterFactory(new ModelAdapters(registry, projection)).create();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == Issue.class) return (TypeAdapter<T>) issue;
+        if (raw == Field.class) return (TypeAdapter<T>) field;
+        if (raw == Component.class) return (TypeAdapter<T>) component;
+        if (raw == SearchResults.class) return (TypeAdapter<T>) results;
+        if (raw == Changelog.class) return (TypeAdapter<T>) changelog;
+        return null;
+    }
+
+    /**
+     * Reads the name of the next field, consuming its value if it is null.
+     *
+     * @return The name, or null if the value was null and has been consumed.
+     */
+    private static String nextField(JsonReader in) throws IOException {
+        String name = in.nextName();
+        if (in.peek() != JsonToken.NULL) return name;
+        in.nextNull();
+        return null;
+    }
+
+    private static boolean beginObject(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        in.beginObject();
+        return true;
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) out.name(name).value(value);
+    }
+
+    private static void writeId(JsonWriter out, int id) throws IOException {
+        if (id != NO_ID) out.name("id").value(id);
+    }
+
+    /**
+     * @return The link parsed as a URL, or null if there is no link.
+     * @throws IllegalStateException If the link is not a URL.
+     */
+    static URL url(String link) {
+        if (link == null) return null;
+        try {
+            return new URL(link);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Not a URL: " + link, e);
+        }
+    }
+
+    /**
+     * Reads and writes {@link Component}s, interning them through a {@link ComponentRegistry} if there is one.
+     */
+    static class ComponentAdapter extends TypeAdapter<Component> {
+        private final ComponentRegistry registry;
+
+        ComponentAdapter(ComponentRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void write(JsonWriter out, Component component) throws IOException {
+            if (component == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeString(out, "self", component.self);
+            writeId(out, component.id);
+            writeString(out, "name", component.name);
+            out.endObject();
+        }
+
+        @Override
+        public Component read(JsonReader in) throws IOException {
+            if (!beginObject(in)) return null;
+            String self = null;
+            int id = NO_ID;
+            String name = null;
+            while (in.hasNext()) {
+                String field = nextField(in);
+                if (field == null) continue;
+                switch (field) {
+                    case "self":
+                        self = in.nextString();
+                        break;
+                    case "id":
+                        id = in.nextInt();
+                        break;
+                    case "name":
+                        name = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return registry == null ? new Component(self, id, name) : registry.intern(id, name, self);
+        }
+    }
+
+    private class FieldAdapter extends TypeAdapter<Field> {
+        @Override
+        public void write(JsonWriter out, Field fields) throws IOException {
+            if (fields == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeString(out, "summary", fields.summary);
+            writeString(out, "description", fields.description);
+            if (fields.components != null) {
+                out.name("components").beginArray();
+                for (Component each : fields.components) {
+                    component.write(out, each);
+                }
+                out.endArray();
+            }
+            writeString(out, "updated", fields.updated);
+            if (fields.values != null) fields.projection.write(out, fields.values);
+            out.endObject();
+        }
+
+        @Override
+        public Field read(JsonReader in) throws IOException {
+            if (!beginObject(in)) return null;
+            Field fields = new Field();
+            if (projection != null) {
+                fields.projection = projection;
+                fields.values = new Object[projection.size()];
+            }
+            while (in.hasNext()) {
+                String name = nextField(in);
+                if (name == null) continue;
+                switch (name) {
+                    case "summary":
+                        fields.summary = in.nextString();
+                        break;
+                    case "description":
+                        fields.description = in.nextString();
+                        break;
+                    case "components":
+                        fields.components = new LinkedHashSet<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            fields.components.add(component.read(in));
+                        }
+                        in.endArray();
+                        break;
+                    case "updated":
+                        fields.updated = in.nextString();
+                        break;
+                    default:
+                        int slot = projection == null ? -1 : projection.slotOfId(name);
+                        if (slot < 0) {
+                            in.skipValue();
+                        } else {
+                            fields.values[slot] = projection.read(slot, in);
+                        }
+                }
+            }
+            in.endObject();
+            return fields;
+        }
+    }
+
+    private class IssueAdapter extends TypeAdapter<Issue> {
+        @Override
+        public void write(JsonWriter out, Issue issue) throws IOException {
+            if (issue == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeId(out, issue.id);
+            writeString(out, "self", issue.self);
+            writeString(out, "key", issue.key);
+            if (issue.fields != null) {
+                out.name("fields");
+                field.write(out, issue.fields);
+            }
+            if (issue.changelog != null) {
+                out.name("changelog");
+                changelog.write(out, issue.changelog);
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Issue read(JsonReader in) throws IOException {
+            if (!beginObject(in)) return null;
+            Issue issue = new Issue();
+            while (in.hasNext()) {
+                String name = nextField(in);
+                if (name == null) continue;
+                switch (name) {
+                    case "id":
+                        issue.id = in.nextInt();
+                        break;
+                    case "self":
+                        issue.self = in.nextString();
+                        break;
+                    case "key":
+                        issue.key = in.nextString();
+                        break;
+                    case "fields":
+                        issue.fields = field.read(in);
+                        break;
+                    case "changelog":
+                        issue.changelog = changelog.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return issue;
+        }
+    }
+
+    /**
+     * Reads the changelog of a search, or a page of the changelog of an issue, which lists the histories
+     * as {@code values}. Each history is read as it streams past, skipping everything but its changes.
+     */
+    private static class ChangelogAdapter extends TypeAdapter<Changelog> {
+        @Override
+        public void write(JsonWriter out, Changelog changelog) throws IOException {
+            if (changelog == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("startAt").value(changelog.startAt);
+            out.name("maxResults").value(changelog.maxResults);
+            out.name("total").value(changelog.total);
+            if (changelog.histories != null) {
+                out.name("histories").beginArray();
+                for (History history : changelog.histories) {
+                    writeHistory(out, history);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Changelog read(JsonReader in) throws IOException {
+            if (!beginObject(in)) return null;
+            Changelog changelog = new Changelog();
+            while (in.hasNext()) {
+                String name = nextField(in);
+                if (name == null) continue;
+                switch (name) {
+                    case "startAt":
+                        changelog.startAt = in.nextInt();
+                        break;
+                    case "maxResults":
+                        changelog.maxResults = in.nextInt();
+                        break;
+                    case "total":
+                        changelog.total = in.nextInt();
+                        break;
+                    case "histories":
+                    case "values":
+                        changelog.histories = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            changelog.histories.add(readHistory(in));
+                        }
+                        in.endArray();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return changelog;
+        }
+
+        private static void writeHistory(JsonWriter out, History history) throws IOException {
+            if (history == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeString(out, "id", history.id);
+            writeString(out, "author", history.author);
+            writeString(out, "created", history.created);
+            if (history.items != null) {
+                out.name("items").beginArray();
+                for (ChangeItem item : history.items) {
+                    writeItem(out, item);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        private static History readHistory(JsonReader in) throws IOException {
+            if (!beginObject(in)) return null;
+            History history = new History();
+            while (in.hasNext()) {
+                String name = nextField(in);
+                if (name == null) continue;
+                switch (name) {
+                    case "id":
+                        history.id = in.nextString();
+                        break;
+                    case "author":
+                        history.author = readAuthor(in);
+                        break;
+                    case "created":
+                        history.created = in.nextString();
+                        break;
+                    case "items":
+                        history.items = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            history.items.add(readItem(in));
+                        }
+                        in.endArray();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return history;
+        }
+
+        /**
+         * @return The name of the user, or their account id if the server has no user names.
+         */
+        private static String readAuthor(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) return in.nextString();
+            in.beginObject();
+            String user = null;
+            String account = null;
+            while (in.hasNext()) {
+                String name = nextField(in);
+                if ("name".equals(name)) {
+                    user = in.nextString();
+                } else if ("accountId".equals(name)) {
+                    account = in.nextString();
+                } else if (name != null) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return user != null ? user : account;
+        }
+
+        private static void writeItem(JsonWriter out, ChangeItem item) throws IOException {
+            if (item == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeString(out, "field", item.field);
+            writeString(out, "fieldtype", item.fieldtype);
+            writeString(out, "from", item.from);
+            writeString(out, "fromString", item.fromString);
+            writeString(out, "to", item.to);
+            writeString(out, "toString", item.toString);
+            out.endObject();
+        }
+
+        private static ChangeItem readItem(JsonReader in) throws IOException {
+            if (!beginObject(in)) return null;
+            ChangeItem item = new ChangeItem();
+            while (in.hasNext()) {
+                String name = nextField(in);
+                if (name == null) continue;
+                switch (name) {
+                    case "field":
+                        item.field = in.nextString();
+                        break;
+                    case "fieldtype":
+                        item.fieldtype = in.nextString();
+                        break;
+                    case "from":
+                        item.from = in.nextString();
+                        break;
+                    case "fromString":
+                        item.fromString = in.nextString();
+                        break;
+                    case "to":
+                        item.to = in.nextString();
+                        break;
+                    case "toString":
+                        item.toString = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return item;
+        }
+    }
+
+    private class SearchResultsAdapter extends TypeAdapter<SearchResults> {
+        @Override
+        public void write(JsonWriter out, SearchResults results) throws IOException {
+            if (results == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("startAt").value(results.startAt);
+            out.name("maxResults").value(results.maxResults);
+            out.name("total").value(results.total);
+            if (results.issues != null) {
+                out.name("issues").beginArray();
+                for (Issue each : results.issues) {
+                    issue.write(out, each);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public SearchResults read(JsonReader in) throws IOException {
+            if (!beginObject(in)) return null;
+            SearchResults results = new SearchResults();
+            while (in.hasNext()) {
+                String name = nextField(in);
+                if (name == null) continue;
+                switch (name) {
+                    case "startAt":
+                        results.startAt = in.nextInt();
+                        break;
+                    case "maxResults":
+                        results.maxResults = in.nextInt();
+                        break;
+                    case "total":
+                        results.total = in.nextInt();
+                        break;
+                    case "issues":
+                        results.issues = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            results.issues.add(issue.read(in));
+                        }
+                        in.endArray();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return results;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The fields to decode from each issue, beyond those {@link Field} always decodes. The values of
+ * the fields are held by the {@link Field} of each issue in an array, with a slot for each field in
+ * the projection. Every other field is skipped while it is parsed.
+ * <p>
+ * Each value is decoded according to the field's schema into the most compact form that keeps
+ * what it means:
+ * <ul>
+ *     <li>Text and dates are kept as a {@link String}, and numbers as a {@link Double}.</li>
+ *     <li>Values that JIRA writes as an object, such as users, priorities and select options, are
+ *     kept as the String that names them: their {@code value}, {@code name} or {@code key}. Users on
+ *     JIRA Cloud have none of these, so are kept as their {@code accountId}, or failing that their
+ *     {@code displayName}, as the authors of the changelog are. A String is read as the name it
+ *     was written as, so that issues written with a projection can be read back with it.</li>
+ *     <li>Lists are kept as a {@link List} of their elements, decoded in the same way.</li>
+ *     <li>Anything else, or a value that does not match its schema, is kept as a {@link JsonElement}.</li>
+ * </ul>
+ */
+public class Projection {
+    private static final TypeAdapter<JsonElement> JSON = new Gson().getAdapter(JsonElement.class);
+
+    private enum Kind { TEXT, NUMBER, NAMED, LIST, OTHER }
+
+    @Getter
+    private final List<FieldDefinition> fields;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Kind[] kinds;
+    private final Kind[] items;
+
+    /**
+     * @param fields The fields in the projection, in the order they are written.
+     */
+    public Projection(@NonNull List<FieldDefinition> fields) {
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        kinds = new Kind[fields.size()];
+        items = new Kind[fields.size()];
+        for (int slot = 0; slot < fields.size(); slot++) {
+            FieldDefinition field = fields.get(slot);
+            slots.put(field.getId(), slot);
+            FieldDefinition.Schema schema = field.getSchema();
+            kinds[slot] = kind(schema == null ? null : schema.getType());
+            items[slot] = kind(schema == null ? null : schema.getItems());
+        }
+    }
+
+    /**
+     * @return The number of fields in the projection.
+     */
+    public int size() {
+        return fields.size();
+    }
+
+    /**
+     * @param field The id or name of a field.
+     * @return The slot of the field, or -1 if it is not in the projection.
+     */
+    public int slot(@NonNull String field) {
+        int slot = slotOfId(field);
+        if (slot >= 0) return slot;
+        for (int i = 0; i < fields.size(); i++) {
+            if (field.equalsIgnoreCase(fields.get(i).getName())) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The slot of the field with the given id, or -1 if it is not in the projection.
+     */
+    int slotOfId(String id) {
+        Integer slot = slots.get(id);
+        return slot == null ? -1 : slot;
+    }
+
+    private static Kind kind(String type) {
+        if (type == null) return Kind.OTHER;
+        switch (type) {
+            case "string":
+            case "date":
+            case "datetime":
+                return Kind.TEXT;
+            case "number":
+                return Kind.NUMBER;
+            case "array":
+                return Kind.LIST;
+            case "option":
+            case "user":
+            case "group":
+            case "priority":
+            case "status":
+            case "issuetype":
+            case "resolution":
+            case "project":
+            case "version":
+            case "component":
+            case "securitylevel":
+                return Kind.NAMED;
+            default:
+                return Kind.OTHER;
+        }
+    }
+
+    /**
+     * Decode the value of the field in the given slot.
+     */
+    Object read(int slot, JsonReader in) throws IOException {
+        return read(in, kinds[slot], items[slot]);
+    }
+
+    private static Object read(JsonReader in, Kind kind, Kind item) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (kind == Kind.TEXT && token == JsonToken.STRING) return in.nextString();
+        if (kind == Kind.NUMBER && token == JsonToken.NUMBER) return in.nextDouble();
+        if (kind == Kind.NAMED && token == JsonToken.BEGIN_OBJECT) return name(in);
+        // The name it was written as
+        if (kind == Kind.NAMED && token == JsonToken.STRING) return in.nextString();
+        if (kind == Kind.LIST && token == JsonToken.BEGIN_ARRAY) {
+            List<Object> values = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                values.add(read(in, item, Kind.OTHER));
+            }
+            in.endArray();
+            return values;
+        }
+        return JSON.read(in);
+    }
+
+    /**
+     * @return The {@code value}, {@code name}, {@code key}, {@code accountId} or {@code displayName} of an
+     * object, in that order of preference.
+     */
+    private static String name(JsonReader in) throws IOException {
+        String value = null;
+        String name = null;
+        String key = null;
+        String account = null;
+        String display = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() != JsonToken.STRING) {
+                in.skipValue();
+                continue;
+            }
+            switch (field) {
+                case "value":
+                    value = in.nextString();
+                    break;
+                case "name":
+                    name = in.nextString();
+                    break;
+                case "key":
+                    key = in.nextString();
+                    break;
+                case "accountId":
+                    account = in.nextString();
+                    break;
+                case "displayName":
+                    display = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        if (value != null) return value;
+        if (name != null) return name;
+        if (key != null) return key;
+        return account != null ? account : display;
+    }
+
+    /**
+     * Write the values of the projection as members of the current object, named by field id,
+     * leaving out nulls.
+     */
+    void write(JsonWriter out, Object[] values) throws IOException {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] == null) continue;
+            out.name(fields.get(slot).getId());
+            write(out, values[slot]);
+        }
+    }
+
+    private static void write(JsonWriter out, Object value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (value instanceof String) {
+            out.value((String) value);
+        } else if (value instanceof Number) {
+            out.value((Number) value);
+        } else if (value instanceof List) {
+            out.beginArray();
+            for (Object element : (List<?>) value) {
+                write(out, element);
+            }
+            out.endArray();
+        } else {
+            JSON.write(out, (JsonElement) value);
+        }
+    }
+}
@@ -37,8 +37,8 @@ import lombok.ToString;
 @Getter
 @ToString
 public class SearchResults {
-    private int startAt;
-    private int maxResults;
-    private int total;
-    private List<Issue> issues;
+    int startAt;
+    int maxResults;
+    int total;
+    List<Issue> issues;
 }
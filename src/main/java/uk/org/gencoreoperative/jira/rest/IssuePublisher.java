@@ -0,0 +1,297 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.model.Issue;
+
+/**
+ * Publishes the results of a search to a Reactive Streams {@link Subscriber}, fetching pages only
+ * as the subscriber asks for issues.
+ * <p>
+ * Each subscriber runs the search again from the start. Pages are planned the same way as
+ * {@link PagedIssues}: the first page decides the step between pages and how many there are, and
+ * in adaptive mode pages are requested until a short one comes back. A page is only requested
+ * while the issues already fetched or being fetched do not cover the outstanding demand, with
+ * up to the concurrency of pages in flight, and the issues are delivered in order.
+ * <p>
+ * Pages are fetched and parsed on the given {@link Executor}, and issues are delivered on
+ * whichever thread completed the page or asked for more. No thread waits on behalf of a
+ * subscriber between pages, so many searches can share a small executor. Each page is read into
+ * memory before its issues are delivered, so a subscription holds at most the concurrency of
+ * pages.
+ * <p>
+ * Cancelling the subscription closes the responses of the pages in flight and requests no more.
+ */
+class IssuePublisher implements Publisher<Issue> {
+    private final IntFunction<IssueReader> query;
+    private final int startAt;
+    private final int pageSize;
+    private final int concurrency;
+    private final boolean adaptive;
+    private final Executor executor;
+
+    /**
+     * @param query Performs the query for a page starting at the given offset.
+     * @param startAt The offset of the first issue to publish.
+     * @param pageSize The number of issues to request per page.
+     * @param concurrency The maximum number of pages to request in parallel.
+     * @param adaptive If true, request pages until a short page is returned instead of relying on the total.
+     * @param executor Performs the requests and parses the pages.
+     */
+    IssuePublisher(@NonNull IntFunction<IssueReader> query, int startAt, int pageSize, int concurrency,
+                   boolean adaptive, @NonNull Executor executor) {
+        this.query = query;
+        this.startAt = startAt;
+        this.pageSize = pageSize;
+        this.concurrency = Math.max(1, concurrency);
+        this.adaptive = adaptive;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Issue> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        PagedSubscription subscription = new PagedSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * A page of issues, with the paging fields it was returned with.
+     */
+    private static class Page {
+        private final List<Issue> issues;
+        private final int maxResults;
+        private final int total;
+
+        Page(List<Issue> issues, int maxResults, int total) {
+            this.issues = issues;
+            this.maxResults = maxResults;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Signals to the subscriber are only sent from {@link #drain()}, which one thread runs at a
+     * time. A call to drain while another thread is draining makes that thread go round again.
+     */
+    private class PagedSubscription implements Subscription {
+        private final Subscriber<? super Issue> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Set<IssueReader> open = ConcurrentHashMap.newKeySet();
+        private volatile boolean cancelled;
+        private volatile Throwable invalid;
+
+        // Only used while draining
+        private final Queue<CompletableFuture<Page>> pages = new ArrayDeque<>();
+        private Iterator<Issue> current = Collections.emptyIterator();
+        private int remaining;
+        private int step;
+        private int total = IssueReader.UNKNOWN;
+        private int nextOffset = startAt;
+        private boolean finished;
+        private boolean terminated;
+
+        PagedSubscription(Subscriber<? super Issue> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalid = new IllegalArgumentException("Demand must be positive: " + n);
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                if (!terminated) step();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void step() {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (invalid != null) {
+                fail(invalid);
+                return;
+            }
+            long demand = requested.get();
+            long emitted = 0;
+            while (emitted < demand) {
+                if (current.hasNext()) {
+                    remaining--;
+                    subscriber.onNext(current.next());
+                    emitted++;
+                    if (cancelled) {
+                        terminate();
+                        return;
+                    }
+                    continue;
+                }
+                CompletableFuture<Page> head = pages.peek();
+                if (head == null || !head.isDone()) break;
+                pages.poll();
+                Page page;
+                try {
+                    page = head.join();
+                } catch (CompletionException e) {
+                    fail(e.getCause());
+                    return;
+                }
+                plan(page);
+                current = page.issues.iterator();
+                remaining = page.issues.size();
+            }
+            if (demand != Long.MAX_VALUE && emitted > 0) demand = requested.addAndGet(-emitted);
+            if (!current.hasNext() && pages.isEmpty() && finished) {
+                terminated = true;
+                subscriber.onComplete();
+                return;
+            }
+            // Request pages until the demand is covered by the issues fetched or on their way
+            while (!finished && pages.size() < concurrency && (total != IssueReader.UNKNOWN || nextOffset == startAt)
+                    && demand > remaining + (long) pages.size() * (step > 0 ? step : pageSize)) {
+                if (!fetch()) return;
+            }
+        }
+
+        /**
+         * Use the paging fields of the first page to plan the rest, and stop at a short page in adaptive mode.
+         */
+        private void plan(Page page) {
+            if (total == IssueReader.UNKNOWN) {
+                step = page.maxResults > 0 ? page.maxResults : pageSize;
+                total = adaptive || page.total == IssueReader.UNKNOWN ? Integer.MAX_VALUE : page.total;
+                nextOffset = startAt + step;
+                finished = nextOffset >= total;
+            }
+            if (page.issues.size() < step && (adaptive || page.issues.isEmpty())) {
+                finished = true;
+                cancelPages();
+            }
+        }
+
+        /**
+         * @return False if the executor would not take the request, in which case the subscriber has been told.
+         */
+        private boolean fetch() {
+            int offset = nextOffset;
+            if (total == IssueReader.UNKNOWN) {
+                // Claim the first page until it tells us the step
+                nextOffset = -1;
+            } else {
+                nextOffset += step;
+                finished = nextOffset >= total;
+            }
+            CompletableFuture<Page> page;
+            try {
+                page = CompletableFuture.supplyAsync(() -> read(offset), executor);
+            } catch (RejectedExecutionException e) {
+                fail(e);
+                return false;
+            }
+            pages.add(page);
+            page.whenComplete((result, error) -> drain());
+            return true;
+        }
+
+        /**
+         * Read a whole page, so that the connection is released before its issues are delivered.
+         */
+        private Page read(int offset) {
+            if (cancelled) return new Page(Collections.emptyList(), 0, 0);
+            IssueReader reader = query.apply(offset);
+            open.add(reader);
+            try (IssueReader page = reader) {
+                List<Issue> issues = new ArrayList<>();
+                while (!cancelled && page.hasNext()) issues.add(page.next());
+                return new Page(issues, page.getMaxResults(), page.getTotal());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                open.remove(reader);
+            }
+        }
+
+        private void fail(Throwable error) {
+            terminate();
+            subscriber.onError(error);
+        }
+
+        private void terminate() {
+            terminated = true;
+            current = Collections.emptyIterator();
+            cancelPages();
+        }
+
+        private void cancelPages() {
+            for (CompletableFuture<Page> page : pages) page.cancel(false);
+            pages.clear();
+            for (IssueReader reader : open) {
+                try {
+                    reader.close();
+                } catch (IOException | RuntimeException e) {
+                    // The page is being abandoned, so there is nothing to do with the failure
+                }
+            }
+        }
+    }
+}
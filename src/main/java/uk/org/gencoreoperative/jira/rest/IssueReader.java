@@ -0,0 +1,177 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import lombok.Getter;
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.SearchResults;
+
+/**
+ * Reads a page of {@link SearchResults} from JSON one {@link Issue} at a time.
+ * <p>
+ * Rather than building the whole page in memory, each issue is parsed from the
+ * underlying {@link Reader} as it is requested, so only the current issue needs to
+ * be held on the heap. The paging fields ({@code startAt}, {@code maxResults} and
+ * {@code total}) are available as soon as they have been read. JIRA writes them
+ * before the {@code issues} array, so in practice they are available from construction.
+ * <pre>
+ * {"startAt":0,"maxResults":100,"total":19611,"issues":[{...},{...}]}
+ * </pre>
+ */
+public class IssueReader implements Iterator<Issue>, Closeable {
+    public static final int UNKNOWN = -1;
+
+    private final TypeAdapter<Issue> adapter;
+    private final JsonReader reader;
+    private boolean inIssues;
+    private int read;
+    private long nanos;
+
+    @Getter
+    private int startAt = UNKNOWN;
+    @Getter
+    private int maxResults = UNKNOWN;
+    @Getter
+    private int total = UNKNOWN;
+
+    /**
+     * @param gson The {@link Gson} instance used to parse each {@link Issue}.
+     * @param reader The JSON of a search response. It will be closed when this reader is closed.
+     */
+    public IssueReader(@NonNull Gson gson, @NonNull Reader reader) {
+        this.adapter = gson.getAdapter(Issue.class);
+        this.reader = gson.newJsonReader(reader);
+        long start = System.nanoTime();
+        try {
+            this.reader.beginObject();
+            readFields();
+            nanos += System.nanoTime() - start;
+        } catch (IOException | RuntimeException e) {
+            try {
+                this.reader.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e instanceof RuntimeException
+                    ? (RuntimeException) e
+                    : new RuntimeException("Failed to read search results", e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!inIssues) return false;
+        long start = System.nanoTime();
+        try {
+            if (reader.hasNext()) return true;
+            reader.endArray();
+            inIssues = false;
+            readFields();
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read search results", e);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public Issue next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        long start = System.nanoTime();
+        try {
+            Issue issue = adapter.read(reader);
+            read++;
+            return issue;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read search results", e);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * @return The number of issues read so far.
+     */
+    public int getIssuesRead() {
+        return read;
+    }
+
+    /**
+     * @return The time spent reading the response so far, in nanoseconds, including any time spent
+     * waiting for it to arrive.
+     */
+    public long getReadTime() {
+        return nanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Read the fields of the search response until the start of the {@code issues} array
+     * or the end of the response, whichever comes first.
+     */
+    private void readFields() throws IOException {
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "startAt":
+                    startAt = reader.nextInt();
+                    break;
+                case "maxResults":
+                    maxResults = reader.nextInt();
+                    break;
+                case "total":
+                    total = reader.nextInt();
+                    break;
+                case "issues":
+                    reader.beginArray();
+                    inIssues = true;
+                    return;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
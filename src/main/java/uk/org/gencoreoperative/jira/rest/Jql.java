@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.util.Locale;
+
+import lombok.NonNull;
+
+/**
+ * Helpers for adding clauses to a configured JQL statement.
+ * <p>
+ * JQL only allows an {@code ORDER BY} at the end of a statement, so to add a condition the
+ * statement is split into its condition and its ordering, the condition is combined with the
+ * new clause, and the ordering is put back on the end.
+ */
+public class Jql {
+    private Jql() {
+    }
+
+    /**
+     * @param jql A JQL statement, which may have an {@code ORDER BY}.
+     * @param clause A JQL condition.
+     * @return A JQL statement that matches the issues matched by both, in the original order.
+     */
+    public static String and(@NonNull String jql, @NonNull String clause) {
+        return where(jql, clause) + ordering(jql);
+    }
+
+    /**
+     * @param jql A JQL statement, which may have an {@code ORDER BY}.
+     * @param clause A JQL condition.
+     * @param order The ordering to use instead of the original ordering, for example {@code id ASC}.
+     * @return A JQL statement that matches the issues matched by both, in the given order.
+     */
+    public static String and(@NonNull String jql, @NonNull String clause, @NonNull String order) {
+        return where(jql, clause) + " ORDER BY " + order;
+    }
+
+    /**
+     * @param jql A JQL statement, which may have an {@code ORDER BY}.
+     * @param order The ordering to use instead of the original ordering, for example {@code id ASC}.
+     * @return A JQL statement that matches the same issues in the given order.
+     */
+    public static String orderBy(@NonNull String jql, @NonNull String order) {
+        String condition = condition(jql);
+        return (condition.isEmpty() ? "" : condition + " ") + "ORDER BY " + order;
+    }
+
+    /**
+     * @param jql A JQL statement.
+     * @return The condition of the statement without any {@code ORDER BY}, which may be empty.
+     */
+    public static String condition(@NonNull String jql) {
+        int index = orderByIndex(jql);
+        return (index == -1 ? jql : jql.substring(0, index)).trim();
+    }
+
+    private static String where(String jql, String clause) {
+        String condition = condition(jql);
+        return condition.isEmpty() ? clause : "(" + condition + ") AND " + clause;
+    }
+
+    private static String ordering(String jql) {
+        int index = orderByIndex(jql);
+        return index == -1 ? "" : " " + jql.substring(index).trim();
+    }
+
+    /**
+     * @return The index of the {@code ORDER BY} keywords that are not inside a quoted string, or -1.
+     */
+    private static int orderByIndex(String jql) {
+        String lower = jql.toLowerCase(Locale.ROOT);
+        char quote = 0;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (lower.startsWith("order", i)
+                    && (i == 0 || !Character.isLetterOrDigit(lower.charAt(i - 1)))) {
+                int by = i + "order".length();
+                int start = by;
+                while (by < lower.length() && Character.isWhitespace(lower.charAt(by))) by++;
+                if (by > start && lower.startsWith("by", by)
+                        && (by + 2 == lower.length() || !Character.isLetterOrDigit(lower.charAt(by + 2)))) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+
+/**
+ * An {@link Iterator} that evaluates a sequence of tasks in parallel, but returns
+ * their results in the order the tasks were provided.
+ * <p>
+ * At most {@code concurrency} tasks are in flight at any one time. A new task is only
+ * submitted once the result at the head of the queue has been consumed, so a slow
+ * consumer will not cause results to build up in memory.
+ *
+ * @param <T> The type of result produced by each task.
+ */
+public class OrderedParallelIterator<T> implements Iterator<T>, AutoCloseable {
+    private final Iterator<? extends Supplier<T>> tasks;
+    private final Deque<Future<T>> inFlight = new ArrayDeque<>();
+    private final ExecutorService executor;
+
+    /**
+     * @param tasks The tasks to evaluate, in the order their results should be returned.
+     * @param concurrency The maximum number of tasks to evaluate at the same time. Must be positive.
+     */
+    public OrderedParallelIterator(@NonNull Iterator<? extends Supplier<T>> tasks, int concurrency) {
+        this(tasks, concurrency, false);
+    }
+
+    /**
+     * @param tasks The tasks to evaluate, in the order their results should be returned.
+     * @param concurrency The maximum number of tasks to evaluate at the same time. Must be positive.
+     * @param virtual True to evaluate each task on its own virtual thread, if the JVM has them.
+     */
+    public OrderedParallelIterator(@NonNull Iterator<? extends Supplier<T>> tasks, int concurrency, boolean virtual) {
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        this.tasks = tasks;
+        this.executor = Threads.newExecutor("jira-fetch", concurrency, virtual);
+        for (int i = 0; i < concurrency && tasks.hasNext(); i++) {
+            submitNext();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !inFlight.isEmpty();
+    }
+
+    /**
+     * @return The result of the next task in order, blocking until it is available.
+     * @throws RuntimeException If the task failed. The remaining tasks are cancelled.
+     */
+    @Override
+    public T next() {
+        Future<T> head = inFlight.poll();
+        if (head == null) throw new NoSuchElementException();
+        T result;
+        try {
+            result = head.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted waiting for result", e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+        if (tasks.hasNext()) {
+            submitNext();
+        } else if (inFlight.isEmpty()) {
+            executor.shutdown();
+        }
+        return result;
+    }
+
+    /**
+     * Cancel any tasks that are still in flight and release the worker threads.
+     */
+    @Override
+    public void close() {
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+        executor.shutdownNow();
+    }
+
+    private void submitNext() {
+        Supplier<T> task = tasks.next();
+        inFlight.add(executor.submit(task::get));
+    }
+}
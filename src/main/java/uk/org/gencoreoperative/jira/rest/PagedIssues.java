@@ -0,0 +1,202 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.model.Issue;
+
+/**
+ * Pages through the results of a search, presenting them as a single sequence of issues.
+ * <p>
+ * The first page is requested immediately and used to plan the rest of the export: the
+ * {@code maxResults} it reports is used as the step between pages (JIRA may cap the page
+ * size that was asked for) and its {@code total} decides how many pages are needed. This
+ * avoids a separate query to count the results.
+ * <p>
+ * In adaptive mode the {@code total} is ignored and pages are requested until one comes
+ * back with fewer issues than the step, which copes with result sets that grow or shrink
+ * while the export is running.
+ * <p>
+ * When the concurrency is greater than one, the remaining pages are requested in parallel
+ * ahead of the consumer using an {@link OrderedParallelIterator}.
+ */
+class PagedIssues implements Iterator<Issue>, AutoCloseable {
+    private final IntFunction<IssueReader> query;
+    private final int concurrency;
+    private final boolean adaptive;
+    private final boolean virtual;
+    private final int step;
+    private int total;
+    private Iterator<Issue> current;
+    private int currentCount;
+    private int nextOffset;
+    private OrderedParallelIterator<List<Issue>> prefetch;
+
+    /**
+     * @param query Performs the query for a page starting at the given offset.
+     * @param pageSize The number of issues to request per page.
+     * @param concurrency The maximum number of pages to request in parallel.
+     * @param adaptive If true, request pages until a short page is returned instead of relying on the total.
+     */
+    PagedIssues(@NonNull IntFunction<IssueReader> query, int pageSize, int concurrency, boolean adaptive) {
+        this(query, 0, pageSize, concurrency, adaptive);
+    }
+
+    /**
+     * @param query Performs the query for a page starting at the given offset.
+     * @param startAt The offset of the first issue to return.
+     * @param pageSize The number of issues to request per page.
+     * @param concurrency The maximum number of pages to request in parallel.
+     * @param adaptive If true, request pages until a short page is returned instead of relying on the total.
+     */
+    PagedIssues(@NonNull IntFunction<IssueReader> query, int startAt, int pageSize, int concurrency,
+                boolean adaptive) {
+        this(query, startAt, pageSize, concurrency, adaptive, false);
+    }
+
+    /**
+     * @param query Performs the query for a page starting at the given offset.
+     * @param startAt The offset of the first issue to return.
+     * @param pageSize The number of issues to request per page.
+     * @param concurrency The maximum number of pages to request in parallel.
+     * @param adaptive If true, request pages until a short page is returned instead of relying on the total.
+     * @param virtual True to request each page on its own virtual thread, if the JVM has them.
+     */
+    PagedIssues(@NonNull IntFunction<IssueReader> query, int startAt, int pageSize, int concurrency,
+                boolean adaptive, boolean virtual) {
+        this.query = query;
+        this.concurrency = concurrency;
+        this.adaptive = adaptive;
+        this.virtual = virtual;
+        IssueReader first = query.apply(startAt);
+        this.current = first;
+        this.step = first.getMaxResults() > 0 ? first.getMaxResults() : pageSize;
+        this.total = first.getTotal();
+        this.nextOffset = startAt + step;
+        // Start fetching ahead while the first page is consumed, if we already know what to fetch.
+        if (concurrency > 1 && (adaptive || total != IssueReader.UNKNOWN)) {
+            startPrefetch();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (!advance()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Issue next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        currentCount++;
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        closePage();
+        current = Collections.emptyIterator();
+        if (prefetch != null) prefetch.close();
+    }
+
+    /**
+     * Move on to the next page once the current page has been consumed.
+     * @return False if there are no more pages.
+     */
+    private boolean advance() {
+        closePage();
+        if (total == IssueReader.UNKNOWN && current instanceof IssueReader) {
+            // The total may only be available once the issues have been read.
+            total = ((IssueReader) current).getTotal();
+        }
+        boolean shortPage = currentCount < step;
+        current = Collections.emptyIterator();
+        currentCount = 0;
+        if (adaptive ? shortPage : nextOffset >= total) return false;
+
+        if (concurrency > 1) {
+            if (prefetch == null) startPrefetch();
+            if (!prefetch.hasNext()) return false;
+            current = prefetch.next().iterator();
+        } else {
+            current = query.apply(nextOffset);
+        }
+        nextOffset += step;
+        return true;
+    }
+
+    private void startPrefetch() {
+        Iterator<Supplier<List<Issue>>> pages = new Iterator<Supplier<List<Issue>>>() {
+            private int offset = nextOffset;
+
+            @Override
+            public boolean hasNext() {
+                return adaptive || offset < total;
+            }
+
+            @Override
+            public Supplier<List<Issue>> next() {
+                int startAt = offset;
+                offset += step;
+                return () -> readPage(startAt);
+            }
+        };
+        prefetch = new OrderedParallelIterator<>(pages, concurrency, virtual);
+    }
+
+    /**
+     * Read a whole page of issues into memory, used when pages are fetched ahead of the consumer.
+     */
+    private List<Issue> readPage(int startAt) {
+        List<Issue> issues = new ArrayList<>(step);
+        try (IssueReader reader = query.apply(startAt)) {
+            reader.forEachRemaining(issues::add);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close connection", e);
+        }
+        return issues;
+    }
+
+    private void closePage() {
+        if (current instanceof Closeable) {
+            try {
+                ((Closeable) current).close();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to close connection", e);
+            }
+        }
+    }
+}
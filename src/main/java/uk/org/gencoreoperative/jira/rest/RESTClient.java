@@ -25,29 +25,63 @@ package uk.org.gencoreoperative.jira.rest;
 
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.text.MessageFormat.format;
+import static java.util.Spliterator.ORDERED;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
 
 import com.google.gson.Gson;
 
+import lombok.Getter;
 import lombok.NonNull;
 import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.metrics.ExportListener;
+import uk.org.gencoreoperative.jira.model.Changelog;
+import uk.org.gencoreoperative.jira.model.ComponentRegistry;
+import uk.org.gencoreoperative.jira.model.Field;
+import uk.org.gencoreoperative.jira.model.FieldDefinition;
+import uk.org.gencoreoperative.jira.model.FieldSchema;
 import uk.org.gencoreoperative.jira.model.Issue;
-import uk.org.gencoreoperative.jira.model.SearchResults;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+import uk.org.gencoreoperative.jira.model.Projection;
+import uk.org.gencoreoperative.jira.rest.transport.CachingTransport;
+import uk.org.gencoreoperative.jira.rest.transport.PageCache;
+import uk.org.gencoreoperative.jira.rest.transport.Response;
+import uk.org.gencoreoperative.jira.rest.transport.Transport;
+import uk.org.gencoreoperative.jira.rest.transport.Transports;
 
 /**
  * A REST based client for querying JIRA and returning a stream of the issues.
@@ -57,84 +91,568 @@ import uk.org.gencoreoperative.jira.model.SearchResults;
  */
 public class RESTClient {
     public static final int WINDOW = 100;
-    private static final Gson GSON = new Gson();
+    /**
+     * Perform the requests of publishers that were not given an executor.
+     */
+    private static final Executor PUBLISHER_POOL = Threads.newUnboundedExecutor("jira-publish", false);
+    private static final Executor VIRTUAL_PUBLISHER_POOL = Threads.newUnboundedExecutor("jira-publish", true);
     private final Config config;
-    private final String authHeader;
+    private final ComponentRegistry registry = new ComponentRegistry();
+    private final Gson gson;
+    private final Map<String, String> headers = new HashMap<>();
+    private final Map<String, Long> unchanged = new ConcurrentHashMap<>();
+    private final Transport network;
+    @Getter
+    private final Transport transport;
+    private volatile FieldSchema schema;
+    private final List<ExportListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Passes each event on to every registered listener.
+     */
+    @Getter
+    private final ExportListener listener = new ExportListener() {
+        @Override
+        public void requestCompleted(URL url, int status, long nanos) {
+            for (ExportListener each : listeners) each.requestCompleted(url, status, nanos);
+        }
+
+        @Override
+        public void pageRead(URL url, int issues, long bytes, long transferNanos, long parseNanos) {
+            for (ExportListener each : listeners) each.pageRead(url, issues, bytes, transferNanos, parseNanos);
+        }
+
+        @Override
+        public void issueWritten(long nanos) {
+            for (ExportListener each : listeners) each.issueWritten(nanos);
+        }
+    };
 
     public RESTClient(Config config) {
+        this(config, Transports.create(config));
+    }
+
+    /**
+     * @param config The configuration for the client.
+     * @param transport The {@link Transport} used to perform the requests against JIRA. If a cache
+     * directory is configured, responses are cached in front of this transport.
+     */
+    public RESTClient(@NonNull Config config, @NonNull Transport transport) {
         this.config = config;
-        authHeader = getBasicAuth(this.config);
+        this.gson = ModelAdapters.gson(registry);
+        this.network = transport;
+        this.transport = config.getCacheDir() == null
+                ? transport
+                : new CachingTransport(transport, createCache(config), this::isUnchangedSince);
+        headers.put("Authorization", getBasicAuth(this.config));
+        headers.put("Content-Type", "application/json");
     }
 
     /**
-     * Stream the issues from JIRA by performing a query to work out how many results
-     * there are, and then a stream that will perform those queries as they are consumed
-     * from the stream.
+     * @param listener A listener to receive the timings of the requests and pages of this client,
+     * and of the issues written by the exports that use it.
+     */
+    public void addListener(@NonNull ExportListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener A listener added with {@link #addListener(ExportListener)}.
+     */
+    public void removeListener(@NonNull ExportListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stream the issues from JIRA. The first page of results is requested immediately
+     * and the {@code total} it reports is used to plan the remaining pages, which are
+     * requested as they are consumed from the stream. In adaptive mode, pages are instead
+     * requested until one is returned with fewer issues than were asked for.
+     * <p>
+     * Each page is parsed directly from the response one issue at a time, so issues are
+     * passed to the consumer as soon as they have been read from the connection.
+     * <p>
+     * When the configured concurrency is greater than one, up to that many pages are
+     * requested in parallel ahead of the consumer. Issues are returned in the same order
+     * regardless of the concurrency. The returned stream should be closed to release any
+     * pending requests if it is not fully consumed.
+     * <p>
+     * When shards are configured, the issues are instead fetched in ranges of issue id using
+     * keyset pagination, and are returned in the order of their id.
+     * <p>
+     * When the changelog is configured, each page is expanded with the history of its issues.
+     * JIRA may only include the first of many histories in a search, so the rest of a truncated
+     * changelog is read from the issue before the issue is returned.
      *
      * @return A non-null {@link Stream} of the issues found in JIRA that matched the
      * configured JQL.
      */
     public Stream<Issue> stream() {
-        int count = countResults();
-        List<URL> urls = new ArrayList<>();
-        for (int i = 0; i < count; i+= WINDOW) {
-            urls.add(getSeachURL(i, WINDOW));
+        return stream(config.getJql(), config.getFields());
+    }
+
+    /**
+     * Stream the issues from JIRA that match the given JQL, in the same way as {@link #stream()}.
+     *
+     * @param jql The JQL statement to query JIRA with, instead of the configured JQL.
+     * @param fields The fields to request for each issue. If empty then all fields are requested.
+     * @return A non-null {@link Stream} of the issues found in JIRA that matched the JQL.
+     */
+    public Stream<Issue> stream(@NonNull String jql, @NonNull Set<String> fields) {
+        return stream(jql, fields, 0);
+    }
+
+    /**
+     * Stream the issues from JIRA that match the given JQL, skipping the given number of issues.
+     * <p>
+     * Sharded exports page by issue id rather than offset, so cannot skip issues this way. To
+     * continue a sharded export, add a clause on the id to the JQL instead.
+     *
+     * @param jql The JQL statement to query JIRA with, instead of the configured JQL.
+     * @param fields The fields to request for each issue. If empty then all fields are requested.
+     * @param startAt The offset of the first issue to return.
+     * @return A non-null {@link Stream} of the issues found in JIRA that matched the JQL.
+     * @throws IllegalArgumentException If issues are skipped in a sharded export.
+     */
+    public Stream<Issue> stream(@NonNull String jql, @NonNull Set<String> fields, int startAt) {
+        return stream(jql, fields, startAt, config.isChangelog());
+    }
+
+    /**
+     * Stream the issues from JIRA that match the given JQL, skipping the given number of issues,
+     * with or without their changelog.
+     *
+     * @param jql The JQL statement to query JIRA with, instead of the configured JQL.
+     * @param fields The fields to request for each issue. If empty then all fields are requested.
+     * @param startAt The offset of the first issue to return.
+     * @param changelog True to include the whole history of each issue, whatever is configured.
+     * @return A non-null {@link Stream} of the issues found in JIRA that matched the JQL.
+     * @throws IllegalArgumentException If issues are skipped in a sharded export.
+     */
+    public Stream<Issue> stream(@NonNull String jql, @NonNull Set<String> fields, int startAt, boolean changelog) {
+        return stream(jql, fields, startAt, changelog, config.getConcurrency());
+    }
+
+    /**
+     * Stream the issues from JIRA that match the given JQL, with up to the given number of pages
+     * in flight rather than the configured concurrency.
+     * <p>
+     * Callers that already run many streams at once, one per task of their own pool, can ask for one
+     * page at a time so that the requests in flight stay within the size of their pool.
+     *
+     * @param jql The JQL statement to query JIRA with, instead of the configured JQL.
+     * @param fields The fields to request for each issue. If empty then all fields are requested.
+     * @param startAt The offset of the first issue to return.
+     * @param changelog True to include the whole history of each issue, whatever is configured.
+     * @param concurrency The most pages to request at once.
+     * @return A non-null {@link Stream} of the issues found in JIRA that matched the JQL.
+     * @throws IllegalArgumentException If issues are skipped in a sharded export.
+     */
+    public Stream<Issue> stream(@NonNull String jql, @NonNull Set<String> fields, int startAt, boolean changelog,
+                                int concurrency) {
+        int pageSize = config.getPageSize();
+        if (config.getShards() > 0 && startAt > 0) {
+            throw new IllegalArgumentException("Sharded exports cannot start at an offset: " + startAt);
         }
-        return urls.stream()
-                .map(this::performQuery)
-                .map(jsonString -> GSON.fromJson(jsonString, SearchResults.class))
-                .flatMap(searchResults -> searchResults.getIssues().stream());
+        // Fields other than those always decoded are looked up in the schema and requested by id
+        Projection projection = Field.NAMES.containsAll(fields) ? null : getSchema().project(fields);
+        Set<String> ids = projection == null ? fields : getFieldIds(fields, projection);
+        Gson pages = projection == null ? gson : ModelAdapters.gson(registry, projection);
+        if (config.getShards() > 0) {
+            ShardedIssues issues = new ShardedIssues(
+                    (query, maxResults) -> performQuery(transport,
+                            getSeachURL(query, ids, 0, maxResults, changelog), pages),
+                    jql, pageSize, config.getShards(), concurrency, config.isVirtualThreads());
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(issues, ORDERED), false)
+                    .onClose(issues::close);
+        }
+        PagedIssues issues = new PagedIssues(
+                offset -> performQuery(transport, getSeachURL(jql, ids, offset, pageSize, changelog), pages),
+                startAt, pageSize, concurrency, config.isAdaptive(), config.isVirtualThreads());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(issues, ORDERED), false)
+                .onClose(issues::close);
+    }
+
+    /**
+     * Publish the issues from JIRA that match the configured JQL to a Reactive Streams
+     * {@link Subscriber}, in the same order as {@link #stream()}.
+     *
+     * @return A non-null {@link Publisher} of the issues.
+     * @see #publisher(String, Set, Executor)
+     */
+    public Publisher<Issue> publisher() {
+        return publisher(config.getJql(), config.getFields(),
+                config.isVirtualThreads() ? VIRTUAL_PUBLISHER_POOL : PUBLISHER_POOL);
     }
 
     /**
-     * Count the number of results by performing a query but not returning any results.
-     * @return Zero or more indicating the total number of results.
+     * Publish the issues from JIRA that match the given JQL to a Reactive Streams {@link Subscriber}.
+     * <p>
+     * Unlike {@link #stream(String, Set)}, no thread is held while the subscriber works through the
+     * issues. Pages are only requested while the subscriber has asked for more issues than have been
+     * fetched, with up to the configured concurrency of pages in flight. Each subscriber runs the search
+     * from the start, and cancelling the subscription closes the requests in flight and stops paging.
+     * <p>
+     * Pages are always requested by offset, even when shards are configured. On Java 9 and later the
+     * publisher can be adapted to a {@code java.util.concurrent.Flow.Publisher} with
+     * {@code org.reactivestreams.FlowAdapters}.
+     *
+     * @param jql The JQL statement to query JIRA with, instead of the configured JQL.
+     * @param fields The fields to request for each issue. If empty then all fields are requested.
+     * @param executor Performs the requests and parses the pages. The requests block while they are
+     * in flight, so this should not be an event loop.
+     * @return A non-null {@link Publisher} of the issues found in JIRA that matched the JQL.
      */
-    private int countResults() {
-        String json = performQuery(getSeachURL(0, 0));
-        SearchResults result = GSON.fromJson(json, SearchResults.class);
-        return result.getTotal();
+    public Publisher<Issue> publisher(@NonNull String jql, @NonNull Set<String> fields, @NonNull Executor executor) {
+        Projection projection = Field.NAMES.containsAll(fields) ? null : getSchema().project(fields);
+        Set<String> ids = projection == null ? fields : getFieldIds(fields, projection);
+        Gson pages = projection == null ? gson : ModelAdapters.gson(registry, projection);
+        int pageSize = config.getPageSize();
+        boolean changelog = config.isChangelog();
+        return new IssuePublisher(
+                offset -> performQuery(transport, getSeachURL(jql, ids, offset, pageSize, changelog), pages),
+                0, pageSize, config.getConcurrency(), config.isAdaptive(), executor);
+    }
+
+    /**
+     * @param fields The fields requested for each issue. If empty then all fields are requested.
+     * @return The {@link Gson} that the issues with these fields are parsed with, which also decodes
+     * the fields other than those always decoded.
+     */
+    public Gson getGson(@NonNull Set<String> fields) {
+        return Field.NAMES.containsAll(fields) ? gson : ModelAdapters.gson(registry, getSchema().project(fields));
+    }
+
+    /**
+     * Count the issues that match the JQL, without reading any of them. The search asks for no
+     * issues ({@code maxResults=0}) and only the {@code total} of the response is read. Counts are
+     * not cached, as checking a cached count would take a request of its own.
+     *
+     * @param jql The JQL statement to query JIRA with.
+     * @return The number of issues that match.
+     */
+    public int count(@NonNull String jql) {
+        URL url = getSeachURL(jql, Collections.emptySet(), 0, 0, false);
+        try (IssueReader reader = performQuery(network, url, gson)) {
+            return reader.getTotal();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close connection", e);
+        }
+    }
+
+    /**
+     * The definitions of the fields on the JIRA server, used to decode fields other than those
+     * {@link Field} always decodes. They are requested from {@code /rest/api/2/field} the first
+     * time they are needed and kept for the life of the client.
+     *
+     * @return The fields on the server.
+     */
+    public FieldSchema getSchema() {
+        FieldSchema loaded = schema;
+        if (loaded != null) return loaded;
+        synchronized (this) {
+            if (schema == null) schema = loadSchema();
+            return schema;
+        }
     }
 
-    private URL getSeachURL(int startAt, int maxResults) {
+    private static Set<String> getFieldIds(Set<String> fields, Projection projection) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (Field.NAMES.contains(field)) ids.add(field);
+        }
+        for (FieldDefinition field : projection.getFields()) {
+            ids.add(field.getId());
+        }
+        return ids;
+    }
+
+    private FieldSchema loadSchema() {
+        URL url;
+        try {
+            url = new URL(config.getServer().toString() + "/rest/api/2/field");
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid URL Format using Config:\n" + config, e);
+        }
+        Response response;
+        try {
+            response = network.get(url, headers);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to connect: " + url, e);
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+            if (response.getStatus() != HTTP_OK) {
+                String error = reader.lines().collect(Collectors.joining("\n"));
+                throw new RuntimeException(format("Could not read the fields {0} ({1}):\n{2}",
+                        url, Integer.toString(response.getStatus()), error));
+            }
+            return new FieldSchema(Arrays.asList(gson.fromJson(reader, FieldDefinition[].class)));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the fields: " + url, e);
+        }
+    }
+
+    /**
+     * Check whether any issues matching the JQL have been updated since the given time by counting them.
+     * <p>
+     * JQL compares dates in the time zone of the user, so the time is given relative to now in whole
+     * minutes, rounded up with an allowance for the clocks of the client and server being apart.
+     * Issues that were deleted, or stopped matching the JQL without being updated, are not detected.
+     */
+    private boolean isUnchangedSince(URL url, Instant since) {
+        String jql = getQueryParameter(url, "jql");
+        String probe = (since.getEpochSecond() / 60) + " " + jql;
+        long now = System.currentTimeMillis();
+        Long checked = unchanged.get(probe);
+        if (checked != null && now - checked < TimeUnit.MINUTES.toMillis(1)) return true;
+
+        long minutes = Duration.between(since, Instant.now()).toMinutes() + 2;
+        String updated = Jql.and(jql, "updated >= -" + minutes + "m");
+        URL count = getSeachURL(updated, Collections.emptySet(), 0, 0, false);
+        try (IssueReader reader = performQuery(network, count, gson)) {
+            if (reader.getTotal() != 0) return false;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close connection", e);
+        }
+        unchanged.put(probe, now);
+        return true;
+    }
+
+    private static String getQueryParameter(URL url, String name) {
+        try {
+            for (String parameter : url.getQuery().split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    return URLDecoder.decode(parameter.substring(name.length() + 1), "UTF8");
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        throw new IllegalArgumentException("No " + name + " parameter in " + url);
+    }
+
+    private static PageCache createCache(Config config) {
+        try {
+            return new PageCache(Paths.get(config.getCacheDir()), config.getCacheSize() * 1024L * 1024L);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not open cache directory " + config.getCacheDir(), e);
+        }
+    }
+
+    private URL getSeachURL(String jql, Set<String> fields, int startAt, int maxResults, boolean changelog) {
         try {
-            return new URL(format("{0}/rest/api/2/search?jql={1}&fields={2}&startAt={3}&maxResults={4}",
+            return new URL(format("{0}/rest/api/2/search?jql={1}&fields={2}&startAt={3}&maxResults={4}{5}",
                     config.getServer().toString(),
-                    URLEncoder.encode(config.getJql(), "UTF8"), // Java 8 approach
-                    String.join(",", config.getFields()),
+                    URLEncoder.encode(jql, "UTF8"), // Java 8 approach
+                    String.join(",", fields),
                     Integer.toString(startAt),
-                    maxResults));
+                    Integer.toString(maxResults),
+                    changelog ? "&expand=changelog" : ""));
         } catch (MalformedURLException | UnsupportedEncodingException e) {
             throw new IllegalArgumentException("Invalid URL Format using Config:\n" + config, e);
         }
     }
 
     /**
-     * Perform an HTTP GET Request and return the contents as a String.
+     * Perform an HTTP GET Request and return a reader over the search results in the response.
+     * <p>
+     * If reading the body fails part way through, the page is requested again and the issues that
+     * were already returned are skipped, up to the configured number of retries. The transport
+     * only retries the request, so without this a connection lost while the page streams in would
+     * fail the whole export.
      *
+     * @param transport The transport to perform the request with.
      * @param url The URL to perform a GET request with.
-     * @return The contents of the request, in JSON format.
+     * @param gson The {@link Gson} to parse the issues with.
+     * @return An {@link IssueReader} over the response, which the caller must close.
      * @throws RuntimeException If there was an error performing the query. Error message contents
      * will be included in the exception where possible.
      */
-    private String performQuery(@NonNull final URL url) {
-        try {
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestProperty("Authorization", authHeader);
-            conn.setRequestProperty("Content-Type", "application/json");
-            int response = conn.getResponseCode();
-            if (response == HTTP_OK) {
-                return readStream(conn.getInputStream());
+    private IssueReader performQuery(@NonNull final Transport transport, @NonNull final URL url,
+                                     @NonNull final Gson gson) {
+        MeteredInputStream body = new MeteredInputStream(request(transport, url));
+        return new IssueReader(gson, new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            private boolean closed;
+            /**
+             * The rest of the page, once an issue with a truncated changelog has been found.
+             */
+            private Queue<Issue> rest;
+            /**
+             * The page requested again after reading the body failed, which replaces this one.
+             */
+            private IssueReader resumed;
+            private int returned;
+            private int retries;
+
+            @Override
+            public boolean hasNext() {
+                return rest == null ? more() : !rest.isEmpty();
+            }
+
+            /**
+             * The first truncated changelog is read only after the rest of the page, so that the
+             * page does not hold a connection from the transport that the changelog needs.
+             */
+            @Override
+            public Issue next() {
+                if (rest == null) {
+                    Issue issue = take();
+                    if (!isTruncated(issue)) return issue;
+                    rest = new ArrayDeque<>();
+                    rest.add(issue);
+                    while (more()) rest.add(take());
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to close connection", e);
+                    }
+                }
+                Issue issue = rest.remove();
+                if (isTruncated(issue)) readChangelog(issue.getKey(), issue.getChangelog());
+                return issue;
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (resumed != null) resumed.close();
+                if (closed) return;
+                closed = true;
+                listener.pageRead(url, returned, body.getBytes(), body.getNanos(),
+                        Math.max(0, getReadTime() - body.getNanos()));
+            }
+
+            private boolean more() {
+                while (true) {
+                    try {
+                        return resumed == null ? super.hasNext() : resumed.hasNext();
+                    } catch (RuntimeException e) {
+                        resume(e);
+                    }
+                }
             }
-            throw new RuntimeException(format("Could not perform query {0} ({1}):\n{2}",
-                    url, response, readStream(conn.getErrorStream())));
+
+            private Issue take() {
+                while (true) {
+                    try {
+                        Issue issue = resumed == null ? super.next() : resumed.next();
+                        returned++;
+                        return issue;
+                    } catch (RuntimeException e) {
+                        resume(e);
+                    }
+                }
+            }
+
+            /**
+             * Request the page again and skip the issues that have already been returned, or throw
+             * the failure if it was not the body failing or the retries are used up.
+             */
+            private void resume(RuntimeException failure) {
+                while (true) {
+                    Throwable cause = failure.getCause();
+                    if (!(cause instanceof IOException) || cause instanceof InterruptedIOException
+                            || retries >= config.getMaxRetries()) {
+                        throw failure;
+                    }
+                    retries++;
+                    transport.getStats().recordRetry();
+                    try {
+                        if (resumed == null) super.close(); else resumed.close();
+                    } catch (IOException e) {
+                        failure.addSuppressed(e);
+                    }
+                    try {
+                        resumed = new IssueReader(gson, new BufferedReader(
+                                new InputStreamReader(request(transport, url), StandardCharsets.UTF_8)));
+                        for (int skipped = 0; skipped < returned && resumed.hasNext(); skipped++) {
+                            resumed.next();
+                        }
+                        return;
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Perform an HTTP GET Request for a page of search results.
+     *
+     * @return The body of the response, which the caller must close.
+     * @throws RuntimeException If the request failed or the server returned an error.
+     */
+    private InputStream request(Transport transport, URL url) {
+        Response response;
+        long start = System.nanoTime();
+        try {
+            response = transport.get(url, headers);
         } catch (IOException e) {
             throw new RuntimeException("Failed to connect: " + url, e);
         }
+        listener.requestCompleted(url, response.getStatus(), System.nanoTime() - start);
+        if (response.getStatus() == HTTP_OK) return response.getBody();
+        String error;
+        try {
+            error = readStream(response.getBody());
+        } catch (IOException e) {
+            error = e.getMessage();
+        }
+        throw new RuntimeException(format("Could not perform query {0} ({1}):\n{2}",
+                url, Integer.toString(response.getStatus()), error));
+    }
+
+    private static boolean isTruncated(Issue issue) {
+        return issue.getChangelog() != null && issue.getChangelog().isTruncated();
+    }
+
+    /**
+     * Read the rest of a changelog that a search truncated, a page at a time, from the changelog of the issue.
+     *
+     * @param key The key of the issue.
+     * @param changelog The changelog from the search, which the rest of the histories are added to.
+     */
+    private void readChangelog(String key, Changelog changelog) {
+        while (changelog.isTruncated()) {
+            URL url;
+            try {
+                url = new URL(format("{0}/rest/api/2/issue/{1}/changelog?startAt={2}&maxResults={3}",
+                        config.getServer().toString(),
+                        URLEncoder.encode(key, "UTF8"),
+                        Integer.toString(changelog.getNextStartAt()),
+                        Integer.toString(config.getPageSize())));
+            } catch (MalformedURLException | UnsupportedEncodingException e) {
+                throw new IllegalArgumentException("Invalid URL Format using Config:\n" + config, e);
+            }
+            Response response;
+            long start = System.nanoTime();
+            try {
+                response = network.get(url, headers);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to connect: " + url, e);
+            }
+            listener.requestCompleted(url, response.getStatus(), System.nanoTime() - start);
+            Changelog page;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                if (response.getStatus() != HTTP_OK) {
+                    String error = reader.lines().collect(Collectors.joining("\n"));
+                    throw new RuntimeException(format("Could not read the changelog {0} ({1}):\n{2}",
+                            url, Integer.toString(response.getStatus()), error));
+                }
+                page = gson.fromJson(reader, Changelog.class);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read the changelog: " + url, e);
+            }
+            // A page with no histories would never finish the changelog
+            if (page == null || page.getHistories() == null || page.getHistories().isEmpty()) return;
+            changelog.append(page);
+        }
     }
 
     private String readStream(InputStream stream) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
             return reader.lines().collect(Collectors.joining("\n"));
         }
     }
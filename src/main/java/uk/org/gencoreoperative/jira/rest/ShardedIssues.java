@@ -0,0 +1,201 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.model.Issue;
+
+/**
+ * Exports the results of a search in ranges of issue id using keyset pagination.
+ * <p>
+ * Paging with {@code startAt} gets slower the further into the results JIRA has to skip, and
+ * pages shift if issues are edited during the export. Instead, each page here asks for the
+ * issues with an id greater than the last one seen, ordered by id, so every page costs the same
+ * and no issue is skipped or repeated.
+ * <p>
+ * The range of ids matching the JQL is split into shards of equal width, which are fetched in
+ * parallel up to the given concurrency. Each shard buffers a small number of pages ahead of the
+ * consumer. Issues are returned in id order, rather than the order of the JQL.
+ */
+class ShardedIssues implements Iterator<Issue>, AutoCloseable {
+    /**
+     * The number of pages each shard can fetch ahead of the consumer.
+     */
+    private static final int BUFFERED_PAGES = 2;
+
+    private final BiFunction<String, Integer, IssueReader> query;
+    private final String jql;
+    private final int pageSize;
+    private final List<BlockingQueue<Batch>> shards = new ArrayList<>();
+    private final ExecutorService executor;
+    private int shard;
+    private Iterator<Issue> current = Collections.emptyIterator();
+
+    /**
+     * @param query Performs a query with the given JQL and maximum results, starting from the first result.
+     * @param jql The JQL to export. Any ordering is replaced with the order of the issue id.
+     * @param pageSize The number of issues to request per page.
+     * @param shards The number of id ranges to split the export into.
+     * @param concurrency The maximum number of shards to fetch in parallel.
+     */
+    ShardedIssues(@NonNull BiFunction<String, Integer, IssueReader> query, @NonNull String jql,
+                  int pageSize, int shards, int concurrency) {
+        this(query, jql, pageSize, shards, concurrency, false);
+    }
+
+    /**
+     * @param query Performs a query with the given JQL and maximum results, starting from the first result.
+     * @param jql The JQL to export. Any ordering is replaced with the order of the issue id.
+     * @param pageSize The number of issues to request per page.
+     * @param shards The number of id ranges to split the export into.
+     * @param concurrency The maximum number of shards to fetch in parallel.
+     * @param virtual True to fetch each shard on its own virtual thread, if the JVM has them.
+     */
+    ShardedIssues(@NonNull BiFunction<String, Integer, IssueReader> query, @NonNull String jql,
+                  int pageSize, int shards, int concurrency, boolean virtual) {
+        this.query = query;
+        this.jql = jql;
+        this.pageSize = pageSize;
+        this.executor = Threads.newExecutor("jira-shard", Math.min(shards, concurrency), virtual);
+        Integer first = bound("id ASC");
+        Integer last = first == null ? null : bound("id DESC");
+        if (first == null || last == null) {
+            executor.shutdown();
+            return;
+        }
+        long width = Math.max(1, ((long) last - first + shards) / shards);
+        for (long from = first; from <= last; from += width) {
+            BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(BUFFERED_PAGES);
+            long lowest = from;
+            long highest = Math.min(last, from + width - 1);
+            this.shards.add(queue);
+            executor.execute(() -> fetch(lowest, highest, queue));
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (shard >= shards.size()) return false;
+            Batch batch;
+            try {
+                batch = shards.get(shard).take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted waiting for issues", e);
+            }
+            if (batch.error != null) {
+                close();
+                throw batch.error;
+            }
+            if (batch.issues == null) {
+                shard++;
+            } else {
+                current = batch.issues.iterator();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Issue next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        shard = shards.size();
+        current = Collections.emptyIterator();
+    }
+
+    /**
+     * Page through the issues with ids in the range, passing each page to the queue, then an empty batch.
+     */
+    private void fetch(long lowest, long highest, BlockingQueue<Batch> queue) {
+        try {
+            try {
+                long after = lowest - 1;
+                while (true) {
+                    List<Issue> issues = new ArrayList<>(pageSize);
+                    int step;
+                    String page = Jql.and(jql, "id > " + after + " AND id <= " + highest, "id ASC");
+                    try (IssueReader reader = query.apply(page, pageSize)) {
+                        reader.forEachRemaining(issues::add);
+                        step = reader.getMaxResults() > 0 ? reader.getMaxResults() : pageSize;
+                    }
+                    if (!issues.isEmpty()) queue.put(new Batch(issues, null));
+                    if (issues.size() < step) break;
+                    after = issues.get(issues.size() - 1).getId();
+                }
+                queue.put(new Batch(null, null));
+            } catch (IOException e) {
+                queue.put(new Batch(null, new RuntimeException("Failed to close connection", e)));
+            } catch (RuntimeException e) {
+                queue.put(new Batch(null, e));
+            }
+        } catch (InterruptedException e) {
+            // The export was closed, nobody is waiting for the rest of the shard.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The id of the first issue matching the JQL in the given order, or null if there are none.
+     */
+    private Integer bound(String order) {
+        try (IssueReader reader = query.apply(Jql.orderBy(jql, order), 1)) {
+            return reader.hasNext() ? reader.next().getId() : null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close connection", e);
+        }
+    }
+
+    /**
+     * A page of issues from a shard. A batch without issues marks the end of the shard.
+     */
+    private static class Batch {
+        private final List<Issue> issues;
+        private final RuntimeException error;
+
+        Batch(List<Issue> issues, RuntimeException error) {
+            this.issues = issues;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import lombok.NonNull;
+
+/**
+ * Creates the executors that requests are made on, using virtual threads when they are asked for
+ * and the JVM has them.
+ * <p>
+ * Virtual threads arrived in Java 21 but the client builds for Java 8, so they are looked up by
+ * reflection. When they cannot be found the executors use daemon platform threads instead, as they
+ * always have.
+ * <p>
+ * A virtual thread is started for every task rather than kept in a pool. Instead of the size of a
+ * pool, the executor only starts as many of the tasks as the concurrency, in the order they were
+ * submitted. Tasks waiting for a connection from the transport only hold a virtual thread, which
+ * costs a little heap rather than a platform thread and its stack.
+ */
+public final class Threads {
+    private static final ThreadFactory VIRTUAL = virtualThreadFactory();
+    private static final Method PER_TASK = perTaskExecutor();
+
+    private Threads() {
+    }
+
+    /**
+     * @return True if this JVM can run tasks on virtual threads.
+     */
+    public static boolean isVirtualAvailable() {
+        return VIRTUAL != null && PER_TASK != null;
+    }
+
+    /**
+     * @param name The name of the threads.
+     * @param concurrency The most tasks to run at once.
+     * @param virtual True to run each task on its own virtual thread, if the JVM has them.
+     * @return A new executor running at most {@code concurrency} tasks at once.
+     */
+    public static ExecutorService newExecutor(@NonNull String name, int concurrency, boolean virtual) {
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        if (virtual && isVirtualAvailable()) return new LimitedExecutor(perTask(), concurrency);
+        return Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory(name));
+    }
+
+    /**
+     * @param name The name of the threads.
+     * @param virtual True to run each task on its own virtual thread, if the JVM has them.
+     * @return A new executor that runs every task as soon as it is submitted.
+     */
+    public static ExecutorService newUnboundedExecutor(@NonNull String name, boolean virtual) {
+        if (virtual && isVirtualAvailable()) return perTask();
+        return Executors.newCachedThreadPool(new DaemonThreadFactory(name));
+    }
+
+    /**
+     * Wait for the result of a task, rethrowing what it threw.
+     *
+     * @param future The future of the task.
+     * @return The result of the task.
+     * @throws IllegalStateException If interrupted while waiting, or if the task threw a checked exception.
+     */
+    public static <T> T await(@NonNull Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a task", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static ExecutorService perTask() {
+        try {
+            return (ExecutorService) PER_TASK.invoke(null, VIRTUAL);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+
+    /**
+     * {@code Thread.ofVirtual().name("jira-virtual-", 0).factory()}
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object virtual = Thread.class.getMethod("ofVirtual").invoke(null);
+            virtual = builder.getMethod("name", String.class, long.class).invoke(virtual, "jira-virtual-", 0L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(virtual);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@code Executors.newThreadPerTaskExecutor(ThreadFactory)}
+     */
+    private static Method perTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs at most a number of tasks at once on an executor that starts a thread for every task.
+     * <p>
+     * Tasks start in the order they were submitted, as they do in a fixed pool: those beyond the
+     * concurrency wait in a queue, and each task that finishes starts the next. Callers such as
+     * {@link ShardedIssues} rely on this, as a later task may block until an earlier one has run.
+     * Submitting a task never blocks.
+     * <p>
+     * A task still waiting to run when the executor is shut down with {@link #shutdownNow()} never
+     * runs. If it was submitted then its {@link Future} is cancelled, so that nothing waits on it
+     * forever.
+     */
+    static class LimitedExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final int concurrency;
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+        private boolean shutdown;
+
+        /**
+         * @param delegate Starts a thread for every task, normally a virtual thread.
+         * @param concurrency The most tasks to run at once.
+         */
+        LimitedExecutor(@NonNull ExecutorService delegate, int concurrency) {
+            this.delegate = delegate;
+            this.concurrency = concurrency;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable task) {
+            synchronized (this) {
+                if (shutdown) throw new RejectedExecutionException("Executor has been shut down");
+                if (running == concurrency) {
+                    waiting.add(task);
+                    return;
+                }
+                running++;
+            }
+            start(task);
+        }
+
+        private void start(Runnable task) {
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        next();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                next();
+                throw e;
+            }
+        }
+
+        /**
+         * Hand the place of a task that finished, or could not start, to the next task waiting.
+         */
+        private void next() {
+            Runnable task;
+            synchronized (this) {
+                task = waiting.poll();
+                if (task == null) {
+                    running--;
+                    if (shutdown && running == 0) delegate.shutdown();
+                    return;
+                }
+            }
+            start(task);
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            shutdown = true;
+            if (running == 0) delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            List<Runnable> tasks;
+            synchronized (this) {
+                shutdown = true;
+                tasks = new ArrayList<>(waiting);
+                waiting.clear();
+            }
+            for (Runnable task : tasks) {
+                if (task instanceof Future) ((Future<?>) task).cancel(false);
+            }
+            tasks.addAll(delegate.shutdownNow());
+            return tasks;
+        }
+
+        @Override
+        public synchronized boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return isShutdown() && delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+            // The delegate is only shut down once the last task has finished
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
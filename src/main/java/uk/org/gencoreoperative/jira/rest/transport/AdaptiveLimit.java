@@ -0,0 +1,110 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A limit on the number of requests in flight that adapts to how the server is coping, using
+ * additive increase and multiplicative decrease.
+ * <p>
+ * The limit is halved whenever the server throttles a request or fails to respond. Otherwise
+ * it grows by one for each limit's worth of responses, as long as responses are not much slower
+ * than the fastest recent response. A slow response holds the limit where it is, so the
+ * limit settles at the concurrency the server can handle without queueing the requests.
+ * <p>
+ * Requests wait on a {@link ReentrantLock} rather than a monitor, so that a virtual thread waiting
+ * for the limit does not pin the platform thread it runs on.
+ */
+class AdaptiveLimit {
+    /**
+     * How much slower than the fastest recent response a response can be before the limit stops growing.
+     */
+    static final double TOLERANCE = 2.0;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final int max;
+    private double limit;
+    private int inFlight;
+    private long fastest = Long.MAX_VALUE;
+
+    /**
+     * @param max The largest the limit can grow to, which is also where it starts.
+     */
+    AdaptiveLimit(int max) {
+        this.max = Math.max(1, max);
+        this.limit = this.max;
+    }
+
+    /**
+     * Wait until a request can be made within the limit.
+     */
+    void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                released.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param latency The time in nanoseconds the server took to respond.
+     * @param congested True if the server throttled the request or failed to respond.
+     */
+    void release(long latency, boolean congested) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (congested) {
+                limit = Math.max(1, limit / 2);
+            } else {
+                // The fastest response ages slowly, so that it follows the server if it gets slower for good
+                fastest = fastest == Long.MAX_VALUE ? latency : Math.min(latency, fastest + (fastest >> 6));
+                if (latency <= fastest * TOLERANCE) limit = Math.min(max, limit + 1 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests that can currently be in flight.
+     */
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
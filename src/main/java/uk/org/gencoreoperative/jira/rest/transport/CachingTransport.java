@@ -0,0 +1,257 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+
+import lombok.NonNull;
+
+/**
+ * A {@link Transport} that keeps successful responses in a {@link PageCache} and revalidates
+ * them before they are reused.
+ * <p>
+ * If the server sent an {@code ETag} or {@code Last-Modified} header with the cached response,
+ * a conditional request is made and the cached body is used when the server replies with
+ * {@code 304 Not Modified}. Otherwise the {@code unchangedSince} check is asked whether anything
+ * has changed since the response was stored, which for JIRA searches is a cheap count query.
+ * <p>
+ * A response is only stored once its body has been read to the end, so a cancelled or failed
+ * request never leaves a partial entry behind.
+ */
+public class CachingTransport implements Transport {
+    /**
+     * The most that will be read from a response that is closed early, in order to complete its
+     * cache entry. Parsers often stop before trailing whitespace at the end of a response.
+     */
+    private static final long COMPLETE_LIMIT = 64 * 1024;
+
+    private final Transport delegate;
+    private final PageCache cache;
+    private final BiPredicate<URL, Instant> unchangedSince;
+
+    /**
+     * @param delegate The transport used for requests that cannot be served from the cache.
+     * @param cache The cache of responses.
+     * @param unchangedSince Returns true if the response to a request for the URL would not have changed
+     * since the given time. Used for entries that have no validators.
+     */
+    public CachingTransport(@NonNull Transport delegate, @NonNull PageCache cache,
+                            @NonNull BiPredicate<URL, Instant> unchangedSince) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.unchangedSince = unchangedSince;
+    }
+
+    @Override
+    public Response get(@NonNull URL url, @NonNull Map<String, String> headers) throws IOException {
+        // Responses depend on who is asking, so the credentials are part of the key.
+        String id = PageCache.digest(headers.get("Authorization") + " " + url);
+        Optional<PageCache.Entry> cached = cache.lookup(id);
+        if (!cached.isPresent()) {
+            return store(id, url, delegate.get(url, headers));
+        }
+
+        PageCache.Entry entry = cached.get();
+        if (!entry.hasValidators()) {
+            if (unchangedSince.test(url, entry.getStored())) {
+                cache.refresh(entry);
+                Optional<Response> hit = hit(entry);
+                if (hit.isPresent()) return hit.get();
+            }
+            return store(id, url, delegate.get(url, headers));
+        }
+
+        Map<String, String> conditional = new HashMap<>(headers);
+        if (entry.getEtag() != null) conditional.put("If-None-Match", entry.getEtag());
+        if (entry.getLastModified() != null) conditional.put("If-Modified-Since", entry.getLastModified());
+        Response response = delegate.get(url, conditional);
+        if (response.getStatus() != HttpURLConnection.HTTP_NOT_MODIFIED) return store(id, url, response);
+        response.close();
+        cache.refresh(entry);
+        Optional<Response> hit = hit(entry);
+        // The entry was evicted by another request since it was looked up
+        return hit.isPresent() ? hit.get() : store(id, url, delegate.get(url, headers));
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return delegate.getStats();
+    }
+
+    private Optional<Response> hit(PageCache.Entry entry) throws IOException {
+        Optional<InputStream> opened = cache.open(entry);
+        if (!opened.isPresent()) return Optional.empty();
+        getStats().recordCacheHit();
+        InputStream body = opened.get();
+        return Optional.of(new Response() {
+            @Override
+            public int getStatus() {
+                return HttpURLConnection.HTTP_OK;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return null;
+            }
+
+            @Override
+            public InputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public void close() throws IOException {
+                body.close();
+            }
+        });
+    }
+
+    private Response store(String id, URL url, Response response) throws IOException {
+        if (response.getStatus() != HttpURLConnection.HTTP_OK) return response;
+        try {
+            return new StoringResponse(id, url, response);
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the body to a temporary file as it is read, and moves it into the cache if it was read to the end.
+     */
+    private class StoringResponse implements Response {
+        private final String id;
+        private final URL url;
+        private final Response response;
+        private final Path file;
+        private final OutputStream copy;
+        private final InputStream body;
+        private boolean complete;
+        private boolean closed;
+
+        StoringResponse(String id, URL url, Response response) throws IOException {
+            this.id = id;
+            this.url = url;
+            this.response = response;
+            this.file = cache.newBodyFile(id);
+            this.copy = Files.newOutputStream(file);
+            this.body = new FilterInputStream(response.getBody()) {
+                @Override
+                public int read() throws IOException {
+                    int read = super.read();
+                    if (read == -1) {
+                        complete = true;
+                    } else {
+                        copy.write(read);
+                    }
+                    return read;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read == -1) {
+                        complete = true;
+                    } else {
+                        copy.write(b, off, read);
+                    }
+                    return read;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                    byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                    int read = read(buffer, 0, buffer.length);
+                    return Math.max(read, 0);
+                }
+
+                @Override
+                public boolean markSupported() {
+                    return false;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    StoringResponse.this.close();
+                }
+            };
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.getHeader(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                try {
+                    finish();
+                } finally {
+                    copy.close();
+                }
+                if (complete) {
+                    cache.store(id, url.toString(), file, response.getHeader("ETag"),
+                            response.getHeader("Last-Modified"));
+                }
+            } finally {
+                Files.deleteIfExists(file);
+                response.close();
+            }
+        }
+
+        private void finish() throws IOException {
+            byte[] buffer = new byte[8192];
+            long remaining = COMPLETE_LIMIT;
+            while (!complete && remaining > 0) {
+                int read = body.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read > 0) remaining -= read;
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import lombok.NonNull;
+
+/**
+ * A {@link Transport} that asks the server to compress its responses and decompresses them
+ * as they are read.
+ * <p>
+ * The body is inflated as a stream, so it is never held in memory in either its compressed
+ * or decompressed form. The number of bytes received from the server and the number of bytes
+ * after decoding are recorded in the {@link TransportStats} of the underlying transport.
+ * <p>
+ * The decoder is only created when the body is first read, and only for a successful response
+ * with a body, so an empty {@code 304} or an error from a proxy is reported by its status rather
+ * than as a corrupt stream. Error bodies are returned as they were received. The native memory of
+ * the decoder is released when the response is closed.
+ */
+public class CompressingTransport implements Transport {
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+    private final Transport delegate;
+
+    public CompressingTransport(@NonNull Transport delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response get(@NonNull URL url, @NonNull Map<String, String> headers) throws IOException {
+        Map<String, String> request = new HashMap<>(headers);
+        request.put("Accept-Encoding", ACCEPT_ENCODING);
+        Response response = delegate.get(url, request);
+        try {
+            return new DecodedResponse(response, encoding(response), getStats());
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return delegate.getStats();
+    }
+
+    private static String encoding(Response response) throws IOException {
+        String encoding = response.getHeader("Content-Encoding");
+        String normalised = encoding == null ? "identity" : encoding.trim().toLowerCase(Locale.ROOT);
+        switch (normalised) {
+            case "gzip":
+            case "x-gzip":
+                return "gzip";
+            case "deflate":
+                return normalised;
+            case "identity":
+            case "":
+                return "identity";
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + encoding);
+        }
+    }
+
+    /**
+     * The {@code deflate} encoding should be zlib wrapped, but some servers send raw deflate data.
+     * A zlib stream can be recognised from its first two bytes.
+     */
+    private static boolean isZlib(PushbackInputStream in) throws IOException {
+        byte[] header = new byte[2];
+        int read = 0;
+        while (read < 2) {
+            int count = in.read(header, read, 2 - read);
+            if (count == -1) break;
+            read += count;
+        }
+        in.unread(header, 0, read);
+        return read == 2
+                && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+    }
+
+    /**
+     * A {@link GZIPInputStream} whose inflater can be released without closing the stream it reads.
+     */
+    private static class GzipDecoder extends GZIPInputStream {
+        GzipDecoder(InputStream in) throws IOException {
+            super(in, 8192);
+        }
+
+        void end() {
+            inf.end();
+        }
+    }
+
+    private static class DecodedResponse implements Response {
+        private final Response response;
+        private final String encoding;
+        private final TransportStats stats;
+        private final InputStream body;
+        private InputStream decoded;
+        private Runnable release = () -> { };
+        private boolean closed;
+
+        DecodedResponse(Response response, String encoding, TransportStats stats) {
+            this.response = response;
+            this.encoding = encoding;
+            this.stats = stats;
+            this.body = new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    return decoded().read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return decoded().read(b, off, len);
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                    return decoded().skip(n);
+                }
+
+                @Override
+                public int available() throws IOException {
+                    return decoded().available();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    DecodedResponse.this.close();
+                }
+            };
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.getHeader(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        /**
+         * The underlying response is closed directly rather than through the decoder, so that it
+         * can decide whether to read the rest of the body and keep the connection. The decoder's
+         * inflater is released afterwards.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                response.close();
+            } finally {
+                release.run();
+            }
+        }
+
+        private synchronized InputStream decoded() throws IOException {
+            if (closed) throw new IOException("The response is closed");
+            if (decoded == null) decoded = new CountingInputStream(decode(), stats::recordDecodedBytes);
+            return decoded;
+        }
+
+        private InputStream decode() throws IOException {
+            InputStream wire = new CountingInputStream(response.getBody(), stats::recordWireBytes);
+            int status = response.getStatus();
+            if (encoding.equals("identity") || status < 200 || status >= 300) return wire;
+            PushbackInputStream in = new PushbackInputStream(wire, 2);
+            int first = in.read();
+            if (first == -1) return in;
+            in.unread(first);
+            if (encoding.equals("gzip")) {
+                GzipDecoder gzip = new GzipDecoder(in);
+                release = gzip::end;
+                return gzip;
+            }
+            Inflater inflater = new Inflater(!isZlib(in));
+            release = inflater::end;
+            return new InflaterInputStream(in, inflater, 8192);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A size bounded cache of response bodies on disk.
+ * <p>
+ * Each entry is stored as a body file and a small properties file holding the validators
+ * the server sent with it. When the total size of the bodies goes over the limit, the least
+ * recently used entries are removed. The modification time of the body file records when
+ * it was last used, so the order survives between runs.
+ * <p>
+ * Bodies are written to temporary files and moved into place once they are complete. Temporary
+ * files and properties files left behind by a run that died are deleted when the cache is next opened.
+ */
+public class PageCache {
+    private static final String BODY = ".body";
+    private static final String META = ".meta";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String STORED = "stored";
+    private static final String URL = "url";
+    private static final String TEMP = ".tmp";
+    /**
+     * How old a temporary file must be before it is taken to be left over from a run that died,
+     * rather than being written by another process sharing the cache.
+     */
+    static final long STALE_MILLIS = 60 * 60 * 1000;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * @param directory The directory to store the cache in. It is created if it does not exist.
+     * @param maxBytes The maximum total size of the cached bodies.
+     */
+    public PageCache(@NonNull Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.sorted(Comparator.comparing(PageCache::lastModified)).collect(Collectors.toList());
+        }
+        long stale = System.currentTimeMillis() - STALE_MILLIS;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(TEMP) && lastModified(file).toMillis() < stale) {
+                Files.deleteIfExists(file);
+            } else if (name.endsWith(META)) {
+                Path body = directory.resolve(name.substring(0, name.length() - META.length()) + BODY);
+                if (!Files.exists(body)) Files.deleteIfExists(file);
+            }
+        }
+        List<Path> bodies = files.stream()
+                .filter(path -> path.getFileName().toString().endsWith(BODY))
+                .collect(Collectors.toList());
+        for (Path body : bodies) {
+            String name = body.getFileName().toString();
+            long size = Files.size(body);
+            sizes.put(name.substring(0, name.length() - BODY.length()), size);
+            totalBytes += size;
+        }
+    }
+
+    /**
+     * @param key The identity of the request, which may contain credentials. Only a digest of it is stored.
+     * @return The digest used to name the entry for the key.
+     */
+    public static String digest(@NonNull String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param id The digest of the request.
+     * @return The entry, if it is cached. Looking up an entry marks it as recently used.
+     */
+    public synchronized Optional<Entry> lookup(@NonNull String id) {
+        // get rather than containsKey, so that the entry moves to the end of the access order
+        if (sizes.get(id) == null) return Optional.empty();
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve(id + META))) {
+            meta.load(in);
+            Files.setLastModifiedTime(directory.resolve(id + BODY), FileTime.from(Instant.now()));
+        } catch (NoSuchFileException e) {
+            remove(id);
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read cache entry " + id, e);
+        }
+        return Optional.of(new Entry(id, meta.getProperty(URL), meta.getProperty(ETAG),
+                meta.getProperty(LAST_MODIFIED), Instant.ofEpochMilli(Long.parseLong(meta.getProperty(STORED, "0")))));
+    }
+
+    /**
+     * Open the body of an entry. The body is opened while no other entry can be stored, so once it
+     * is open it can be read to the end even if the entry is evicted.
+     *
+     * @param entry The entry to read.
+     * @return The cached body, which the caller must close, or empty if the entry has been evicted.
+     */
+    public synchronized Optional<InputStream> open(@NonNull Entry entry) throws IOException {
+        if (!sizes.containsKey(entry.getId())) return Optional.empty();
+        try {
+            return Optional.of(Files.newInputStream(directory.resolve(entry.getId() + BODY)));
+        } catch (NoSuchFileException e) {
+            remove(entry.getId());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Mark an entry as checked with the server, so its age starts again from now.
+     */
+    public synchronized void refresh(@NonNull Entry entry) throws IOException {
+        if (!sizes.containsKey(entry.getId())) return;
+        writeMeta(entry.getId(), entry.getUrl(), entry.getEtag(), entry.getLastModified());
+    }
+
+    /**
+     * @param id The digest of the request.
+     * @return A temporary file to write a new body to, before it is stored with {@link #store}.
+     */
+    public Path newBodyFile(@NonNull String id) throws IOException {
+        return Files.createTempFile(directory, id, TEMP);
+    }
+
+    /**
+     * Store a complete body in the cache, replacing any existing entry, and evict the least recently
+     * used entries until the cache is within its size limit.
+     *
+     * @param id The digest of the request.
+     * @param url The URL of the request, stored for diagnostics only.
+     * @param body A file created by {@link #newBodyFile} containing the body. It is moved into the cache.
+     * @param etag The {@code ETag} sent by the server, may be null.
+     * @param lastModified The {@code Last-Modified} header sent by the server, may be null.
+     */
+    public synchronized void store(@NonNull String id, String url, @NonNull Path body, String etag,
+                                   String lastModified) throws IOException {
+        long size = Files.size(body);
+        if (size > maxBytes) {
+            Files.deleteIfExists(body);
+            return;
+        }
+        writeMeta(id, url, etag, lastModified);
+        Files.move(body, directory.resolve(id + BODY), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Long previous = sizes.put(id, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(id)) continue;
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            delete(entry.getKey());
+        }
+    }
+
+    private void writeMeta(String id, String url, String etag, String lastModified) throws IOException {
+        Properties meta = new Properties();
+        if (url != null) meta.setProperty(URL, url);
+        if (etag != null) meta.setProperty(ETAG, etag);
+        if (lastModified != null) meta.setProperty(LAST_MODIFIED, lastModified);
+        meta.setProperty(STORED, Long.toString(System.currentTimeMillis()));
+        Path temp = Files.createTempFile(directory, id, TEMP);
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            meta.store(out, null);
+        }
+        Files.move(temp, directory.resolve(id + META), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void remove(String id) {
+        Long size = sizes.remove(id);
+        if (size != null) totalBytes -= size;
+        delete(id);
+    }
+
+    private void delete(String id) {
+        try {
+            Files.deleteIfExists(directory.resolve(id + BODY));
+            Files.deleteIfExists(directory.resolve(id + META));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to evict cache entry " + id, e);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * A cached response and the validators that can be used to check it is still current.
+     */
+    @Getter
+    public static class Entry {
+        private final String id;
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final Instant stored;
+
+        Entry(String id, String url, String etag, String lastModified, Instant stored) {
+            this.id = id;
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.stored = stored;
+        }
+
+        /**
+         * @return True if the server sent a validator that can be used in a conditional request.
+         */
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+}
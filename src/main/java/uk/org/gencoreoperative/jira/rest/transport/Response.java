@@ -0,0 +1,51 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.Closeable;
+import java.io.InputStream;
+
+/**
+ * The response to a request performed by a {@link Transport}.
+ * <p>
+ * The response must be closed once the body has been read, so that the underlying
+ * connection can be returned for reuse. Closing the body also closes the response.
+ */
+public interface Response extends Closeable {
+    /**
+     * @return The HTTP status code of the response.
+     */
+    int getStatus();
+
+    /**
+     * @param name The case insensitive name of the header.
+     * @return The first value of the header, or null if it was not present.
+     */
+    String getHeader(String name);
+
+    /**
+     * @return The body of the response. For error responses this is the error body, which may be empty.
+     */
+    InputStream getBody();
+}
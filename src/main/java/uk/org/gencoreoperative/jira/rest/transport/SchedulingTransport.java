@@ -0,0 +1,242 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.NonNull;
+
+/**
+ * A {@link Transport} that schedules requests so that an export can run as fast as the server
+ * allows without being throttled, and retries the requests the server could not handle.
+ * <p>
+ * A request is retried when the server is throttling ({@code 429}), is unavailable ({@code 502},
+ * {@code 503} or {@code 504}), or could not be reached. When the server sends a
+ * {@code Retry-After} header every request waits for that long, as the limit applies to the
+ * account rather than the request. Otherwise the request backs off exponentially, with jitter so
+ * that parallel requests do not retry together. Only the failed request is retried, so an export
+ * carries on from the page that failed.
+ * <p>
+ * Once a response has been returned its body belongs to the caller, so a connection lost while the
+ * body is being read is not retried here. The client requests such a page again itself.
+ * <p>
+ * The number of requests in flight is limited by an {@link AdaptiveLimit}, which backs off when
+ * the server throttles requests or slows down and grows again when it recovers.
+ */
+public class SchedulingTransport implements Transport {
+    static final long BASE_DELAY = 500;
+    static final long MAX_DELAY = 30_000;
+
+    private final Transport delegate;
+    private final int maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final Sleeper sleeper;
+    private final AdaptiveLimit limit;
+    private volatile long pausedUntil = System.nanoTime();
+
+    /**
+     * @param delegate The transport to perform the requests.
+     * @param maxConcurrency The most requests to have in flight at once.
+     * @param maxRetries The number of times to retry a request before giving up.
+     */
+    public SchedulingTransport(@NonNull Transport delegate, int maxConcurrency, int maxRetries) {
+        this(delegate, maxConcurrency, maxRetries, BASE_DELAY, MAX_DELAY, TimeUnit.MILLISECONDS::sleep);
+    }
+
+    SchedulingTransport(Transport delegate, int maxConcurrency, int maxRetries,
+                        long baseDelay, long maxDelay, Sleeper sleeper) {
+        this.delegate = delegate;
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.sleeper = sleeper;
+        this.limit = new AdaptiveLimit(maxConcurrency);
+    }
+
+    /**
+     * @return The response to the request, or the last failed response once the retries are used up.
+     */
+    @Override
+    public Response get(@NonNull URL url, @NonNull Map<String, String> headers) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            pause(pausedUntil - System.nanoTime());
+            acquire();
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = delegate.get(url, headers);
+            } catch (IOException e) {
+                limit.release(System.nanoTime() - start, true);
+                if (attempt >= maxRetries) throw e;
+                retry(attempt, null);
+                continue;
+            }
+            long latency = System.nanoTime() - start;
+            if (!isRetryable(response.getStatus()) || attempt >= maxRetries) {
+                return new ScheduledResponse(response, latency);
+            }
+            String retryAfter = response.getHeader("Retry-After");
+            response.close();
+            limit.release(latency, true);
+            retry(attempt, retryAfter);
+        }
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return delegate.getStats();
+    }
+
+    /**
+     * @return The number of requests that can currently be in flight.
+     */
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    static boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * Wait before the next attempt, pausing every request if the server asked us to.
+     */
+    private void retry(int attempt, String retryAfter) throws IOException {
+        getStats().recordRetry();
+        long wait = parseRetryAfter(retryAfter);
+        if (wait >= 0) {
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait);
+            synchronized (this) {
+                if (until - pausedUntil > 0) pausedUntil = until;
+            }
+        } else {
+            long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt, 20));
+            pause(TimeUnit.MILLISECONDS.toNanos(ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1)));
+        }
+    }
+
+    /**
+     * @param value The value of a {@code Retry-After} header, either a number of seconds or a date.
+     * @return The number of milliseconds to wait, or -1 if there was no valid value.
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null || value.trim().isEmpty()) return -1;
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(trimmed)));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+
+    private void pause(long nanos) throws IOException {
+        if (nanos <= 0) return;
+        try {
+            sleeper.sleep(TimeUnit.NANOSECONDS.toMillis(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to retry");
+        }
+    }
+
+    private void acquire() throws IOException {
+        try {
+            limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to send a request");
+        }
+    }
+
+    /**
+     * Waits for a number of milliseconds.
+     */
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * Holds its place in the limit until it is closed.
+     */
+    private class ScheduledResponse implements Response {
+        private final Response response;
+        private final InputStream body;
+        private final long latency;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ScheduledResponse(Response response, long latency) {
+            this.response = response;
+            this.latency = latency;
+            this.body = new FilterInputStream(response.getBody()) {
+                @Override
+                public void close() throws IOException {
+                    ScheduledResponse.this.close();
+                }
+            };
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.getHeader(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) return;
+            try {
+                response.close();
+            } finally {
+                limit.release(latency, isRetryable(response.getStatus()));
+            }
+        }
+    }
+}
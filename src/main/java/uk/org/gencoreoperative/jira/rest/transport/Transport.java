@@ -0,0 +1,52 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * The HTTP transport used by the {@link uk.org.gencoreoperative.jira.rest.RESTClient} to
+ * perform requests against JIRA.
+ * <p>
+ * Implementations are expected to be thread safe and to reuse connections between requests
+ * where they can, as the client may perform many requests in parallel against the same server.
+ */
+public interface Transport {
+    /**
+     * Perform an HTTP GET request.
+     *
+     * @param url The URL to request.
+     * @param headers Request headers to include in the request.
+     * @return The {@link Response}, which the caller must close once the body has been read.
+     * @throws IOException If the request could not be performed.
+     */
+    Response get(URL url, Map<String, String> headers) throws IOException;
+
+    /**
+     * @return Counters describing the requests performed by this transport.
+     */
+    TransportStats getStats();
+}
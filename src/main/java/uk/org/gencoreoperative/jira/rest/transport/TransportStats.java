@@ -0,0 +1,172 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.ToString;
+
+/**
+ * Counters describing the work performed by a {@link Transport}.
+ * <p>
+ * A handshake is counted each time a TLS session is established. A connection taken from
+ * the keep-alive cache does not need a handshake, so the difference between the number of
+ * requests over TLS and handshakes is the number of requests that reused a connection. Plain
+ * HTTP connections are opened without anything to count, so their reuse is {@link #UNKNOWN}.
+ * Handshakes that resumed an earlier TLS session are cheaper than full handshakes and are also
+ * counted separately.
+ * <p>
+ * Where responses are compressed, the wire bytes are the bytes received from the server
+ * and the decoded bytes are the bytes after decompression. Without compression the two
+ * are the same.
+ * <p>
+ * Responses served from a cache count as a cache hit. A cache hit that was revalidated with
+ * the server also counts as a request.
+ * <p>
+ * A request that failed and was tried again counts as a retry as well as a request.
+ */
+@ToString
+public class TransportStats {
+    public static final int UNKNOWN = -1;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong secureRequests = new AtomicLong();
+    private final AtomicLong handshakes = new AtomicLong();
+    private final AtomicLong resumedHandshakes = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong decodedBytes = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * Record a request whose connection is not known.
+     */
+    public void recordRequest() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * @param secure True if the request was made over TLS, so that a new connection records a handshake.
+     */
+    public void recordRequest(boolean secure) {
+        requests.incrementAndGet();
+        if (secure) secureRequests.incrementAndGet();
+    }
+
+    public void recordHandshake(boolean resumed) {
+        handshakes.incrementAndGet();
+        if (resumed) resumedHandshakes.incrementAndGet();
+    }
+
+    public void recordWireBytes(long count) {
+        wireBytes.addAndGet(count);
+    }
+
+    public void recordDecodedBytes(long count) {
+        decodedBytes.addAndGet(count);
+    }
+
+    public void recordCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    public void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of requests made over TLS.
+     */
+    public long getSecureRequests() {
+        return secureRequests.get();
+    }
+
+    public long getHandshakes() {
+        return handshakes.get();
+    }
+
+    public long getResumedHandshakes() {
+        return resumedHandshakes.get();
+    }
+
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    /**
+     * @return The number of responses that were served from a cache rather than downloaded.
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return The number of requests that were tried again after the server throttled or failed them.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return The decoded size of the responses divided by their size on the wire, or 1 if nothing has been read.
+     */
+    public double getCompressionRatio() {
+        long wire = getWireBytes();
+        return wire == 0 ? 1 : (double) getDecodedBytes() / wire;
+    }
+
+    /**
+     * @return The number of requests over TLS that were performed on a connection that was already
+     * established, or {@link #UNKNOWN} if no request was made over TLS.
+     */
+    public long getReused() {
+        long secure = getSecureRequests();
+        return secure == 0 ? UNKNOWN : Math.max(0, secure - getHandshakes());
+    }
+
+    /**
+     * @return The proportion of requests that required a TLS handshake, between 0 and 1.
+     */
+    public double getHandshakeRate() {
+        long count = getRequests();
+        return count == 0 ? 0 : Math.min(1, (double) getHandshakes() / count);
+    }
+
+    /**
+     * @return The proportion of requests over TLS that reused an established connection, between 0 and 1,
+     * or {@link #UNKNOWN} if no request was made over TLS.
+     */
+    public double getReuseRate() {
+        long secure = getSecureRequests();
+        return secure == 0 ? UNKNOWN : 1 - Math.min(1, (double) getHandshakes() / secure);
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.config.Config;
+
+/**
+ * Creates the {@link Transport} described by a {@link Config}.
+ * <p>
+ * The HTTP/2 transport is only packaged for Java 11 and later, in the versioned section of
+ * the multi-release jar, so it is looked up by name. When it cannot be loaded, for example
+ * on Java 8, the {@link URLConnectionTransport} is used instead and a warning is logged.
+ * <p>
+ * Unless it has been disabled, responses are compressed using a {@link CompressingTransport}.
+ * Requests are scheduled and retried by a {@link SchedulingTransport}.
+ */
+public class Transports {
+    private static final String HTTP2_TRANSPORT = "uk.org.gencoreoperative.jira.rest.transport.HttpClientTransport";
+    private static final Logger LOGGER = Logger.getLogger(Transports.class.getName());
+
+    private Transports() {
+    }
+
+    /**
+     * @param config The configuration for the client.
+     * @return A new {@link Transport} configured with the connection settings of the {@link Config}.
+     */
+    public static Transport create(@NonNull Config config) {
+        Transport transport = createConnection(config);
+        if (!config.isDisableCompression()) transport = new CompressingTransport(transport);
+        return new SchedulingTransport(transport, config.getMaxConnections(), config.getMaxRetries());
+    }
+
+    /**
+     * @return The transport that makes the requests, before compression and scheduling.
+     */
+    static Transport createConnection(Config config) {
+        if (config.isHttp2()) {
+            Transport transport = createHttp2(config);
+            if (transport != null) return transport;
+        }
+        return new URLConnectionTransport(
+                config.getConnectTimeout(),
+                config.getReadTimeout(),
+                config.getMaxConnections(),
+                config.getIdleTimeout());
+    }
+
+    private static Transport createHttp2(Config config) {
+        try {
+            return (Transport) Class.forName(HTTP2_TRANSPORT)
+                    .getConstructor(int.class, int.class, int.class, int.class)
+                    .newInstance(
+                            config.getConnectTimeout(),
+                            config.getReadTimeout(),
+                            config.getMaxConnections(),
+                            config.getIdleTimeout());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.log(Level.WARNING, "HTTP/2 needs Java 11 or later, using HTTP/1.1 instead: " + e);
+            return null;
+        }
+    }
+}
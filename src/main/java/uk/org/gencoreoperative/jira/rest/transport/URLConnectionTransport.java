@@ -0,0 +1,209 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import lombok.NonNull;
+
+/**
+ * A {@link Transport} based on {@link HttpURLConnection}.
+ * <p>
+ * Connections are pooled by the JDK keep-alive cache. A connection is only returned to
+ * that cache once its response has been read to the end and closed, including error
+ * responses, so this transport always drains the response before releasing it. The
+ * number of idle connections the cache keeps per host is set by the
+ * {@code http.maxConnections} system property, which is read once by the JDK when it is
+ * first used. This transport sets it, unless it has already been set, and limits the
+ * requests in flight to each host to the same number. Without this limit, requests beyond
+ * the size of the cache would each open a connection that is then discarded after use.
+ * <p>
+ * Idle connections are evicted by the JDK after the keep-alive timeout the server sends,
+ * or after {@code http.keepAlive.time.server} seconds where the JDK supports it (Java 20
+ * onwards). This transport sets that property in the same way.
+ * <p>
+ * A response closed with more than {@link #DRAIN_LIMIT} left to read is not drained, and its
+ * connection is discarded. The JDK would otherwise read up to {@code http.KeepAlive.remainingData}
+ * kilobytes of it on a background thread to keep the connection, so this transport sets that
+ * property to the same limit.
+ */
+public class URLConnectionTransport implements Transport {
+    private static final String MAX_CONNECTIONS = "http.maxConnections";
+    private static final String KEEP_ALIVE_TIME = "http.keepAlive.time.server";
+    private static final String REMAINING_DATA = "http.KeepAlive.remainingData";
+    /**
+     * The most we will read from an abandoned response to keep its connection. Beyond this
+     * it is cheaper to open a new connection than to read the rest of the response.
+     */
+    private static final long DRAIN_LIMIT = 64 * 1024;
+
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int maxConnectionsPerHost;
+    private final TransportStats stats = new TransportStats();
+    private final CountingSSLSocketFactory socketFactory =
+            new CountingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(), stats);
+    private final Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param connectTimeout The timeout in milliseconds for establishing a connection, zero for no timeout.
+     * @param readTimeout The timeout in milliseconds between reads from a connection, zero for no timeout.
+     * @param maxConnectionsPerHost The maximum number of connections to each host.
+     * @param idleTimeout The number of seconds that idle connections are kept for reuse.
+     */
+    public URLConnectionTransport(int connectTimeout, int readTimeout, int maxConnectionsPerHost, int idleTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        setDefault(MAX_CONNECTIONS, maxConnectionsPerHost);
+        setDefault(KEEP_ALIVE_TIME, idleTimeout);
+        setDefault(REMAINING_DATA, (int) (DRAIN_LIMIT / 1024));
+    }
+
+    @Override
+    public Response get(@NonNull URL url, @NonNull Map<String, String> headers) throws IOException {
+        Semaphore permits = hosts.computeIfAbsent(url.getProtocol() + "://" + url.getAuthority(),
+                host -> new Semaphore(maxConnectionsPerHost, true));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a connection to " + url.getAuthority(), e);
+        }
+        boolean released = false;
+        try {
+            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            stats.recordRequest(conn instanceof HttpsURLConnection);
+            if (conn instanceof HttpsURLConnection) {
+                ((HttpsURLConnection) conn).setSSLSocketFactory(socketFactory);
+            }
+            conn.setConnectTimeout(connectTimeout);
+            conn.setReadTimeout(readTimeout);
+            headers.forEach(conn::setRequestProperty);
+            int status;
+            try {
+                status = conn.getResponseCode();
+            } catch (IOException e) {
+                drain(conn.getErrorStream());
+                throw e;
+            }
+            InputStream body = status < HttpURLConnection.HTTP_BAD_REQUEST
+                    ? conn.getInputStream() : conn.getErrorStream();
+            released = true;
+            return new ConnectionResponse(conn, status, body, permits);
+        } finally {
+            if (!released) permits.release();
+        }
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return stats;
+    }
+
+    private static void setDefault(String property, int value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, Integer.toString(value));
+        }
+    }
+
+    /**
+     * Read the remainder of the stream and close it, which returns the connection to the
+     * keep-alive cache.
+     * @return False if the stream had more than {@link #DRAIN_LIMIT} bytes remaining, in which case
+     * the stream is closed without reading the rest and the connection should be discarded.
+     */
+    private static boolean drain(InputStream stream) throws IOException {
+        if (stream == null) return true;
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[8192];
+            long remaining = DRAIN_LIMIT;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                remaining -= read;
+                if (remaining < 0) return false;
+            }
+            return true;
+        }
+    }
+
+    private static class ConnectionResponse implements Response {
+        private final HttpURLConnection conn;
+        private final int status;
+        private final InputStream stream;
+        private final InputStream body;
+        private final Semaphore permits;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ConnectionResponse(HttpURLConnection conn, int status, InputStream stream, Semaphore permits) {
+            this.conn = conn;
+            this.status = status;
+            this.stream = stream == null ? new ByteArrayInputStream(new byte[0]) : stream;
+            this.permits = permits;
+            this.body = new FilterInputStream(this.stream) {
+                @Override
+                public void close() throws IOException {
+                    ConnectionResponse.this.close();
+                }
+            };
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return conn.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed.compareAndSet(false, true)) {
+                try {
+                    if (!drain(stream)) conn.disconnect();
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
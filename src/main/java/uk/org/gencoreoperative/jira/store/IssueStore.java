@@ -0,0 +1,427 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.gson.Gson;
+
+import lombok.NonNull;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+
+/**
+ * A local store of issues that can be looked up by key without loading them into the heap.
+ * <p>
+ * Issues are appended as JSON to a data file that is mapped into memory in segments of 64MB,
+ * each record holding the key of the issue followed by its JSON. The file grows a segment at a
+ * time. An index file, also mapped, holds an open addressing hash table from key to the offset of
+ * the latest record for that key, so a lookup is a hash probe and a read from the mapping. The
+ * index doubles in size when it is half full. Adding an issue that is already in the store
+ * replaces it, leaving the old record unused in the data file.
+ * <p>
+ * {@link #getRaw(String)} and {@link #records()} return the JSON as read only views of the
+ * mapping, without copying it. {@link #get(String)} and {@link #iterator()} decode the JSON into
+ * an {@link Issue}.
+ * <p>
+ * Changes are written to the disk by {@link #flush()}, and when the store is closed. A store is
+ * not safe to use from several threads while issues are being added.
+ * <pre>
+ * data:   int magic, int version, long end, int segment size, int unused, then records of
+ *         int length, int key length, key bytes, JSON bytes
+ * index:  int magic, int version, int capacity, int count, then a long per slot
+ *         holding the offset of the record plus one, or zero if empty
+ * </pre>
+ */
+public class IssueStore implements Closeable, Iterable<Issue> {
+    public static final String DATA = "issues.dat";
+    public static final String INDEX = "issues.idx";
+    static final int DEFAULT_SEGMENT = 1 << 26;
+    private static final int DATA_MAGIC = 0x4A535452;
+    private static final int INDEX_MAGIC = 0x4A494458;
+    private static final int VERSION = 1;
+    private static final int HEADER = 24;
+    private static final int INDEX_HEADER = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * The largest index that can be mapped in one piece.
+     */
+    private static final int MAX_CAPACITY = 1 << 27;
+    /**
+     * Marks the rest of a segment as unused when the next record does not fit in it.
+     */
+    private static final int PADDING = -1;
+    private static final Gson GSON = ModelAdapters.gson();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel data;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    private long end;
+
+    private IssueStore(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.data = FileChannel.open(directory.resolve(DATA), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (data.size() == 0) {
+                this.segmentSize = segmentSize;
+                end = HEADER;
+                segment(0).putInt(0, DATA_MAGIC).putInt(4, VERSION).putLong(8, end).putInt(16, segmentSize);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                while (header.hasRemaining()) {
+                    if (data.read(header, header.position()) == -1) break;
+                }
+                if (header.hasRemaining() || header.getInt(0) != DATA_MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Not an issue store: " + directory);
+                }
+                this.segmentSize = header.getInt(16);
+                end = header.getLong(8);
+            }
+            openIndex();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param directory The directory of the store, which is created if it does not exist.
+     * @return The store, which the caller must close.
+     */
+    public static IssueStore open(@NonNull Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT);
+    }
+
+    /**
+     * @param segmentSize The size of the segments the data file is mapped in, only used for a new store.
+     */
+    static IssueStore open(Path directory, int segmentSize) throws IOException {
+        Files.createDirectories(directory);
+        return new IssueStore(directory, segmentSize);
+    }
+
+    /**
+     * Add an issue, replacing any issue with the same key.
+     *
+     * @param issue The issue, which must have a key.
+     */
+    public void put(@NonNull Issue issue) throws IOException {
+        if (issue.getKey() == null) throw new IllegalArgumentException("The issue has no key: " + issue);
+        byte[] key = issue.getKey().getBytes(StandardCharsets.UTF_8);
+        long offset = append(key, GSON.toJson(issue).getBytes(StandardCharsets.UTF_8));
+        int slot = slot(issue.getKey(), key);
+        if (index.getLong(slotPosition(slot)) == 0) {
+            if (2L * (count + 1) > capacity) {
+                if (capacity == MAX_CAPACITY) throw new IOException("The store is full: " + count + " issues");
+                resize(capacity * 2);
+                slot = slot(issue.getKey(), key);
+            }
+            index.putInt(12, ++count);
+        }
+        index.putLong(slotPosition(slot), offset + 1);
+    }
+
+    /**
+     * @param key The key of an issue, for example {@code OPENAM-16598}.
+     * @return The issue, or null if it is not in the store.
+     */
+    public Issue get(@NonNull String key) {
+        ByteBuffer json = getRaw(key);
+        return json == null ? null : decode(json);
+    }
+
+    /**
+     * @param key The key of an issue.
+     * @return A read only view of the JSON of the issue, or null if it is not in the store. The view
+     * is only valid until the store is closed.
+     */
+    public ByteBuffer getRaw(@NonNull String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long entry = index.getLong(slotPosition(slot(key, bytes)));
+        return entry == 0 ? null : json(entry - 1);
+    }
+
+    /**
+     * @return The number of issues in the store.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The JSON of each issue in the store, in the order they were first added, as read only
+     * views that are only valid until the store is closed.
+     */
+    public Iterator<ByteBuffer> records() {
+        return new Iterator<ByteBuffer>() {
+            private long position = HEADER;
+            private ByteBuffer next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && position < end) {
+                    ByteBuffer segment = segments.get(segmentOf(position));
+                    int within = withinSegment(position);
+                    int length = within + 4 <= segmentSize ? segment.getInt(within) : PADDING;
+                    if (length == PADDING) {
+                        position = (long) (segmentOf(position) + 1) * segmentSize;
+                        continue;
+                    }
+                    if (isCurrent(position)) next = json(position);
+                    position += 4 + length;
+                }
+                return next != null;
+            }
+
+            @Override
+            public ByteBuffer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ByteBuffer result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * @return Each issue in the store, decoded from its JSON, in the order they were first added.
+     */
+    @Override
+    public Iterator<Issue> iterator() {
+        Iterator<ByteBuffer> records = records();
+        return new Iterator<Issue>() {
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public Issue next() {
+                return decode(records.next());
+            }
+        };
+    }
+
+    /**
+     * Write the changes to the disk.
+     */
+    public void flush() {
+        segments.get(0).putLong(8, end);
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        if (index != null) index.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!segments.isEmpty()) flush();
+        } finally {
+            try {
+                data.close();
+            } finally {
+                if (indexChannel != null) indexChannel.close();
+            }
+        }
+    }
+
+    /**
+     * @return The offset of the new record.
+     */
+    private long append(byte[] key, byte[] json) throws IOException {
+        int length = 4 + key.length + json.length;
+        if (4 + length > segmentSize) {
+            throw new IOException("The issue is too large to store: " + length + " bytes");
+        }
+        if (withinSegment(end) + 4 + length > segmentSize) {
+            if (withinSegment(end) + 4 <= segmentSize) segment(segmentOf(end)).putInt(withinSegment(end), PADDING);
+            end = (long) (segmentOf(end) + 1) * segmentSize;
+        }
+        long offset = end;
+        ByteBuffer segment = segment(segmentOf(offset)).duplicate();
+        segment.position(withinSegment(offset));
+        segment.putInt(length).putInt(key.length).put(key).put(json);
+        end = offset + 4 + length;
+        segments.get(0).putLong(8, end);
+        return offset;
+    }
+
+    /**
+     * @return The slot holding the key, or the empty slot where it would be added.
+     */
+    private int slot(String key, byte[] bytes) {
+        int hash = key.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (capacity - 1);
+        while (true) {
+            long entry = index.getLong(slotPosition(slot));
+            if (entry == 0 || keyEquals(entry - 1, bytes)) return slot;
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private boolean isCurrent(long offset) {
+        ByteBuffer key = key(offset);
+        byte[] bytes = new byte[key.remaining()];
+        key.get(bytes);
+        long entry = index.getLong(slotPosition(slot(new String(bytes, StandardCharsets.UTF_8), bytes)));
+        return entry == offset + 1;
+    }
+
+    private boolean keyEquals(long offset, byte[] expected) {
+        ByteBuffer segment = segments.get(segmentOf(offset));
+        int within = withinSegment(offset);
+        if (segment.getInt(within + 4) != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (segment.get(within + 8 + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private ByteBuffer key(long offset) {
+        ByteBuffer segment = segments.get(segmentOf(offset));
+        int within = withinSegment(offset);
+        return view(segment, within + 8, segment.getInt(within + 4));
+    }
+
+    private ByteBuffer json(long offset) {
+        ByteBuffer segment = segments.get(segmentOf(offset));
+        int within = withinSegment(offset);
+        int length = segment.getInt(within);
+        int keyLength = segment.getInt(within + 4);
+        return view(segment, within + 8 + keyLength, length - 4 - keyLength);
+    }
+
+    private static ByteBuffer view(ByteBuffer segment, int position, int length) {
+        ByteBuffer view = segment.duplicate();
+        view.limit(position + length).position(position);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    private static Issue decode(ByteBuffer json) {
+        return GSON.fromJson(StandardCharsets.UTF_8.decode(json.duplicate()).toString(), Issue.class);
+    }
+
+    private int segmentOf(long offset) {
+        return Math.toIntExact(offset / segmentSize);
+    }
+
+    private int withinSegment(long offset) {
+        return (int) (offset % segmentSize);
+    }
+
+    /**
+     * @return The segment, mapping it and any before it if they have not been mapped yet.
+     */
+    private MappedByteBuffer segment(int number) throws IOException {
+        while (segments.size() <= number) {
+            segments.add(data.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize));
+        }
+        return segments.get(number);
+    }
+
+    private void openIndex() throws IOException {
+        for (int i = 1; i <= segmentOf(end - 1); i++) {
+            segment(i);
+        }
+        Path file = directory.resolve(INDEX);
+        if (Files.exists(file)) {
+            indexChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(INDEX_HEADER, indexChannel.size()));
+            if (header.remaining() == INDEX_HEADER
+                    && header.getInt(0) == INDEX_MAGIC && header.getInt(4) == VERSION) {
+                capacity = header.getInt(8);
+                count = header.getInt(12);
+                index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, slotPosition(capacity));
+                return;
+            }
+            throw new IOException("Not an issue store index: " + file);
+        }
+        indexChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        index = createIndex(indexChannel, INITIAL_CAPACITY);
+        capacity = INITIAL_CAPACITY;
+    }
+
+    private static MappedByteBuffer createIndex(FileChannel channel, int capacity) throws IOException {
+        MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0, slotPosition(capacity));
+        index.putInt(0, INDEX_MAGIC).putInt(4, VERSION).putInt(8, capacity).putInt(12, 0);
+        return index;
+    }
+
+    /**
+     * Move every entry into a new index with the given capacity, which replaces the old one in a single step.
+     */
+    private void resize(int newCapacity) throws IOException {
+        Path file = directory.resolve(INDEX);
+        Path temp = directory.resolve(INDEX + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer resized = createIndex(channel, newCapacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            long entry = index.getLong(slotPosition(slot));
+            if (entry == 0) continue;
+            ByteBuffer key = key(entry - 1);
+            byte[] bytes = new byte[key.remaining()];
+            key.get(bytes);
+            int hash = new String(bytes, StandardCharsets.UTF_8).hashCode();
+            int target = (hash ^ (hash >>> 16)) & (newCapacity - 1);
+            while (resized.getLong(slotPosition(target)) != 0) {
+                target = (target + 1) & (newCapacity - 1);
+            }
+            resized.putLong(slotPosition(target), entry);
+        }
+        resized.putInt(12, count);
+        resized.force();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexChannel.close();
+        indexChannel = channel;
+        index = resized;
+        capacity = newCapacity;
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER + 8 * slot;
+    }
+}
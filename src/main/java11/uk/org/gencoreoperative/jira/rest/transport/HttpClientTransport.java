@@ -0,0 +1,161 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * A {@link Transport} based on the Java 11 {@link HttpClient}.
+ * <p>
+ * The client negotiates HTTP/2 where the server supports it, in which case every request
+ * to the server is multiplexed over a single connection and parallel page requests do not
+ * need connections of their own. Servers that only support HTTP/1.1 are handled by the
+ * client's own connection pool, which is sized by {@code jdk.httpclient.connectionPoolSize}
+ * with idle connections evicted after {@code jdk.httpclient.keepalive.timeout} seconds.
+ * This transport sets both properties, unless they have already been set.
+ * <p>
+ * This class is only compiled for Java 11 and later, and is packaged in the versioned
+ * section of the multi-release jar. It is created by {@link Transports} when it is
+ * available and HTTP/2 has been requested.
+ * <p>
+ * The read timeout applies to receiving the response headers. {@link HttpClient} has no
+ * timeout for reading the body of the response.
+ * <p>
+ * Requests are sent with the blocking {@link HttpClient#send}, not {@code sendAsync}, as a
+ * {@link Transport} returns the response to the thread that asked for it. Pages are requested in
+ * parallel by the threads of the paging iterators, which HTTP/2 multiplexes over one connection.
+ */
+public class HttpClientTransport implements Transport {
+    private static final String POOL_SIZE = "jdk.httpclient.connectionPoolSize";
+    private static final String KEEP_ALIVE_TIME = "jdk.httpclient.keepalive.timeout";
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final TransportStats stats = new TransportStats();
+    private final Map<SSLSession, Boolean> sessions = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @param connectTimeout The timeout in milliseconds for establishing a connection.
+     * @param readTimeout The timeout in milliseconds to wait for the response headers.
+     * @param maxConnectionsPerHost The maximum number of HTTP/1.1 connections to keep in the pool.
+     * @param idleTimeout The number of seconds that idle connections are kept for reuse.
+     */
+    public HttpClientTransport(int connectTimeout, int readTimeout, int maxConnectionsPerHost, int idleTimeout) {
+        setDefault(POOL_SIZE, maxConnectionsPerHost);
+        setDefault(KEEP_ALIVE_TIME, idleTimeout);
+        this.readTimeout = Duration.ofMillis(readTimeout);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+    }
+
+    @Override
+    public Response get(URL url, Map<String, String> headers) throws IOException {
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(url.toURI()).timeout(readTimeout).GET();
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+        headers.forEach(request::header);
+        stats.recordRequest("https".equalsIgnoreCase(url.getProtocol()));
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + url, e);
+        }
+        response.sslSession().ifPresent(this::recordSession);
+        return new ClientResponse(response);
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return stats;
+    }
+
+    /**
+     * The client does not expose its handshakes, so a handshake is counted for each TLS
+     * session that has not been seen before.
+     */
+    private void recordSession(SSLSession session) {
+        if (sessions.put(session, Boolean.TRUE) == null) {
+            stats.recordHandshake(false);
+        }
+    }
+
+    private static void setDefault(String property, int value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, Integer.toString(value));
+        }
+    }
+
+    private static class ClientResponse implements Response {
+        private final HttpResponse<InputStream> response;
+
+        ClientResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.body();
+        }
+
+        /**
+         * Closing the body before the end cancels the request. Over HTTP/2 this only resets
+         * the one stream, so unlike HTTP/1.1 there is no need to drain the body to keep the
+         * connection.
+         */
+        @Override
+        public void close() throws IOException {
+            response.body().close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class ConfigTest {
+    {
+        describe(Config.class.getSimpleName(), () -> {
+            when("parsing the defaults", () -> {
+                it("accepts every default value", () -> {
+                    Config config = new Config();
+                    new JCommander(config).parse("--help");
+                    assertThat(config.isHelp()).isTrue();
+                    assertThat(config.getShards()).isZero();
+                });
+            });
+            when("parsing the number of retries", () -> {
+                it("accepts no retries", () -> {
+                    Config config = new Config();
+                    new JCommander(config).parse("--help", "--maxRetries", "0");
+                    assertThat(config.getMaxRetries()).isZero();
+                });
+                it("rejects a negative number", () -> {
+                    assertThatThrownBy(() -> new JCommander(new Config()).parse("--help", "--maxRetries", "-1"))
+                            .isInstanceOf(ParameterException.class);
+                });
+            });
+        });
+    }
+}
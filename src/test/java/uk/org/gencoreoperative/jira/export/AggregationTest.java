@@ -0,0 +1,127 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.metrics.ExportListener;
+import uk.org.gencoreoperative.jira.rest.FakeJiraFixture;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class AggregationTest {
+    private Config config;
+    private RESTClient client;
+    private List<String> requested;
+
+    {
+        describe(Aggregation.class.getSimpleName(), () -> {
+            FakeJiraFixture jira = FakeJiraFixture.eachTest(230, 50);
+            beforeEach(() -> {
+                config = jira.config();
+                config.setConcurrency(2);
+                client = new RESTClient(config);
+                requested = new CopyOnWriteArrayList<>();
+                client.addListener(new ExportListener() {
+                    @Override
+                    public void requestCompleted(URL url, int status, long nanos) {
+                        if (url.getPath().endsWith("/search")) requested.add(url.getQuery());
+                    }
+                });
+            });
+
+            when("counting by a field", () -> {
+                it("counts the issues of each component, asking only for the components", () -> {
+                    Map<String, Long> counts = new Aggregation(client, config).countBy(config.getJql(), "Component/s");
+                    assertThat(counts).hasSize(20).containsEntry("component-0", 12L).containsEntry("component-19", 11L);
+                    assertThat(counts.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(230);
+                    assertThat(requested).hasSize(5).allMatch(query -> query.contains("fields=components&"));
+                });
+                it("puts the largest groups first", () -> {
+                    Map<String, Long> counts = new Aggregation(client, config).countBy(config.getJql(), "Team");
+                    assertThat(counts)
+                            .containsExactly(entry("Team 0", 77L), entry("Team 1", 77L), entry("Team 2", 76L));
+                    assertThat(requested).allMatch(query -> query.contains("fields=customfield_10020&"));
+                });
+                it("counts an issue in the group of each of its values", () -> {
+                    Map<String, Long> counts = new Aggregation(client, config).countBy(config.getJql(), "labels");
+                    assertThat(counts).containsExactly(entry("synthetic", 230L), entry("batch-0", 46L),
+                            entry("batch-1", 46L), entry("batch-2", 46L), entry("batch-3", 46L), entry("batch-4", 46L));
+                });
+                it("groups whole numbers without a fraction", () -> {
+                    Map<String, Long> counts = new Aggregation(client, config).countBy(config.getJql(), "Story Points");
+                    assertThat(counts).containsOnlyKeys("0", "1", "2", "3", "4", "5", "6", "7");
+                    assertThat(counts.get("0")).isEqualTo(29L);
+                });
+                it("rejects fields the server does not have", () -> {
+                    assertThatThrownBy(() -> new Aggregation(client, config).countBy(config.getJql(), "Severity"))
+                            .isInstanceOf(IllegalArgumentException.class)
+                            .hasMessageContaining("Severity");
+                });
+            });
+            when("counting each of the given groups", () -> {
+                it("counts each group without reading any issues", () -> {
+                    Map<String, Long> counts = new Aggregation(client, config).countEach(config.getJql(),
+                            "components", Arrays.asList("component-3", "component-15", Aggregation.NONE));
+                    assertThat(counts).containsExactly(entry("component-3", 12L), entry("component-15", 11L),
+                            entry(Aggregation.NONE, 0L));
+                    assertThat(jira.server().getRequests()).isEqualTo(3);
+                    assertThat(requested).allMatch(query -> query.contains("maxResults=0"));
+                });
+                it("names custom fields by their number", () -> {
+                    Map<String, Long> counts = new Aggregation(client, config).countEach(config.getJql(),
+                            "Team", Arrays.asList("Team 2"));
+                    assertThat(counts).containsExactly(entry("Team 2", 76L));
+                });
+                it("rejects text fields, which cannot be searched for a value", () -> {
+                    Aggregation aggregation = new Aggregation(client, config);
+                    for (String field : Arrays.asList("summary", "Description", "Notes")) {
+                        assertThatThrownBy(() -> aggregation.countEach(config.getJql(), field, Arrays.asList("a")))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining(field);
+                    }
+                    assertThat(requested).noneMatch(query -> query.contains("maxResults=0"));
+                });
+            });
+        });
+    }
+}
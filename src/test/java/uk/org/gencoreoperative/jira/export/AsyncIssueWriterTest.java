@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.afterEach;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+
+import uk.org.gencoreoperative.jira.metrics.ExportListener;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.model.ModelAdapters;
+import uk.org.gencoreoperative.jira.rest.FakeJiraServer;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class AsyncIssueWriterTest {
+    private static final Gson GSON = ModelAdapters.gson();
+
+    private FakeJiraServer server;
+    private List<Issue> issues;
+
+    {
+        describe(AsyncIssueWriter.class.getSimpleName(), () -> {
+            beforeEach(() -> {
+                server = FakeJiraServer.withIssues(120).withMaxResults(50);
+                try (Stream<Issue> stream = new RESTClient(server.config()).stream()) {
+                    issues = stream.collect(Collectors.toList());
+                }
+            });
+            afterEach(() -> server.close());
+
+            when("writing issues", () -> {
+                it("writes each issue as a line of JSON in the order given", () -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (AsyncIssueWriter writer = new AsyncIssueWriter(out, 4, ExportListener.NONE)) {
+                        issues.forEach(writer::write);
+                    }
+                    assertThat(lines(new ByteArrayInputStream(out.toByteArray())))
+                            .containsExactlyElementsOf(expected());
+                });
+                it("writes gzip compressed output when given a compressed stream", () -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (AsyncIssueWriter writer = new AsyncIssueWriter(new GZIPOutputStream(out), 4,
+                            ExportListener.NONE)) {
+                        issues.forEach(writer::write);
+                    }
+                    assertThat(lines(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))))
+                            .containsExactlyElementsOf(expected());
+                });
+                it("reports each issue written to the listener", () -> {
+                    AtomicInteger written = new AtomicInteger();
+                    ExportListener listener = new ExportListener() {
+                        @Override
+                        public void issueWritten(long nanos) {
+                            written.incrementAndGet();
+                        }
+                    };
+                    try (AsyncIssueWriter writer = new AsyncIssueWriter(new ByteArrayOutputStream(), 4, listener)) {
+                        issues.forEach(writer::write);
+                    }
+                    assertThat(written.get()).isEqualTo(issues.size());
+                });
+            });
+            when("the output fails", () -> {
+                it("reports the failure to the caller rather than blocking", () -> {
+                    OutputStream broken = new OutputStream() {
+                        @Override
+                        public void write(int b) throws IOException {
+                            throw new IOException("Disk full");
+                        }
+                    };
+                    AsyncIssueWriter writer = new AsyncIssueWriter(broken, 1, ExportListener.NONE);
+                    assertThatThrownBy(() -> {
+                        // Enough issues to fill the buffer and the queue several times over
+                        for (int i = 0; i < 100; i++) issues.forEach(writer::write);
+                    }).hasRootCauseMessage("Disk full");
+                    assertThatThrownBy(writer::close).hasMessage("Disk full");
+                });
+            });
+        });
+    }
+
+    private List<String> expected() {
+        return issues.stream().map(GSON::toJson).collect(Collectors.toList());
+    }
+
+    private static List<String> lines(InputStream in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
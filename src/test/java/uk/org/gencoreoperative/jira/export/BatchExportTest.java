@@ -0,0 +1,163 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.JsonParser;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.rest.FakeJiraFixture;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class BatchExportTest {
+    private static final List<BatchExport.Query> QUERIES = Arrays.asList(
+            new BatchExport.Query("first", "id < 10120"),
+            new BatchExport.Query("second", "id >= 10080 AND id < 10200"),
+            new BatchExport.Query("none", "id > 99999"));
+
+    private Config config;
+    private Path directory;
+
+    {
+        describe(BatchExport.class.getSimpleName(), () -> {
+            FakeJiraFixture jira = FakeJiraFixture.eachTest(230, 50);
+            TempDirectory temp = TempDirectory.eachTest("batch");
+            beforeEach(() -> {
+                config = jira.config();
+                config.setConcurrency(2);
+                directory = temp.get();
+            });
+
+            when("exporting several queries", () -> {
+                it("writes the issues of each query to its own file in id order", () -> {
+                    Map<String, Integer> written = new BatchExport(new RESTClient(config), config, QUERIES, directory)
+                            .run();
+                    assertThat(written).containsExactly(entry("first", 120), entry("second", 120), entry("none", 0));
+                    assertThat(keys("first")).containsExactlyElementsOf(expected(10000, 10120));
+                    assertThat(keys("second")).containsExactlyElementsOf(expected(10080, 10200));
+                    assertThat(keys("none")).isEmpty();
+                    assertThat(Files.list(directory).count()).isEqualTo(3);
+                });
+                it("fetches the issues matched by more than one query once", () -> {
+                    new BatchExport(new RESTClient(config), config, QUERIES, directory).run();
+                    // Three pages of ids for each overlapping query, one for the empty one, then four pages of issues
+                    assertThat(jira.server().getRequests()).isEqualTo(3 + 3 + 1 + 4);
+                });
+            });
+            when("running many queries at once", () -> {
+                it("keeps the requests in flight within the concurrency", () -> {
+                    jira.server().withLatency(20, 0);
+                    // Allow the connections more than the pool, so only the pool limits the requests
+                    config.setMaxConnections(8);
+                    List<BatchExport.Query> queries = IntStream.range(0, 4)
+                            .mapToObj(i -> new BatchExport.Query("q" + i, "id >= " + (10000 + i * 50)))
+                            .collect(Collectors.toList());
+                    new BatchExport(new RESTClient(config), config, queries, directory).run();
+                    assertThat(jira.server().getMaxInFlight()).isBetween(1, 2);
+                });
+                it("writes the issues in id order whatever the order of the query", () -> {
+                    List<BatchExport.Query> queries = Arrays.asList(
+                            new BatchExport.Query("descending", "id < 10060 ORDER BY id DESC"));
+                    new BatchExport(new RESTClient(config), config, queries, directory).run();
+                    assertThat(keys("descending")).containsExactlyElementsOf(expected(10000, 10060));
+                });
+            });
+            when("paging the ids", () -> {
+                it("takes a page size of short ids", () -> {
+                    int[] ids = IntStream.range(10000, 12000).toArray();
+                    assertThat(BatchExport.end(ids, 0, 100)).isEqualTo(100);
+                    assertThat(BatchExport.end(ids, 1950, 100)).isEqualTo(2000);
+                });
+                it("keeps a page of long ids within the length of a URL", () -> {
+                    int[] ids = IntStream.range(0, 2000).map(i -> 1_000_000_000 + i).toArray();
+                    // Ten digits and an encoded comma for each id
+                    assertThat(BatchExport.end(ids, 0, 1000)).isEqualTo(BatchExport.MAX_IDS_LENGTH / 13);
+                });
+            });
+            when("a query fails", () -> {
+                it("leaves no files behind", () -> {
+                    jira.server().withErrors(1, 500);
+                    config.setMaxRetries(0);
+                    assertThatThrownBy(() -> new BatchExport(new RESTClient(config), config, QUERIES, directory).run())
+                            .hasMessageContaining("500");
+                    assertThat(Files.list(directory).count()).isZero();
+                });
+            });
+            when("reading queries", () -> {
+                it("reads each named query and skips comments", () -> {
+                    Path file = directory.resolve("queries");
+                    Files.write(file, Arrays.asList("# Nightly", "", "open-bugs = type = Bug AND status = Open",
+                            " recent=updated >= -1d "), StandardCharsets.UTF_8);
+                    List<BatchExport.Query> queries = BatchExport.read(file);
+                    assertThat(queries).extracting(BatchExport.Query::getName).containsExactly("open-bugs", "recent");
+                    assertThat(queries).extracting(BatchExport.Query::getJql)
+                            .containsExactly("type = Bug AND status = Open", "updated >= -1d");
+                });
+                it("rejects a name used twice", () -> {
+                    Path file = directory.resolve("queries");
+                    Files.write(file, Arrays.asList("a = id > 1", "a = id > 2"), StandardCharsets.UTF_8);
+                    assertThatThrownBy(() -> BatchExport.read(file)).hasMessageContaining(":2");
+                });
+                it("rejects a name that cannot be a file name", () -> {
+                    Path file = directory.resolve("queries");
+                    Files.write(file, Arrays.asList("../a = id > 1"), StandardCharsets.UTF_8);
+                    assertThatThrownBy(() -> BatchExport.read(file)).isInstanceOf(IllegalArgumentException.class);
+                });
+            });
+        });
+    }
+
+    private List<String> keys(String name) throws Exception {
+        return Files.readAllLines(directory.resolve(name + BatchExport.SUFFIX)).stream()
+                .map(line -> JsonParser.parseString(line).getAsJsonObject().get("key").getAsString())
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> expected(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "SYN-" + i).collect(Collectors.toList());
+    }
+}
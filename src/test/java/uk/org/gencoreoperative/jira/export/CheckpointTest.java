@@ -0,0 +1,94 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class CheckpointTest {
+    private static final String UPDATED = "2024-01-15T10:22:33.000+0000";
+    private static final String STARTED = "2024-01-15T10:20:00.000+0000";
+
+    {
+        describe(Checkpoint.class.getSimpleName(), () -> {
+            TempDirectory directory = TempDirectory.eachTest("checkpoint");
+
+            when("the export started before the most recent update it saw", () -> {
+                it("looks for updates from when the export started", () -> {
+                    Checkpoint checkpoint = new Checkpoint(UPDATED, STARTED);
+                    assertThat(checkpoint.getSince()).isEqualTo(Checkpoint.parse(STARTED));
+                });
+            });
+            when("the clock of the server is ahead of the client", () -> {
+                it("looks for updates from the most recent update", () -> {
+                    Checkpoint checkpoint = new Checkpoint(UPDATED, "2024-01-15T10:30:00.000+0000");
+                    assertThat(checkpoint.getSince()).isEqualTo(Checkpoint.parse(UPDATED));
+                });
+            });
+            when("the export saw no issues", () -> {
+                it("looks for updates from when the export started", () -> {
+                    assertThat(new Checkpoint(null, STARTED).getSince()).isEqualTo(Checkpoint.parse(STARTED));
+                });
+            });
+            when("formatting a time", () -> {
+                it("can be parsed again", () -> {
+                    assertThat(Checkpoint.format(Checkpoint.parse("2024-01-15T11:22:33.000+0100"))).isEqualTo(UPDATED);
+                });
+            });
+            when("saving a checkpoint", () -> {
+                it("can be loaded again", () -> {
+                    Path file = directory.get().resolve(IncrementalExport.CHECKPOINT);
+                    new Checkpoint(UPDATED, STARTED).save(file);
+                    Optional<Checkpoint> loaded = Checkpoint.load(file);
+                    assertThat(loaded).isPresent();
+                    assertThat(loaded.get().getUpdated()).isEqualTo(UPDATED);
+                    assertThat(loaded.get().getStarted()).isEqualTo(STARTED);
+                });
+            });
+            when("loading a checkpoint without a start time", () -> {
+                it("looks for updates from the most recent update", () -> {
+                    Path file = directory.get().resolve(IncrementalExport.CHECKPOINT);
+                    Files.write(file, ("{\"updated\":\"" + UPDATED + "\",\"keys\":[\"ABC-1\"]}")
+                            .getBytes(StandardCharsets.UTF_8));
+                    assertThat(Checkpoint.load(file).get().getSince()).isEqualTo(Checkpoint.parse(UPDATED));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.rest.SyntheticIssues;
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class ColumnarSnapshotTest {
+    private static final Gson GSON = new Gson();
+    private static final List<Issue> ISSUES = SyntheticIssues.issues(1000).stream()
+            .map(json -> GSON.fromJson(json, Issue.class))
+            .collect(Collectors.toList());
+
+    private Path file;
+
+    {
+        describe(ColumnarSnapshot.class.getSimpleName(), () -> {
+            TempDirectory directory = TempDirectory.eachTest("columnar");
+            beforeEach(() -> file = directory.get().resolve("issues.col"));
+
+            when("reading a snapshot", () -> {
+                it("returns the columns of every issue", () -> {
+                    write(ISSUES);
+                    try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(file)) {
+                        assertThat(snapshot.size()).isEqualTo(1000);
+                        Issue first = ISSUES.get(0);
+                        assertThat(snapshot.getId(0)).isEqualTo(first.getId());
+                        assertThat(snapshot.getKey(0)).isEqualTo(first.getKey());
+                        assertThat(snapshot.getSelf(0)).isEqualTo(first.getSelf().toString());
+                        assertThat(snapshot.getSummary(999)).isEqualTo(ISSUES.get(999).getFields().getSummary());
+                        assertThat(snapshot.getDescription(5)).isEqualTo(ISSUES.get(5).getFields().getDescription());
+                        assertThat(snapshot.getUpdated(5)).isEqualTo(ISSUES.get(5).getFields().getUpdated());
+                    }
+                });
+                it("decodes an issue to the one that was written", () -> {
+                    write(ISSUES);
+                    try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(file)) {
+                        assertThat(GSON.toJson(snapshot.getIssue(42))).isEqualTo(GSON.toJson(ISSUES.get(42)));
+                    }
+                });
+                it("stores each component once", () -> {
+                    write(ISSUES);
+                    try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(file)) {
+                        assertThat(snapshot.getDictionarySize()).isEqualTo(20);
+                        Set<Integer> components = new HashSet<>();
+                        for (int row = 0; row < snapshot.size(); row++) {
+                            assertThat(snapshot.getComponentCount(row)).isEqualTo(1);
+                            components.add(snapshot.getComponent(row, 0));
+                        }
+                        assertThat(components).hasSize(20);
+                        assertThat(snapshot.getComponentName(snapshot.getComponent(21, 0))).isEqualTo("component-1");
+                    }
+                });
+            });
+            when("finding an issue by key", () -> {
+                it("returns its row", () -> {
+                    write(ISSUES);
+                    try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(file)) {
+                        for (int row = 0; row < ISSUES.size(); row++) {
+                            assertThat(snapshot.find(ISSUES.get(row).getKey())).isEqualTo(row);
+                        }
+                    }
+                });
+                it("returns -1 for a key that is not in the snapshot", () -> {
+                    write(ISSUES);
+                    try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(file)) {
+                        assertThat(snapshot.find("SYN-1")).isEqualTo(-1);
+                    }
+                });
+            });
+            when("an issue has missing values", () -> {
+                it("returns nothing for them", () -> {
+                    write(Collections.singletonList(GSON.fromJson("{\"key\":\"ABC-1\"}", Issue.class)));
+                    try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(file)) {
+                        assertThat(snapshot.getId(0)).isEqualTo(ColumnarSnapshot.NO_ID);
+                        assertThat(snapshot.getSummary(0)).isNull();
+                        assertThat(snapshot.getComponentCount(0)).isZero();
+                        assertThat(snapshot.find("ABC-1")).isZero();
+                    }
+                });
+            });
+            when("the writer is closed without finishing", () -> {
+                it("leaves the file as it was", () -> {
+                    try (ColumnarWriter writer = new ColumnarWriter(file)) {
+                        writer.add(ISSUES.get(0));
+                    }
+                    assertThat(file).doesNotExist();
+                    assertThat(file.getParent()).isEmptyDirectory();
+                });
+            });
+            when("the file is not a snapshot", () -> {
+                it("fails to open it", () -> {
+                    Files.write(file, "{\"key\":\"ABC-1\"}".getBytes(StandardCharsets.UTF_8));
+                    assertThatThrownBy(() -> ColumnarSnapshot.open(file)).isInstanceOf(IOException.class);
+                });
+            });
+        });
+    }
+
+    private void write(List<Issue> issues) throws IOException {
+        try (ColumnarWriter writer = new ColumnarWriter(file)) {
+            for (Issue issue : issues) {
+                writer.add(issue);
+            }
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.rest.FakeJiraFixture;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class IncrementalExportTest {
+    private Config config;
+    private Path snapshot;
+    private List<String> changed;
+
+    {
+        describe(IncrementalExport.class.getSimpleName(), () -> {
+            FakeJiraFixture jira = FakeJiraFixture.eachTest(230, 50);
+            TempDirectory directory = TempDirectory.eachTest("incremental");
+            beforeEach(() -> {
+                config = jira.config();
+                snapshot = directory.get().resolve(IncrementalExport.SNAPSHOT);
+                changed = new ArrayList<>();
+            });
+
+            when("exporting for the first time", () -> {
+                it("writes every issue to the snapshot and a checkpoint", () -> {
+                    assertThat(run()).isEqualTo(230);
+                    assertThat(changed).containsExactlyElementsOf(expected(10000, 10230));
+                    assertThat(keys()).containsExactlyElementsOf(expected(10000, 10230));
+                    assertThat(directory.get().resolve(IncrementalExport.CHECKPOINT)).exists();
+                });
+            });
+            when("exporting again without any changes", () -> {
+                it("skips the issues in the margin and leaves the snapshot as it was", () -> {
+                    run();
+                    byte[] before = Files.readAllBytes(snapshot);
+                    int requests = jira.server().getRequests();
+                    changed.clear();
+                    assertThat(run()).isZero();
+                    assertThat(jira.server().getRequests()).isGreaterThan(requests);
+                    assertThat(changed).isEmpty();
+                    assertThat(Files.readAllBytes(snapshot)).isEqualTo(before);
+                });
+            });
+            when("an issue has changed since the last export", () -> {
+                it("replaces its line in the snapshot", () -> {
+                    run();
+                    jira.server().edit("SYN-10003", "Edited", Instant.now());
+                    changed.clear();
+                    assertThat(run()).isEqualTo(1);
+                    assertThat(changed).containsExactly("SYN-10003");
+                    assertThat(keys()).containsExactlyElementsOf(expected(10000, 10230));
+                    assertThat(summary(3)).isEqualTo("Edited");
+                });
+            });
+            when("an issue is new since the last export", () -> {
+                it("adds it to the end of the snapshot", () -> {
+                    run();
+                    List<String> lines = Files.readAllLines(snapshot);
+                    lines.remove(100);
+                    Files.write(snapshot, lines);
+                    jira.server().edit("SYN-10100", "Edited", Instant.now());
+                    changed.clear();
+                    assertThat(run()).isEqualTo(1);
+                    assertThat(changed).containsExactly("SYN-10100");
+                    assertThat(keys()).hasSize(230).endsWith("SYN-10100");
+                });
+            });
+            when("an issue is edited during an export after its page was fetched", () -> {
+                it("is merged by the next export, even though a later issue was updated after it", () -> {
+                    Instant edited = Instant.now();
+                    run(issue -> {
+                        if (!issue.getKey().equals("SYN-10000")) return;
+                        jira.server().edit("SYN-10000", "Edited first", edited);
+                        jira.server().edit("SYN-10229", "Edited second", edited.plusSeconds(1));
+                    });
+                    assertThat(summary(0)).startsWith("Synthetic");
+                    assertThat(summary(229)).isEqualTo("Edited second");
+                    changed.clear();
+                    assertThat(run()).isEqualTo(1);
+                    assertThat(changed).containsExactly("SYN-10000");
+                    assertThat(summary(0)).isEqualTo("Edited first");
+                });
+            });
+            when("custom fields are asked for", () -> {
+                it("keeps them in the issues merged by every export", () -> {
+                    config.setFields("summary,Team,Story Points");
+                    List<Issue> issues = new ArrayList<>();
+                    run(issues::add);
+                    assertThat(issues.get(3).getFields().get("Team")).isEqualTo("Team 0");
+                    String first = Files.readAllLines(snapshot).get(3);
+                    for (int i = 0; i < 2; i++) {
+                        jira.server().edit("SYN-10003", "Edited " + i, Instant.now().plusSeconds(i));
+                        issues.clear();
+                        assertThat(run(issues::add)).isEqualTo(1);
+                        assertThat(issues).hasSize(1);
+                        assertThat(issues.get(0).getFields().get("Team")).isEqualTo("Team 0");
+                        assertThat(issues.get(0).getFields().get("Story Points")).isEqualTo(3.0);
+                        JsonObject fields = JsonParser.parseString(Files.readAllLines(snapshot).get(3))
+                                .getAsJsonObject().getAsJsonObject("fields");
+                        assertThat(fields.get("customfield_10020").getAsString()).isEqualTo("Team 0");
+                        assertThat(fields.get("customfield_10010").getAsDouble()).isEqualTo(3.0);
+                    }
+                    assertThat(JsonParser.parseString(first).getAsJsonObject().getAsJsonObject("fields").keySet())
+                            .containsExactlyInAnyOrder("summary", "updated", "customfield_10010", "customfield_10020");
+                });
+            });
+            when("the snapshot has been deleted", () -> {
+                it("exports every issue again", () -> {
+                    run();
+                    Files.delete(snapshot);
+                    changed.clear();
+                    assertThat(run()).isEqualTo(230);
+                    assertThat(keys()).hasSize(230);
+                });
+            });
+            when("the export has finished", () -> {
+                it("leaves no temporary files behind", () -> {
+                    run();
+                    jira.server().edit("SYN-10003", "Edited", Instant.now());
+                    run();
+                    assertThat(Files.list(directory.get()).map(path -> path.getFileName().toString()))
+                            .containsExactlyInAnyOrder(IncrementalExport.SNAPSHOT, IncrementalExport.CHECKPOINT);
+                });
+            });
+        });
+    }
+
+    private int run() throws Exception {
+        return run(issue -> { });
+    }
+
+    private int run(Consumer<Issue> during) throws Exception {
+        return new IncrementalExport(new RESTClient(config), config, snapshot.getParent()).run(issue -> {
+            changed.add(issue.getKey());
+            during.accept(issue);
+        });
+    }
+
+    private List<String> keys() throws Exception {
+        return Files.readAllLines(snapshot).stream()
+                .map(line -> JsonParser.parseString(line).getAsJsonObject().get("key").getAsString())
+                .collect(Collectors.toList());
+    }
+
+    private String summary(int line) throws Exception {
+        JsonObject issue = JsonParser.parseString(Files.readAllLines(snapshot).get(line)).getAsJsonObject();
+        return issue.getAsJsonObject("fields").get("summary").getAsString();
+    }
+
+    private static List<String> expected(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "SYN-" + i).collect(Collectors.toList());
+    }
+}
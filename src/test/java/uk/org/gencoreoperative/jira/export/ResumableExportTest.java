@@ -0,0 +1,140 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.rest.FakeJiraFixture;
+import uk.org.gencoreoperative.jira.rest.RESTClient;
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class ResumableExportTest {
+    private Config config;
+    private Path output;
+    private Path journal;
+
+    {
+        describe(ResumableExport.class.getSimpleName(), () -> {
+            FakeJiraFixture jira = FakeJiraFixture.eachTest(230, 50);
+            TempDirectory directory = TempDirectory.eachTest("export");
+            beforeEach(() -> {
+                config = jira.config();
+                output = directory.get().resolve("issues.jsonl");
+                journal = Paths.get(output + ResumableExport.JOURNAL_SUFFIX);
+            });
+
+            when("exporting", () -> {
+                it("writes every issue and records each page", () -> {
+                    assertThat(export(false)).isEqualTo(230);
+                    assertThat(Files.readAllLines(output)).hasSize(230);
+                    List<String> lines = Files.readAllLines(journal);
+                    assertThat(lines).hasSize(6);
+                    assertThat(lines.get(5)).contains("\"issues\":230").contains("\"complete\":true");
+                });
+            });
+            when("resuming an export that died", () -> {
+                it("continues from the last page recorded without repeating any output", () -> {
+                    export(false);
+                    byte[] expected = Files.readAllBytes(output);
+                    crashAfter(2);
+                    int requests = jira.server().getRequests();
+                    assertThat(export(true)).isEqualTo(130);
+                    assertThat(Files.readAllBytes(output)).isEqualTo(expected);
+                    assertThat(jira.server().getRequests() - requests).isEqualTo(3);
+                });
+                it("continues a sharded export from the last issue recorded", () -> {
+                    config.setShards(2);
+                    export(false);
+                    byte[] expected = Files.readAllBytes(output);
+                    crashAfter(2);
+                    assertThat(export(true)).isEqualTo(130);
+                    assertThat(Files.readAllBytes(output)).isEqualTo(expected);
+                });
+            });
+            when("resuming an export that finished", () -> {
+                it("writes nothing", () -> {
+                    export(false);
+                    assertThat(export(true)).isZero();
+                    assertThat(Files.readAllLines(output)).hasSize(230);
+                });
+            });
+            when("resuming without a journal", () -> {
+                it("starts from the beginning", () -> {
+                    assertThat(export(true)).isEqualTo(230);
+                });
+            });
+            when("resuming a different export", () -> {
+                it("refuses to continue", () -> {
+                    export(false);
+                    config.setJql("project = OTHER");
+                    assertThatThrownBy(() -> export(true)).isInstanceOf(IllegalStateException.class);
+                });
+                it("refuses to continue with the changelog when it was left out", () -> {
+                    export(false);
+                    crashAfter(2);
+                    long length = Files.size(output);
+                    config.setChangelog(true);
+                    assertThatThrownBy(() -> export(true))
+                            .isInstanceOf(IllegalStateException.class)
+                            .hasMessageContaining("different export");
+                    assertThat(Files.size(output)).isEqualTo(length);
+                });
+            });
+        });
+    }
+
+    private long export(boolean resume) throws IOException {
+        return new ResumableExport(new RESTClient(config), config, output).run(resume);
+    }
+
+    /**
+     * Leave the output and journal as if the export died while writing a page after the given number of pages.
+     */
+    private void crashAfter(int pages) throws IOException {
+        List<String> lines = Files.readAllLines(journal);
+        Files.write(journal, lines.subList(0, pages + 1));
+        Files.write(journal, "{\"issues\":1".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Files.write(output, "{\"id\":\"1".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+}
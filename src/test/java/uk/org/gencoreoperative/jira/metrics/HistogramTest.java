@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class HistogramTest {
+    {
+        describe(Histogram.class.getSimpleName(), () -> {
+            when("placing values in buckets", () -> {
+                it("keeps the buckets in order without gaps", () -> {
+                    for (int bucket = 0; bucket < Histogram.index(Long.MAX_VALUE); bucket++) {
+                        assertThat(Histogram.index(Histogram.lowerBound(bucket))).isEqualTo(bucket);
+                        assertThat(Histogram.index(Histogram.upperBound(bucket))).isEqualTo(bucket);
+                        assertThat(Histogram.lowerBound(bucket + 1)).isEqualTo(Histogram.upperBound(bucket) + 1);
+                    }
+                });
+                it("keeps each bucket within an eighth of its values", () -> {
+                    for (int bucket = 8; bucket < Histogram.index(Long.MAX_VALUE); bucket++) {
+                        long lower = Histogram.lowerBound(bucket);
+                        assertThat(Histogram.upperBound(bucket) - lower).isLessThanOrEqualTo(lower / 8);
+                    }
+                });
+            });
+            when("reporting percentiles", () -> {
+                it("reports nothing when empty", () -> {
+                    Histogram histogram = new Histogram();
+                    assertThat(histogram.getPercentile(99)).isZero();
+                    assertThat(histogram.getMean()).isZero();
+                });
+                it("reports each percentile to within its bucket", () -> {
+                    Histogram histogram = new Histogram();
+                    for (long value = 1; value <= 1000; value++) {
+                        histogram.record(value * 1000);
+                    }
+                    assertThat(histogram.getCount()).isEqualTo(1000);
+                    assertThat(histogram.getMean()).isEqualTo(500_500.0);
+                    assertThat((double) histogram.getPercentile(50)).isCloseTo(500_000, within(500_000 / 8.0));
+                    assertThat((double) histogram.getPercentile(99)).isCloseTo(990_000, within(990_000 / 8.0));
+                    assertThat(histogram.getPercentile(100)).isEqualTo(1_000_000);
+                });
+                it("never reports more than the maximum", () -> {
+                    Histogram histogram = new Histogram();
+                    histogram.record(1001);
+                    assertThat(histogram.getPercentile(50)).isEqualTo(1001);
+                });
+            });
+        });
+    }
+}
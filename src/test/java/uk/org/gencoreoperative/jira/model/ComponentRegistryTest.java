@@ -0,0 +1,102 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class ComponentRegistryTest {
+    private static final String ISSUE = "{\"id\":\"%d\",\"key\":\"T-%d\",\"fields\":{\"components\":[%s]}}";
+    private static final String CORE =
+            "{\"self\":\"https://jira/rest/api/2/component/1\",\"id\":\"1\",\"name\":\"Core\"}";
+    private static final String UI = "{\"self\":\"https://jira/rest/api/2/component/2\",\"id\":\"2\",\"name\":\"UI\"}";
+
+    private ComponentRegistry registry;
+    private Gson gson;
+
+    {
+        describe(ComponentRegistry.class.getSimpleName(), () -> {
+            beforeEach(() -> {
+                registry = new ComponentRegistry();
+                gson = new GsonBuilder().registerTypeAdapter(Component.class, registry.adapter()).create();
+            });
+            when("reading issues with the same component", () -> {
+                it("shares a single instance", () -> {
+                    Component first = components(gson.fromJson(String.format(ISSUE, 1, 1, CORE), Issue.class)).get(0);
+                    Component second = components(gson.fromJson(String.format(ISSUE, 2, 2, CORE), Issue.class)).get(0);
+                    assertThat(second).isSameAs(first);
+                    assertThat(registry.size()).isEqualTo(1);
+                });
+            });
+            when("reading different components", () -> {
+                it("keeps an instance of each", () -> {
+                    List<Component> components = components(
+                            gson.fromJson(String.format(ISSUE, 1, 1, CORE + "," + UI), Issue.class));
+                    assertThat(components).extracting(Component::getName).containsExactlyInAnyOrder("Core", "UI");
+                    assertThat(registry.size()).isEqualTo(2);
+                });
+            });
+            when("reading a component", () -> {
+                it("reads the same values as the reflective adapter", () -> {
+                    Component interned = gson.fromJson(CORE, Component.class);
+                    Component reflective = new Gson().fromJson(CORE, Component.class);
+                    assertThat(interned).usingRecursiveComparison().isEqualTo(reflective);
+                });
+                it("skips fields it does not know", () -> {
+                    Component component = gson.fromJson(
+                            "{\"id\":\"3\",\"description\":\"x\",\"lead\":{\"name\":\"a\"},\"name\":\"Docs\"}",
+                            Component.class);
+                    assertThat(component.getId()).isEqualTo(3);
+                    assertThat(component.getName()).isEqualTo("Docs");
+                    assertThat(component.getSelf()).isNull();
+                });
+            });
+            when("writing a component", () -> {
+                it("writes the same JSON as the reflective adapter", () -> {
+                    Component component = gson.fromJson(CORE, Component.class);
+                    assertThat(gson.toJson(component)).isEqualTo(new Gson().toJson(component));
+                });
+            });
+        });
+    }
+
+    private static List<Component> components(Issue issue) {
+        return new ArrayList<>(issue.getFields().components);
+    }
+}
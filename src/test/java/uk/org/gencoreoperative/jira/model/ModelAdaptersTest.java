@@ -0,0 +1,193 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.util.Arrays;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class ModelAdaptersTest {
+    private static final Gson REFLECTIVE = new Gson();
+    private static final Gson GSON = ModelAdapters.gson();
+    private static final String ISSUE = "{\"expand\":\"operations,changelog\",\"id\":\"120937\","
+            + "\"self\":\"https://jira/rest/api/2/issue/120937\",\"key\":\"OPENAM-16598\","
+            + "\"fields\":{\"summary\":\"Support <encrypted> id_tokens\",\"description\":null,"
+            + "\"assignee\":{\"name\":\"a\",\"avatarUrls\":{\"16x16\":\"x\"}},\"labels\":[\"a\",\"b\"],"
+            + "\"components\":[{\"self\":\"https://jira/rest/api/2/component/11130\",\"id\":\"11130\","
+            + "\"name\":\"OpenID Connect\",\"description\":\"OIDC\"}],\"updated\":\"2024-01-15T10:22:33.000+0000\"}}";
+    private static final Projection PROJECTION = new FieldSchema(Arrays.asList(new Gson().fromJson("["
+            + "{\"id\":\"customfield_10010\",\"name\":\"Story Points\",\"schema\":{\"type\":\"number\"}},"
+            + "{\"id\":\"customfield_10020\",\"name\":\"Team\",\"schema\":{\"type\":\"option\"}},"
+            + "{\"id\":\"labels\",\"name\":\"Labels\",\"schema\":{\"type\":\"array\",\"items\":\"string\"}},"
+            + "{\"id\":\"assignee\",\"name\":\"Assignee\",\"schema\":{\"type\":\"user\"}},"
+            + "{\"id\":\"environment\",\"name\":\"Environment\",\"schema\":{\"type\":\"string\"}},"
+            + "{\"id\":\"summary\",\"name\":\"Summary\",\"schema\":{\"type\":\"string\"}}]",
+            FieldDefinition[].class))).project(Arrays.asList("summary", "Story Points", "team", "labels", "assignee",
+            "environment"));
+    private static final String PROJECTED = "{\"id\":\"1\",\"key\":\"P-1\",\"fields\":{\"summary\":\"Projected\","
+            + "\"customfield_10010\":5,\"customfield_10020\":{\"self\":\"x\",\"value\":\"Team A\",\"id\":\"7\"},"
+            + "\"labels\":[\"a\",\"b\"],\"assignee\":{\"name\":\"ann\",\"displayName\":\"Ann Other\"},"
+            + "\"environment\":null,\"customfield_99999\":{\"deep\":[1,2,3]}}}";
+    private static final String CHANGELOG = "{\"id\":\"7\",\"key\":\"C-1\","
+            + "\"changelog\":{\"startAt\":0,\"maxResults\":1,\"total\":3,\"histories\":[{\"id\":\"10\","
+            + "\"author\":{\"self\":\"x\",\"name\":\"ann\","
+            + "\"displayName\":\"Ann Other\"},\"created\":\"2024-01-15T10:22:33.000+0000\",\"items\":[{\"field\":"
+            + "\"status\",\"fieldtype\":\"jira\",\"from\":\"1\",\"fromString\":\"Open\",\"to\":\"3\","
+            + "\"toString\":\"In Progress\",\"tmpFromAccountId\":null}]}]}}";
+    private static final String RESULTS = "{\"expand\":\"names\",\"startAt\":100,\"maxResults\":50,\"total\":19611,"
+            + "\"issues\":[" + ISSUE + "," + ISSUE + "]}";
+
+    {
+        describe(ModelAdapters.class.getSimpleName(), () -> {
+            when("reading an issue", () -> {
+                it("reads the same values as the reflective adapters", () -> {
+                    Issue issue = GSON.fromJson(ISSUE, Issue.class);
+                    assertThat(issue.getId()).isEqualTo(120937);
+                    assertThat(issue.getSelf()).hasToString("https://jira/rest/api/2/issue/120937");
+                    assertThat(issue.getSelfLink()).isEqualTo("https://jira/rest/api/2/issue/120937");
+                    assertThat(issue.getFields().getDescription()).isNull();
+                    assertThat(issue.getFields().getComponents()).extracting(Component::getId).containsExactly(11130);
+                    assertThat(issue).usingRecursiveComparison().isEqualTo(REFLECTIVE.fromJson(ISSUE, Issue.class));
+                });
+                it("reads an issue without fields", () -> {
+                    Issue issue = GSON.fromJson("{\"key\":\"ABC-1\",\"fields\":null}", Issue.class);
+                    assertThat(issue.getKey()).isEqualTo("ABC-1");
+                    assertThat(issue.getFields()).isNull();
+                });
+                it("tells a missing id from an id of 0", () -> {
+                    assertThat(GSON.fromJson("{\"key\":\"ABC-1\"}", Issue.class).getId()).isNull();
+                    assertThat(GSON.fromJson("{\"id\":\"0\"}", Issue.class).getId()).isZero();
+                    assertThat(GSON.fromJson("{\"name\":\"Core\"}", Component.class).getId()).isNull();
+                });
+            });
+            when("writing an issue", () -> {
+                it("writes the same JSON as the reflective adapters", () -> {
+                    Issue issue = GSON.fromJson(ISSUE, Issue.class);
+                    assertThat(GSON.toJson(issue)).isEqualTo(REFLECTIVE.toJson(issue));
+                });
+                it("leaves out a missing id", () -> {
+                    Issue issue = GSON.fromJson("{\"key\":\"ABC-1\"}", Issue.class);
+                    assertThat(GSON.toJson(issue)).isEqualTo("{\"key\":\"ABC-1\"}");
+                });
+            });
+            when("reading a changelog", () -> {
+                it("reads the histories and the name of each author", () -> {
+                    Changelog changelog = GSON.fromJson(CHANGELOG, Issue.class).getChangelog();
+                    assertThat(changelog.isTruncated()).isTrue();
+                    assertThat(changelog.getNextStartAt()).isEqualTo(1);
+                    History history = changelog.getHistories().get(0);
+                    assertThat(history.getAuthor()).isEqualTo("ann");
+                    assertThat(history.getItems()).extracting(ChangeItem::getToString).containsExactly("In Progress");
+                });
+                it("appends the histories of a page of the changelog of the issue", () -> {
+                    Changelog changelog = GSON.fromJson(CHANGELOG, Issue.class).getChangelog();
+                    changelog.append(GSON.fromJson("{\"startAt\":1,\"maxResults\":2,\"total\":3,\"isLast\":true,"
+                            + "\"values\":[{\"id\":\"11\",\"author\":{\"accountId\":\"5b10\"}},{\"id\":\"12\"}]}",
+                            Changelog.class));
+                    assertThat(changelog.isTruncated()).isFalse();
+                    assertThat(changelog.getHistories()).extracting(History::getId).containsExactly("10", "11", "12");
+                    assertThat(changelog.getHistories().get(1).getAuthor()).isEqualTo("5b10");
+                });
+                it("writes the same JSON as the reflective adapters", () -> {
+                    Issue issue = GSON.fromJson(CHANGELOG, Issue.class);
+                    assertThat(GSON.toJson(issue)).isEqualTo(REFLECTIVE.toJson(issue));
+                });
+            });
+            when("reading search results", () -> {
+                it("reads the paging fields and every issue", () -> {
+                    SearchResults results = GSON.fromJson(RESULTS, SearchResults.class);
+                    assertThat(results.getStartAt()).isEqualTo(100);
+                    assertThat(results.getMaxResults()).isEqualTo(50);
+                    assertThat(results.getTotal()).isEqualTo(19611);
+                    assertThat(results.getIssues()).hasSize(2);
+                    assertThat(GSON.toJson(results)).isEqualTo(REFLECTIVE.toJson(results));
+                });
+            });
+            when("given a projection", () -> {
+                it("decodes the projected fields and skips the rest", () -> {
+                    Issue issue = ModelAdapters.gson(null, PROJECTION).fromJson(PROJECTED, Issue.class);
+                    Field fields = issue.getFields();
+                    assertThat(fields.getSummary()).isEqualTo("Projected");
+                    assertThat(fields.get("customfield_10010")).isEqualTo(5.0);
+                    assertThat(fields.get("Team")).isEqualTo("Team A");
+                    assertThat(fields.get("labels")).isEqualTo(Arrays.asList("a", "b"));
+                    assertThat(fields.get("assignee")).isEqualTo("ann");
+                    assertThat(fields.get("environment")).isNull();
+                });
+                it("names a user without a user name by their account", () -> {
+                    Issue issue = ModelAdapters.gson(null, PROJECTION).fromJson("{\"fields\":{\"assignee\":"
+                            + "{\"accountId\":\"5b10a2844c20165700ede21g\",\"displayName\":\"Ann Other\"}}}",
+                            Issue.class);
+                    assertThat(issue.getFields().get("assignee")).isEqualTo("5b10a2844c20165700ede21g");
+                });
+                it("names a user with only a display name by it", () -> {
+                    Issue issue = ModelAdapters.gson(null, PROJECTION)
+                            .fromJson("{\"fields\":{\"assignee\":{\"displayName\":\"Ann Other\"}}}", Issue.class);
+                    assertThat(issue.getFields().get("assignee")).isEqualTo("Ann Other");
+                });
+                it("keeps values that do not match their schema as JSON", () -> {
+                    Issue issue = ModelAdapters.gson(null, PROJECTION)
+                            .fromJson("{\"fields\":{\"customfield_10010\":{\"n\":1}}}", Issue.class);
+                    assertThat(issue.getFields().get("Story Points"))
+                            .isEqualTo(JsonParser.parseString("{\"n\":1}"));
+                });
+                it("writes the projected fields after the others", () -> {
+                    Issue issue = ModelAdapters.gson(null, PROJECTION).fromJson(PROJECTED, Issue.class);
+                    assertThat(GSON.toJson(issue)).isEqualTo("{\"id\":1,\"key\":\"P-1\",\"fields\":"
+                            + "{\"summary\":\"Projected\",\"customfield_10010\":5.0,\"customfield_10020\":\"Team A\","
+                            + "\"labels\":[\"a\",\"b\"],\"assignee\":\"ann\"}}");
+                });
+                it("reads back the fields it wrote", () -> {
+                    Gson gson = ModelAdapters.gson(null, PROJECTION);
+                    String written = GSON.toJson(gson.fromJson(PROJECTED, Issue.class));
+                    Field fields = gson.fromJson(written, Issue.class).getFields();
+                    assertThat(fields.get("Team")).isEqualTo("Team A");
+                    assertThat(fields.get("assignee")).isEqualTo("ann");
+                    assertThat(GSON.toJson(gson.fromJson(written, Issue.class))).isEqualTo(written);
+                });
+            });
+            when("given a registry", () -> {
+                it("interns the components", () -> {
+                    Gson gson = ModelAdapters.gson(new ComponentRegistry());
+                    SearchResults results = gson.fromJson(RESULTS, SearchResults.class);
+                    Component first = results.getIssues().get(0).getFields().getComponents().iterator().next();
+                    Component second = results.getIssues().get(1).getFields().getComponents().iterator().next();
+                    assertThat(second).isSameAs(first);
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.forgerock.cuppa.Cuppa.afterEach;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+
+import uk.org.gencoreoperative.jira.config.Config;
+
+/**
+ * A {@link FakeJiraServer} holding {@link SyntheticIssues}, started before each test of the block
+ * it is declared in and closed after it. The configuration asks for pages as large as the server
+ * returns, so tests can add to it in their own {@code beforeEach}.
+ */
+public final class FakeJiraFixture {
+    private final int issues;
+    private final int maxResults;
+    private FakeJiraServer server;
+    private Config config;
+
+    private FakeJiraFixture(int issues, int maxResults) {
+        this.issues = issues;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Declare the fixture in the current Cuppa block.
+     *
+     * @param issues The number of synthetic issues the server holds.
+     * @param maxResults The largest page the server returns, which is also the page size asked for.
+     * @return The fixture, whose server and configuration are replaced before each test.
+     */
+    public static FakeJiraFixture eachTest(int issues, int maxResults) {
+        FakeJiraFixture fixture = new FakeJiraFixture(issues, maxResults);
+        beforeEach(fixture::start);
+        afterEach(fixture::close);
+        return fixture;
+    }
+
+    /**
+     * @return The server of the current test.
+     */
+    public FakeJiraServer server() {
+        return server;
+    }
+
+    /**
+     * @return The configuration of a client of the server of the current test.
+     */
+    public Config config() {
+        return config;
+    }
+
+    private void start() throws Exception {
+        server = FakeJiraServer.withIssues(issues).withMaxResults(maxResults);
+        config = server.config();
+        config.setPageSize(maxResults);
+    }
+
+    private void close() {
+        server.close();
+    }
+}
@@ -0,0 +1,464 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import uk.org.gencoreoperative.jira.config.Config;
+
+/**
+ * A local stand in for the JIRA search endpoint ({@code /rest/api/2/search}), for testing the
+ * client without a network. The fields of the issues are listed by {@code /rest/api/2/field}.
+ * <p>
+ * The server applies the paging parameters the way JIRA does: {@code maxResults} is capped at
+ * the server limit and the limit is reported back, and only the {@code fields} asked for are
+ * returned. The JQL is matched by {@link FakeJql}, and by default the server holds
+ * {@link SyntheticIssues}.
+ * <p>
+ * Searches can be expanded with {@code expand=changelog}. Like JIRA Cloud, only the first histories
+ * of each issue are included, and the rest are read from {@code /rest/api/2/issue/{key}/changelog}.
+ * <p>
+ * Latency, failures and rate limits can be injected to see how the client behaves under load.
+ */
+public class FakeJiraServer implements AutoCloseable {
+    public static final String SEARCH = "/rest/api/2/search";
+    public static final String FIELD = "/rest/api/2/field";
+    public static final String ISSUE = "/rest/api/2/issue/";
+    public static final int DEFAULT_MAX_RESULTS = 100;
+    private static final Pattern CHANGELOG = Pattern.compile(ISSUE + "([^/]+)/changelog");
+
+    static {
+        // Without this the server's small writes wait on delayed acknowledgements, adding ~40ms to every page
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<JsonObject> issues = new ArrayList<>();
+    private final List<String> rendered = new ArrayList<>();
+    private final Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger changelogRequests = new AtomicInteger();
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger windowRequests = new AtomicInteger();
+    private final AtomicInteger truncate = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private volatile int maxResults = DEFAULT_MAX_RESULTS;
+    private volatile int changelogLimit = DEFAULT_MAX_RESULTS;
+    private volatile long latency;
+    private volatile long jitter;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile int rateLimit;
+    private volatile int retryAfter = 1;
+    private volatile boolean compress;
+
+    /**
+     * @param issues The JSON of the issues the server holds, in id order.
+     */
+    public FakeJiraServer(List<String> issues) throws IOException {
+        for (String issue : issues) {
+            JsonObject json = JsonParser.parseString(issue).getAsJsonObject();
+            this.issues.add(json);
+            this.rendered.add(json.toString());
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext(SEARCH, this::search);
+        server.createContext(FIELD, this::field);
+        server.createContext(ISSUE, this::changelog);
+        server.start();
+    }
+
+    /**
+     * @param count The number of issues.
+     * @return A server holding a synthetic set of issues.
+     */
+    public static FakeJiraServer withIssues(int count) throws IOException {
+        return new FakeJiraServer(SyntheticIssues.issues(count));
+    }
+
+    /**
+     * @return The server URL to configure the client with.
+     */
+    public String getURL() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return A configuration for a client of this server, with a password file that is deleted on exit.
+     */
+    public Config config() throws IOException {
+        Path password = Files.createTempFile("password", "");
+        password.toFile().deleteOnExit();
+        Files.write(password, "password\n".getBytes(StandardCharsets.UTF_8));
+        Config config = new Config();
+        config.setUsername("fake");
+        config.setPasswordFile(password.toString());
+        config.setServer(getURL());
+        config.setJql("project = SYN");
+        return config;
+    }
+
+    /**
+     * @param limit The largest page the server will return.
+     */
+    public FakeJiraServer withMaxResults(int limit) {
+        this.maxResults = limit;
+        return this;
+    }
+
+    /**
+     * @param limit The most histories of each issue to include in a search, and the largest page of
+     * a changelog the server will return.
+     */
+    public FakeJiraServer withChangelogLimit(int limit) {
+        this.changelogLimit = limit;
+        return this;
+    }
+
+    /**
+     * Change the summary of an issue, as a user editing it would.
+     *
+     * @param key The key of the issue.
+     * @param summary The new summary.
+     * @param updated The time of the edit.
+     */
+    public synchronized FakeJiraServer edit(String key, String summary, Instant updated) {
+        for (int i = 0; i < issues.size(); i++) {
+            JsonObject issue = issues.get(i);
+            if (!issue.get("key").getAsString().equals(key)) continue;
+            JsonObject fields = issue.getAsJsonObject("fields");
+            fields.addProperty("summary", summary);
+            fields.addProperty("updated", SyntheticIssues.JIRA_TIME.format(updated));
+            rendered.set(i, issue.toString());
+            return this;
+        }
+        throw new IllegalArgumentException("No issue " + key);
+    }
+
+    /**
+     * @param latency The time in milliseconds to wait before each response.
+     * @param jitter A random extra time in milliseconds, up to this amount, to wait before each response.
+     */
+    public FakeJiraServer withLatency(long latency, long jitter) {
+        this.latency = latency;
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * @param rate The proportion of requests, between 0 and 1, that fail.
+     * @param status The HTTP status of a failed request.
+     */
+    public FakeJiraServer withErrors(double rate, int status) {
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * @param perSecond The number of requests allowed each second. Requests over the limit receive a
+     * {@code 429} response.
+     * @param retryAfter The number of seconds to send in the {@code Retry-After} header of a {@code 429}.
+     */
+    public FakeJiraServer withRateLimit(int perSecond, int retryAfter) {
+        this.rateLimit = perSecond;
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * @param count The number of successful searches whose body is cut off half way through, as if the
+     * connection was lost while the page was being sent.
+     */
+    public FakeJiraServer withTruncatedResponses(int count) {
+        this.truncate.set(count);
+        return this;
+    }
+
+    /**
+     * @param compress True to gzip responses for clients that accept it.
+     */
+    public FakeJiraServer withCompression(boolean compress) {
+        this.compress = compress;
+        return this;
+    }
+
+    /**
+     * @return The number of search requests received.
+     */
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The most search requests that were waiting for their latency at the same time.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * @return The number of changelog requests received.
+     */
+    public int getChangelogRequests() {
+        return changelogRequests.get();
+    }
+
+    /**
+     * @param status An HTTP status.
+     * @return The number of responses sent with that status.
+     */
+    public int getResponses(int status) {
+        AtomicInteger count = statuses.get(status);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            // Counted while the request waits, as a client may send its next request before this thread returns
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                pause();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            if (isRateLimited()) {
+                exchange.getResponseHeaders().add("Retry-After", Integer.toString(retryAfter));
+                error(exchange, 429, "Rate limit exceeded");
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                error(exchange, errorStatus, "Injected failure");
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            int startAt = Integer.parseInt(query.getOrDefault("startAt", "0"));
+            int requested = Integer.parseInt(query.getOrDefault("maxResults", "50"));
+            if (startAt < 0 || requested < 0) {
+                error(exchange, 400, "startAt and maxResults must not be negative");
+                return;
+            }
+            boolean changelog = query.getOrDefault("expand", "").contains("changelog");
+            respond(exchange, 200, page(query.getOrDefault("jql", ""), fields(query.get("fields")),
+                    startAt, Math.min(requested, maxResults), changelog));
+        } catch (RuntimeException e) {
+            error(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void field(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, 200, SyntheticIssues.FIELDS);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void changelog(HttpExchange exchange) throws IOException {
+        changelogRequests.incrementAndGet();
+        try {
+            Matcher path = CHANGELOG.matcher(exchange.getRequestURI().getPath());
+            if (!path.matches() || !path.group(1).startsWith("SYN-")) {
+                error(exchange, 404, "Issue does not exist");
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            int startAt = Integer.parseInt(query.getOrDefault("startAt", "0"));
+            int limit = Math.min(Integer.parseInt(query.getOrDefault("maxResults", "100")), changelogLimit);
+            JsonArray histories = SyntheticIssues.histories(Integer.parseInt(path.group(1).substring("SYN-".length())));
+            JsonObject page = changelog(histories, startAt, limit);
+            page.add("values", page.remove("histories"));
+            page.addProperty("isLast", startAt + limit >= histories.size());
+            respond(exchange, 200, page.toString());
+        } catch (RuntimeException e) {
+            error(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static JsonObject changelog(JsonArray histories, int startAt, int limit) {
+        JsonObject changelog = new JsonObject();
+        changelog.addProperty("startAt", startAt);
+        changelog.addProperty("maxResults", limit);
+        changelog.addProperty("total", histories.size());
+        JsonArray page = new JsonArray();
+        for (int h = startAt; h < Math.min(histories.size(), startAt + limit); h++) {
+            page.add(histories.get(h));
+        }
+        changelog.add("histories", page);
+        return changelog;
+    }
+
+    private synchronized String page(String jql, Set<String> fields, int startAt, int limit, boolean changelog) {
+        List<Integer> matching = FakeJql.matching(issues, jql);
+        StringBuilder page = new StringBuilder()
+                .append("{\"expand\":\"schema,names\",\"startAt\":").append(startAt)
+                .append(",\"maxResults\":").append(limit)
+                .append(",\"total\":").append(matching.size())
+                .append(",\"issues\":[");
+        int end = Math.min(matching.size(), startAt + limit);
+        for (int i = startAt; i < end; i++) {
+            if (i > startAt) page.append(',');
+            int index = matching.get(i);
+            String issue = fields == null ? rendered.get(index) : project(issues.get(index), fields);
+            if (changelog) {
+                JsonObject expanded = JsonParser.parseString(issue).getAsJsonObject();
+                JsonArray histories = SyntheticIssues.histories(expanded.get("id").getAsInt());
+                expanded.add("changelog", changelog(histories, 0, changelogLimit));
+                issue = expanded.toString();
+            }
+            page.append(issue);
+        }
+        return page.append("]}").toString();
+    }
+
+    /**
+     * @return The requested field names, or null if all fields were requested.
+     */
+    private static Set<String> fields(String fields) {
+        if (fields == null || fields.isEmpty()) return null;
+        Set<String> names = new HashSet<>(Arrays.asList(fields.split(",")));
+        return names.contains("*all") || names.contains("*navigable") ? null : names;
+    }
+
+    private static String project(JsonObject issue, Set<String> fields) {
+        JsonObject projected = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : issue.entrySet()) {
+            if (!entry.getKey().equals("fields")) projected.add(entry.getKey(), entry.getValue());
+        }
+        JsonObject selected = new JsonObject();
+        for (Map.Entry<String, JsonElement> field : issue.getAsJsonObject("fields").entrySet()) {
+            if (fields.contains(field.getKey())) selected.add(field.getKey(), field.getValue());
+        }
+        projected.add("fields", selected);
+        return projected.toString();
+    }
+
+    private void pause() {
+        long wait = latency + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+        if (wait <= 0) return;
+        try {
+            TimeUnit.MILLISECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isRateLimited() {
+        int limit = rateLimit;
+        if (limit <= 0) return false;
+        long second = System.currentTimeMillis() / 1000;
+        if (window.getAndSet(second) != second) windowRequests.set(0);
+        return windowRequests.incrementAndGet() > limit;
+    }
+
+    private void error(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, "{\"errorMessages\":[\"" + message.replace("\"", "'") + "\"],\"errors\":{}}");
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        statuses.computeIfAbsent(status, code -> new AtomicInteger()).incrementAndGet();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compress && accept != null && accept.contains("gzip")) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(status, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                out.write(bytes);
+            }
+        } else if (status == 200 && truncate.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes, 0, bytes.length / 2);
+            exchange.getResponseBody().flush();
+        } else {
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null) return query;
+        try {
+            for (String parameter : raw.split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(pair[0], pair.length > 1 ? URLDecoder.decode(pair[1], "UTF-8") : "");
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * The small part of JQL a {@link FakeJiraServer} understands, enough for the queries the client
+ * generates: comparisons on {@code id}, {@code id in (...)}, {@code updated >= -Nm}, {@code ORDER BY id},
+ * and {@code field = "value"} and {@code field is EMPTY} on {@code component}, custom fields as
+ * {@code cf[N]} and other fields by id. Everything else in the JQL is ignored.
+ */
+final class FakeJql {
+    private static final Pattern ID = Pattern.compile("\\bid\\s*(>=|<=|>|<|=)\\s*(-?\\d+)");
+    private static final Pattern ID_IN = Pattern.compile("(?i)\\bid\\s+in\\s*\\(([\\d,\\s]*)\\)");
+    private static final Pattern UPDATED = Pattern.compile("\\bupdated\\s*>=\\s*\"?-(\\d+)m\"?");
+    private static final Pattern EQUALS = Pattern.compile("(component|cf\\[\\d+]|[a-z]+)\\s*=\\s*\"([^\"]*)\"");
+    private static final Pattern EMPTY = Pattern.compile("(?i)(component|cf\\[\\d+]|[a-z]+)\\s+is\\s+EMPTY");
+    private static final Pattern ORDER_DESC = Pattern.compile("(?i)order\\s+by\\s+id\\s+desc");
+
+    private FakeJql() {
+    }
+
+    /**
+     * @return The indexes of the issues that match the parts of the JQL the server understands, in order.
+     */
+    static List<Integer> matching(List<JsonObject> issues, String jql) {
+        List<Predicate<JsonObject>> conditions = new ArrayList<>();
+        Matcher id = ID.matcher(jql);
+        while (id.find()) {
+            String operator = id.group(1);
+            long value = Long.parseLong(id.group(2));
+            conditions.add(issue -> compare(issue.get("id").getAsLong(), operator, value));
+        }
+        Matcher in = ID_IN.matcher(jql);
+        while (in.find()) {
+            Set<Long> ids = new HashSet<>();
+            for (String value : in.group(1).split(",")) {
+                if (!value.trim().isEmpty()) ids.add(Long.parseLong(value.trim()));
+            }
+            conditions.add(issue -> ids.contains(issue.get("id").getAsLong()));
+        }
+        Matcher updated = UPDATED.matcher(jql);
+        if (updated.find()) {
+            Instant since = Instant.now().minusSeconds(60 * Long.parseLong(updated.group(1)));
+            conditions.add(issue -> !Instant.from(SyntheticIssues.JIRA_TIME.parse(issue.getAsJsonObject("fields")
+                    .get("updated").getAsString())).isBefore(since));
+        }
+        Matcher equals = EQUALS.matcher(jql);
+        while (equals.find()) {
+            String field = field(equals.group(1));
+            String value = equals.group(2);
+            conditions.add(issue -> values(issue, field).contains(value));
+        }
+        Matcher empty = EMPTY.matcher(jql);
+        while (empty.find()) {
+            String field = field(empty.group(1));
+            conditions.add(issue -> values(issue, field).isEmpty());
+        }
+        List<Integer> matching = new ArrayList<>();
+        for (int i = 0; i < issues.size(); i++) {
+            JsonObject issue = issues.get(i);
+            if (conditions.stream().allMatch(condition -> condition.test(issue))) matching.add(i);
+        }
+        if (ORDER_DESC.matcher(jql).find()) Collections.reverse(matching);
+        return matching;
+    }
+
+    /**
+     * @return The id of a field named in JQL.
+     */
+    private static String field(String name) {
+        if (name.equals("component")) return "components";
+        if (name.startsWith("cf[")) return "customfield_" + name.substring(3, name.length() - 1);
+        return name;
+    }
+
+    /**
+     * @return The values of the field of the issue, taking the value or name of objects.
+     */
+    private static Set<String> values(JsonObject issue, String field) {
+        Set<String> values = new HashSet<>();
+        JsonElement value = issue.getAsJsonObject("fields").get(field);
+        for (JsonElement each : value == null || value.isJsonNull() ? new JsonArray()
+                : value.isJsonArray() ? value.getAsJsonArray() : singleton(value)) {
+            if (each.isJsonObject()) {
+                JsonObject object = each.getAsJsonObject();
+                each = object.has("value") ? object.get("value") : object.get("name");
+            }
+            if (each != null && each.isJsonPrimitive()) values.add(each.getAsString());
+        }
+        return values;
+    }
+
+    private static JsonArray singleton(JsonElement value) {
+        JsonArray array = new JsonArray();
+        array.add(value);
+        return array;
+    }
+
+    private static boolean compare(long actual, String operator, long value) {
+        switch (operator) {
+            case ">": return actual > value;
+            case ">=": return actual >= value;
+            case "<": return actual < value;
+            case "<=": return actual <= value;
+            default: return actual == value;
+        }
+    }
+}
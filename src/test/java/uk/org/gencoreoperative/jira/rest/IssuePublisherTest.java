@@ -0,0 +1,171 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Issue;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class IssuePublisherTest {
+    private Config config;
+
+    {
+        describe(IssuePublisher.class.getSimpleName(), () -> {
+            FakeJiraFixture jira = FakeJiraFixture.eachTest(230, 50);
+            beforeEach(() -> {
+                config = jira.config();
+                config.setConcurrency(3);
+            });
+
+            when("the subscriber asks for every issue", () -> {
+                it("publishes the issues in the same order as the stream", () -> {
+                    List<String> expected;
+                    try (Stream<Issue> issues = new RESTClient(config).stream()) {
+                        expected = issues.map(Issue::getKey).collect(Collectors.toList());
+                    }
+                    Recorder recorder = subscribe(new RESTClient(config), Long.MAX_VALUE);
+                    assertThat(recorder.done.await(10, TimeUnit.SECONDS)).isTrue();
+                    assertThat(recorder.error).isNull();
+                    assertThat(recorder.keys).hasSize(230).containsExactlyElementsOf(expected);
+                });
+                it("publishes the issues of a search with no results", () -> {
+                    config.setJql("id > 99999");
+                    Recorder recorder = subscribe(new RESTClient(config), Long.MAX_VALUE);
+                    assertThat(recorder.done.await(10, TimeUnit.SECONDS)).isTrue();
+                    assertThat(recorder.keys).isEmpty();
+                });
+            });
+            when("the subscriber asks for some issues", () -> {
+                it("only requests the pages needed to meet the demand", () -> {
+                    Recorder recorder = subscribe(new RESTClient(config), 10);
+                    recorder.await(10);
+                    Thread.sleep(200);
+                    assertThat(jira.server().getRequests()).isEqualTo(1);
+
+                    recorder.subscription.request(45);
+                    recorder.await(55);
+                    Thread.sleep(200);
+                    assertThat(jira.server().getRequests()).isEqualTo(2);
+                    assertThat(recorder.keys).hasSize(55);
+                    assertThat(recorder.done.getCount()).isEqualTo(1);
+                });
+                it("publishes nothing more once cancelled", () -> {
+                    Recorder recorder = subscribe(new RESTClient(config), 10);
+                    recorder.await(10);
+                    recorder.subscription.cancel();
+                    recorder.subscription.request(100);
+                    Thread.sleep(200);
+                    assertThat(recorder.keys).hasSize(10);
+                    assertThat(jira.server().getRequests()).isEqualTo(1);
+                    assertThat(recorder.done.getCount()).isEqualTo(1);
+                });
+            });
+            when("a request fails", () -> {
+                it("signals the error to the subscriber", () -> {
+                    jira.server().withErrors(1.0, 500);
+                    Recorder recorder = subscribe(new RESTClient(config), Long.MAX_VALUE);
+                    assertThat(recorder.done.await(10, TimeUnit.SECONDS)).isTrue();
+                    assertThat(recorder.error).hasMessageContaining("Could not perform query");
+                });
+            });
+            when("the subscriber asks for no issues", () -> {
+                it("signals an IllegalArgumentException", () -> {
+                    Recorder recorder = subscribe(new RESTClient(config), 0);
+                    assertThat(recorder.done.await(10, TimeUnit.SECONDS)).isTrue();
+                    assertThat(recorder.error).isInstanceOf(IllegalArgumentException.class);
+                    assertThat(jira.server().getRequests()).isZero();
+                });
+            });
+        });
+    }
+
+    private static Recorder subscribe(RESTClient client, long demand) {
+        Recorder recorder = new Recorder(demand);
+        client.publisher().subscribe(recorder);
+        return recorder;
+    }
+
+    /**
+     * Records the signals it receives, asking for the given number of issues when subscribed.
+     */
+    private static class Recorder implements Subscriber<Issue> {
+        private final long demand;
+        private final List<String> keys = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        Recorder(long demand) {
+            this.demand = demand;
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (keys.size() < count && System.nanoTime() < deadline) Thread.sleep(10);
+            assertThat(keys).hasSize(count);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(demand);
+        }
+
+        @Override
+        public void onNext(Issue issue) {
+            keys.add(issue.getKey());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+
+import uk.org.gencoreoperative.jira.model.Issue;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class IssueReaderTest {
+    private static final Gson GSON = new Gson();
+
+    {
+        describe(IssueReader.class.getSimpleName(), () -> {
+            when("reading a page of search results", () -> {
+                String json = "{\"expand\":\"schema,names\",\"startAt\":100,\"maxResults\":2,\"total\":3,\"issues\":["
+                        + "{\"id\":\"1\",\"key\":\"ABC-1\",\"fields\":{\"summary\":\"first\"}},"
+                        + "{\"id\":\"2\",\"key\":\"ABC-2\",\"fields\":{\"summary\":\"second\",\"components\":["
+                        + "{\"id\":\"10\",\"name\":\"trees\"}]}}]}";
+                it("reads the paging fields before any issues", () -> {
+                    IssueReader reader = new IssueReader(GSON, new StringReader(json));
+                    assertThat(reader.getStartAt()).isEqualTo(100);
+                    assertThat(reader.getMaxResults()).isEqualTo(2);
+                    assertThat(reader.getTotal()).isEqualTo(3);
+                });
+                it("returns each issue in order", () -> {
+                    List<Issue> issues = new ArrayList<>();
+                    new IssueReader(GSON, new StringReader(json)).forEachRemaining(issues::add);
+                    assertThat(issues).extracting(Issue::getKey).containsExactly("ABC-1", "ABC-2");
+                    assertThat(issues.get(1).getFields().getComponents()).hasSize(1);
+                });
+            });
+            when("the paging fields follow the issues", () -> {
+                it("reads them once the issues are consumed", () -> {
+                    IssueReader reader = new IssueReader(GSON, new StringReader(
+                            "{\"issues\":[{\"key\":\"ABC-1\"}],\"total\":1}"));
+                    assertThat(reader.getTotal()).isEqualTo(IssueReader.UNKNOWN);
+                    reader.forEachRemaining(issue -> { });
+                    assertThat(reader.getTotal()).isEqualTo(1);
+                });
+            });
+            when("the response has no issues", () -> {
+                it("has nothing to return", () -> {
+                    IssueReader reader = new IssueReader(GSON, new StringReader(
+                            "{\"startAt\":0,\"maxResults\":0,\"total\":19611,\"issues\":[]}"));
+                    assertThat(reader.hasNext()).isFalse();
+                    assertThat(reader.getTotal()).isEqualTo(19611);
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class JqlTest {
+    {
+        describe(Jql.class.getSimpleName(), () -> {
+            when("adding a clause to a statement without an ordering", () -> {
+                it("combines the conditions", () -> {
+                    assertThat(Jql.and("project = ABC OR type = Bug", "updated >= -5m"))
+                            .isEqualTo("(project = ABC OR type = Bug) AND updated >= -5m");
+                });
+            });
+            when("adding a clause to a statement with an ordering", () -> {
+                it("keeps the ordering at the end", () -> {
+                    assertThat(Jql.and("project = ABC order  by created DESC", "id > 10"))
+                            .isEqualTo("(project = ABC) AND id > 10 order  by created DESC");
+                });
+                it("can replace the ordering", () -> {
+                    assertThat(Jql.and("project = ABC ORDER BY created", "id > 10", "id ASC"))
+                            .isEqualTo("(project = ABC) AND id > 10 ORDER BY id ASC");
+                });
+            });
+            when("the statement only has an ordering", () -> {
+                it("uses the clause as the condition", () -> {
+                    assertThat(Jql.and("ORDER BY key", "id > 10")).isEqualTo("id > 10 ORDER BY key");
+                });
+            });
+            when("the words order by are quoted", () -> {
+                it("is not treated as an ordering", () -> {
+                    assertThat(Jql.condition("summary ~ \"order by\" AND reporter = border"))
+                            .isEqualTo("summary ~ \"order by\" AND reporter = border");
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class OrderedParallelIteratorTest {
+    {
+        describe(OrderedParallelIterator.class.getSimpleName(), () -> {
+            when("tasks complete in a random order", () -> {
+                it("returns the results in task order", () -> {
+                    List<Supplier<Integer>> tasks = IntStream.range(0, 50)
+                            .<Supplier<Integer>>mapToObj(i -> () -> {
+                                sleep(ThreadLocalRandom.current().nextInt(5));
+                                return i;
+                            })
+                            .collect(Collectors.toList());
+                    List<Integer> results = new ArrayList<>();
+                    new OrderedParallelIterator<>(tasks.iterator(), 8).forEachRemaining(results::add);
+                    assertThat(results).containsExactlyElementsOf(
+                            IntStream.range(0, 50).boxed().collect(Collectors.toList()));
+                });
+            });
+            when("there are more tasks than the concurrency", () -> {
+                it("never has more than the concurrency in flight", () -> {
+                    AtomicInteger running = new AtomicInteger();
+                    AtomicInteger peak = new AtomicInteger();
+                    List<Supplier<Integer>> tasks = IntStream.range(0, 30)
+                            .<Supplier<Integer>>mapToObj(i -> () -> {
+                                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                sleep(2);
+                                running.decrementAndGet();
+                                return i;
+                            })
+                            .collect(Collectors.toList());
+                    new OrderedParallelIterator<>(tasks.iterator(), 3).forEachRemaining(i -> { });
+                    assertThat(peak.get()).isLessThanOrEqualTo(3);
+                });
+            });
+            when("a task fails", () -> {
+                it("rethrows the failure to the consumer", () -> {
+                    List<Supplier<Integer>> tasks = new ArrayList<>();
+                    tasks.add(() -> 1);
+                    tasks.add(() -> { throw new IllegalStateException("badger"); });
+                    OrderedParallelIterator<Integer> iterator = new OrderedParallelIterator<>(tasks.iterator(), 2);
+                    assertThat(iterator.next()).isEqualTo(1);
+                    assertThatThrownBy(iterator::next)
+                            .isInstanceOf(IllegalStateException.class)
+                            .hasMessage("badger");
+                });
+            });
+        });
+    }
+
+    private static void sleep(int millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
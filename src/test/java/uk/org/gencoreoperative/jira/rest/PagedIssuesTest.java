@@ -0,0 +1,135 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class PagedIssuesTest {
+    private static final Gson GSON = new Gson();
+
+    {
+        describe(PagedIssues.class.getSimpleName(), () -> {
+            when("the total is reported by the first page", () -> {
+                it("returns every issue without a separate count query", () -> {
+                    List<Integer> requested = Collections.synchronizedList(new ArrayList<>());
+                    List<String> keys = keys(new PagedIssues(server(25, 25, 10, requested), 10, 1, false));
+                    assertThat(keys).containsExactlyElementsOf(expected(25));
+                    assertThat(requested).containsExactly(0, 10, 20);
+                });
+                it("returns every issue in order when fetching in parallel", () -> {
+                    List<Integer> requested = Collections.synchronizedList(new ArrayList<>());
+                    List<String> keys = keys(new PagedIssues(server(95, 95, 10, requested), 10, 4, false));
+                    assertThat(keys).containsExactlyElementsOf(expected(95));
+                    assertThat(requested).hasSize(10);
+                });
+            });
+            when("the server caps the page size", () -> {
+                it("steps by the page size the server returned", () -> {
+                    List<Integer> requested = Collections.synchronizedList(new ArrayList<>());
+                    List<String> keys = keys(new PagedIssues(server(12, 12, 5, requested), 50, 1, false));
+                    assertThat(keys).containsExactlyElementsOf(expected(12));
+                    assertThat(requested).containsExactly(0, 5, 10);
+                });
+            });
+            when("paging adaptively", () -> {
+                it("continues past the total until a short page", () -> {
+                    List<String> keys = keys(new PagedIssues(server(33, 20, 10, new ArrayList<>()), 10, 1, true));
+                    assertThat(keys).containsExactlyElementsOf(expected(33));
+                });
+                it("continues past the total until a short page when fetching in parallel", () -> {
+                    List<String> keys = keys(new PagedIssues(server(33, 20, 10, new ArrayList<>()), 10, 3, true));
+                    assertThat(keys).containsExactlyElementsOf(expected(33));
+                });
+            });
+            when("starting part way through the results", () -> {
+                it("returns the issues from the offset", () -> {
+                    List<Integer> requested = Collections.synchronizedList(new ArrayList<>());
+                    List<String> keys = keys(new PagedIssues(server(25, 25, 10, requested), 10, 10, 1, false));
+                    assertThat(keys).containsExactlyElementsOf(expected(25).subList(10, 25));
+                    assertThat(requested).containsExactly(10, 20);
+                });
+                it("returns the issues from the offset when fetching in parallel", () -> {
+                    List<String> keys = keys(new PagedIssues(server(95, 95, 10, new ArrayList<>()), 30, 10, 4, false));
+                    assertThat(keys).containsExactlyElementsOf(expected(95).subList(30, 95));
+                });
+            });
+            when("there are no results", () -> {
+                it("returns nothing", () -> {
+                    List<Integer> requested = new ArrayList<>();
+                    assertThat(keys(new PagedIssues(server(0, 0, 10, requested), 10, 4, false))).isEmpty();
+                    assertThat(requested).containsExactly(0);
+                });
+            });
+        });
+    }
+
+    /**
+     * A fake search endpoint with {@code size} issues that reports {@code total} and returns at most
+     * {@code limit} issues per page.
+     */
+    private static IntFunction<IssueReader> server(int size, int total, int limit, List<Integer> requested) {
+        return startAt -> {
+            requested.add(startAt);
+            String issues = IntStream.range(startAt, Math.min(size, startAt + limit))
+                    .mapToObj(i -> "{\"key\":\"ABC-" + i + "\"}")
+                    .collect(Collectors.joining(","));
+            return new IssueReader(GSON, new StringReader(
+                    "{\"startAt\":" + startAt + ",\"maxResults\":" + limit + ",\"total\":" + total
+                            + ",\"issues\":[" + issues + "]}"));
+        };
+    }
+
+    private static List<String> keys(PagedIssues issues) {
+        List<String> keys = new ArrayList<>();
+        try {
+            issues.forEachRemaining(issue -> keys.add(issue.getKey()));
+        } finally {
+            issues.close();
+        }
+        return keys;
+    }
+
+    private static List<String> expected(int size) {
+        return IntStream.range(0, size).mapToObj(i -> "ABC-" + i).collect(Collectors.toList());
+    }
+}
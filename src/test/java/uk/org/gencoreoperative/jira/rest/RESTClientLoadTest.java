@@ -0,0 +1,176 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.rest.transport.Response;
+import uk.org.gencoreoperative.jira.rest.transport.Transport;
+import uk.org.gencoreoperative.jira.rest.transport.TransportStats;
+import uk.org.gencoreoperative.jira.rest.transport.Transports;
+
+/**
+ * Exports from a {@link FakeJiraServer} under different conditions and reports the throughput
+ * in issues per second and the 99th percentile latency of a page, from request to the last byte
+ * of the body.
+ * <p>
+ * These take a while so are not part of the normal build, run them with
+ * {@code mvn test -P load-tests}.
+ */
+@Test
+@RunWith(CuppaRunner.class)
+public class RESTClientLoadTest {
+    private static final int ISSUES = 20_000;
+
+    {
+        describe(RESTClient.class.getSimpleName() + " under load", () -> {
+            when("the server responds immediately", () -> {
+                it("exports sequentially", () -> measure("no latency, sequential",
+                        server -> { }, config -> { }));
+                it("exports in parallel", () -> measure("no latency, 4 in parallel",
+                        server -> { }, config -> config.setConcurrency(4)));
+            });
+            when("the server has latency", () -> {
+                it("exports sequentially", () -> measure("20-40ms latency, sequential",
+                        server -> server.withLatency(20, 20), config -> { }));
+                it("exports in parallel", () -> measure("20-40ms latency, 8 in parallel",
+                        server -> server.withLatency(20, 20), config -> config.setConcurrency(8)));
+                it("exports in parallel shards", () -> measure("20-40ms latency, 8 shards",
+                        server -> server.withLatency(20, 20), config -> {
+                            config.setShards(8);
+                            config.setConcurrency(8);
+                        }));
+            });
+            when("the server is throttling", () -> {
+                it("exports in parallel within the rate limit", () -> measure("50 requests/s, 8 in parallel",
+                        server -> server.withRateLimit(50, 1), config -> config.setConcurrency(8)));
+                it("exports in parallel when requests fail", () -> measure("5% unavailable, 8 in parallel",
+                        server -> server.withErrors(0.05, 503), config -> config.setConcurrency(8)));
+            });
+            when("the server compresses responses", () -> {
+                it("exports in parallel", () -> measure("gzip, 4 in parallel",
+                        server -> server.withCompression(true), config -> config.setConcurrency(4)));
+            });
+        });
+    }
+
+    private static void measure(String scenario, Consumer<FakeJiraServer> setup, Consumer<Config> options)
+            throws IOException {
+        try (FakeJiraServer server = FakeJiraServer.withIssues(ISSUES)) {
+            setup.accept(server);
+            Config config = server.config();
+            options.accept(config);
+            TimingTransport transport = new TimingTransport(Transports.create(config));
+            long start = System.nanoTime();
+            long count;
+            try (Stream<Issue> stream = new RESTClient(config, transport).stream()) {
+                count = stream.count();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-32s %9.0f issues/s  p99 page %5d ms  (%d pages)%n", scenario,
+                    count / seconds, transport.percentile(99), transport.latencies.size());
+            assertThat(count).isEqualTo(ISSUES);
+        }
+    }
+
+    /**
+     * Records the time of each request until its body is closed, which also closes the response.
+     */
+    private static class TimingTransport implements Transport {
+        private final Transport delegate;
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+        private TimingTransport(Transport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Response get(URL url, Map<String, String> headers) throws IOException {
+            long start = System.nanoTime();
+            Response response = delegate.get(url, headers);
+            InputStream body = new FilterInputStream(response.getBody()) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    latencies.add(System.nanoTime() - start);
+                }
+            };
+            return new Response() {
+                @Override
+                public int getStatus() {
+                    return response.getStatus();
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return response.getHeader(name);
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return body;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    body.close();
+                }
+            };
+        }
+
+        @Override
+        public TransportStats getStats() {
+            return delegate.getStats();
+        }
+
+        private long percentile(int percentile) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            if (sorted.isEmpty()) return 0;
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.afterEach;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.management.ObjectName;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.metrics.Metrics;
+import uk.org.gencoreoperative.jira.model.Field;
+import uk.org.gencoreoperative.jira.model.History;
+import uk.org.gencoreoperative.jira.model.Issue;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class RESTClientTest {
+    private FakeJiraServer server;
+
+    {
+        describe(RESTClient.class.getSimpleName(), () -> {
+            beforeEach(() -> server = FakeJiraServer.withIssues(230).withMaxResults(50));
+            afterEach(() -> server.close());
+
+            when("paging by offset", () -> {
+                it("returns every issue in order", () -> {
+                    assertThat(keys(server.config())).containsExactlyElementsOf(expected(230));
+                });
+                it("returns every issue in order when fetching in parallel", () -> {
+                    Config config = server.config();
+                    config.setConcurrency(4);
+                    assertThat(keys(config)).containsExactlyElementsOf(expected(230));
+                });
+                it("returns every issue in order when fetching on virtual threads", () -> {
+                    Config config = server.config();
+                    config.setConcurrency(4);
+                    config.setVirtualThreads(true);
+                    assertThat(keys(config)).containsExactlyElementsOf(expected(230));
+                });
+                it("steps by the page size the server allows", () -> {
+                    keys(server.config());
+                    assertThat(server.getRequests()).isEqualTo(5);
+                });
+            });
+            when("the connection is lost while a page is being read", () -> {
+                it("requests the page again and carries on from the issue it reached", () -> {
+                    server.withTruncatedResponses(2);
+                    Config config = server.config();
+                    config.setConcurrency(2);
+                    assertThat(keys(config)).containsExactlyElementsOf(expected(230));
+                    assertThat(server.getRequests()).isEqualTo(5 + 2);
+                });
+                it("fails once the retries are used up", () -> {
+                    server.withTruncatedResponses(10);
+                    Config config = server.config();
+                    config.setMaxRetries(1);
+                    assertThatThrownBy(() -> keys(config)).hasMessageContaining("Failed to read search results");
+                });
+            });
+            when("paging by id in shards", () -> {
+                it("returns every issue", () -> {
+                    Config config = server.config();
+                    config.setShards(3);
+                    config.setConcurrency(3);
+                    assertThat(keys(config)).containsExactlyInAnyOrderElementsOf(expected(230));
+                });
+            });
+            when("exporting the changelog", () -> {
+                beforeEach(() -> server.withChangelogLimit(4));
+                it("includes every history of each issue", () -> {
+                    Config config = server.config();
+                    config.setChangelog(true);
+                    config.setConcurrency(3);
+                    try (Stream<Issue> stream = new RESTClient(config).stream()) {
+                        stream.forEach(issue -> {
+                            List<String> ids = IntStream.range(0, (issue.getId() % 4) * 3)
+                                    .mapToObj(h -> Integer.toString(issue.getId() * 100 + h))
+                                    .collect(Collectors.toList());
+                            assertThat(issue.getChangelog().isTruncated()).isFalse();
+                            assertThat(issue.getChangelog().getHistories()).extracting(History::getId)
+                                    .containsExactlyElementsOf(ids);
+                        });
+                    }
+                });
+                it("only reads the changelog of issues the search truncated", () -> {
+                    Config config = server.config();
+                    config.setChangelog(true);
+                    keys(config);
+                    // Six histories need one more page of four, and nine need two
+                    long expected = IntStream.range(10_000, 10_230).map(id -> (id % 4) * 3)
+                            .filter(count -> count > 4).mapToLong(count -> (count - 1) / 4).sum();
+                    assertThat(server.getChangelogRequests()).isEqualTo(expected);
+                    assertThat(server.getRequests()).isEqualTo(5);
+                });
+                it("leaves the changelog out unless it is asked for", () -> {
+                    try (Stream<Issue> stream = new RESTClient(server.config()).stream()) {
+                        assertThat(stream.allMatch(issue -> issue.getChangelog() == null)).isTrue();
+                    }
+                    assertThat(server.getChangelogRequests()).isZero();
+                });
+            });
+            when("asking for fields by name", () -> {
+                it("decodes the custom and system fields asked for", () -> {
+                    Config config = server.config();
+                    config.setFields("summary,Story Points,Team,labels,priority");
+                    try (Stream<Issue> stream = new RESTClient(config).stream()) {
+                        Field fields = stream.skip(9).findFirst().get().getFields();
+                        assertThat(fields.getSummary()).isEqualTo("Synthetic issue 10009");
+                        assertThat(fields.get("Story Points")).isEqualTo(1.0);
+                        assertThat(fields.get("customfield_10020")).isEqualTo("Team 0");
+                        assertThat(fields.get("labels")).isEqualTo(Arrays.asList("synthetic", "batch-4"));
+                        assertThat(fields.get("priority")).isEqualTo("Major");
+                        assertThat(fields.getDescription()).isNull();
+                    }
+                });
+                it("rejects fields the server does not have", () -> {
+                    Config config = server.config();
+                    config.setFields("summary,Severity");
+                    assertThatThrownBy(() -> keys(config))
+                            .isInstanceOf(IllegalArgumentException.class)
+                            .hasMessageContaining("Severity");
+                });
+            });
+            when("listening to the export", () -> {
+                it("reports each request and page", () -> {
+                    RESTClient client = new RESTClient(server.config());
+                    Metrics metrics = new Metrics();
+                    client.addListener(metrics);
+                    try (Stream<Issue> stream = client.stream()) {
+                        assertThat(stream.count()).isEqualTo(230);
+                    }
+                    assertThat(metrics.getRequests()).isEqualTo(5);
+                    assertThat(metrics.getFailedRequests()).isZero();
+                    assertThat(metrics.getPages()).isEqualTo(5);
+                    assertThat(metrics.getIssuesRead()).isEqualTo(230);
+                    assertThat(metrics.getBytesRead()).isPositive();
+                    assertThat(metrics.getParseTimes().getMax()).isPositive();
+                });
+                it("publishes the metrics over JMX", () -> {
+                    RESTClient client = new RESTClient(server.config());
+                    Metrics metrics = new Metrics();
+                    client.addListener(metrics);
+                    metrics.register();
+                    keys(client);
+                    Object requests = ManagementFactory.getPlatformMBeanServer()
+                            .getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Requests");
+                    assertThat(requests).isEqualTo(5L);
+                });
+            });
+            when("the server fails", () -> {
+                it("retries the failed pages", () -> {
+                    server.withErrors(0.2, 503);
+                    Config config = server.config();
+                    config.setConcurrency(2);
+                    assertThat(keys(config)).containsExactlyElementsOf(expected(230));
+                });
+                it("reports the status of the failed request once the retries are used up", () -> {
+                    server.withErrors(1, 503);
+                    Config config = server.config();
+                    config.setMaxRetries(0);
+                    assertThatThrownBy(() -> keys(config)).hasMessageContaining("503");
+                });
+            });
+        });
+    }
+
+    private static List<String> keys(Config config) {
+        return keys(new RESTClient(config));
+    }
+
+    private static List<String> keys(RESTClient client) {
+        try (Stream<Issue> stream = client.stream()) {
+            return stream.map(Issue::getKey).collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> expected(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "SYN-" + (10_000 + i)).collect(Collectors.toList());
+    }
+}
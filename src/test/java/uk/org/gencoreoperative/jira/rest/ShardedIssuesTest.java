@@ -0,0 +1,134 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class ShardedIssuesTest {
+    private static final Gson GSON = new Gson();
+    private static final Pattern RANGE = Pattern.compile("id > (-?\\d+) AND id <= (\\d+)");
+
+    {
+        describe(ShardedIssues.class.getSimpleName(), () -> {
+            when("exporting with several shards", () -> {
+                it("returns every issue once in id order", () -> {
+                    List<Integer> ids = ids(257);
+                    List<String> jql = Collections.synchronizedList(new ArrayList<>());
+                    assertThat(export(new ShardedIssues(server(ids, 10, jql), "project = ABC ORDER BY created",
+                            10, 4, 2))).containsExactlyElementsOf(ids);
+                    assertThat(jql).allMatch(query -> !query.contains("created"));
+                });
+            });
+            when("there are more shards than the concurrency on virtual threads", () -> {
+                it("returns every issue once in id order", () -> {
+                    List<Integer> ids = ids(500);
+                    ExecutorService consumer = Executors.newSingleThreadExecutor();
+                    try {
+                        // Each shard has more pages than it buffers, so a shard started out of order would hang
+                        Future<List<Integer>> exported = consumer.submit(() -> export(new ShardedIssues(
+                                server(ids, 5, new ArrayList<>()), "project = ABC", 5, 16, 2, true)));
+                        assertThat(exported.get(30, TimeUnit.SECONDS)).containsExactlyElementsOf(ids);
+                    } finally {
+                        consumer.shutdownNow();
+                    }
+                });
+            });
+            when("there are more shards than issues", () -> {
+                it("returns every issue once in id order", () -> {
+                    List<Integer> ids = ids(3);
+                    assertThat(export(new ShardedIssues(server(ids, 10, new ArrayList<>()), "project = ABC",
+                            10, 8, 8))).containsExactlyElementsOf(ids);
+                });
+            });
+            when("there are no issues", () -> {
+                it("returns nothing", () -> {
+                    assertThat(export(new ShardedIssues(server(new ArrayList<>(), 10, new ArrayList<>()),
+                            "project = ABC", 10, 4, 4))).isEmpty();
+                });
+            });
+        });
+    }
+
+    private static List<Integer> ids(int count) {
+        return IntStream.range(0, count).map(i -> 1000 + i * 7).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * A fake search that understands the id ranges and orderings used by {@link ShardedIssues}.
+     */
+    private static BiFunction<String, Integer, IssueReader> server(List<Integer> ids, int limit, List<String> log) {
+        return (jql, maxResults) -> {
+            log.add(jql);
+            int max = Math.min(limit, maxResults);
+            List<Integer> matching = new ArrayList<>(ids);
+            Matcher range = RANGE.matcher(jql);
+            if (range.find()) {
+                long after = Long.parseLong(range.group(1));
+                long highest = Long.parseLong(range.group(2));
+                matching.removeIf(id -> id <= after || id > highest);
+            }
+            if (jql.endsWith("id DESC")) Collections.reverse(matching);
+            String issues = matching.stream().limit(max)
+                    .map(id -> "{\"id\":\"" + id + "\",\"key\":\"ABC-" + id + "\"}")
+                    .collect(Collectors.joining(","));
+            return new IssueReader(GSON, new StringReader("{\"startAt\":0,\"maxResults\":" + max
+                    + ",\"total\":" + matching.size() + ",\"issues\":[" + issues + "]}"));
+        };
+    }
+
+    private static List<Integer> export(ShardedIssues issues) {
+        List<Integer> ids = new ArrayList<>();
+        try {
+            issues.forEachRemaining(issue -> ids.add(issue.getId()));
+        } finally {
+            issues.close();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * The synthetic issues a {@link FakeJiraServer} holds by default, and the fields and histories
+ * that go with them.
+ */
+public final class SyntheticIssues {
+    /**
+     * The fields of the synthetic issues, as listed by {@link FakeJiraServer#FIELD}.
+     */
+    public static final String FIELDS = "["
+            + "{\"id\":\"summary\",\"name\":\"Summary\",\"custom\":false,\"schema\":{\"type\":\"string\"}},"
+            + "{\"id\":\"description\",\"name\":\"Description\",\"custom\":false,\"schema\":{\"type\":\"string\"}},"
+            + "{\"id\":\"components\",\"name\":\"Component/s\",\"custom\":false,"
+            + "\"schema\":{\"type\":\"array\",\"items\":\"component\"}},"
+            + "{\"id\":\"updated\",\"name\":\"Updated\",\"custom\":false,\"schema\":{\"type\":\"datetime\"}},"
+            + "{\"id\":\"priority\",\"name\":\"Priority\",\"custom\":false,\"schema\":{\"type\":\"priority\"}},"
+            + "{\"id\":\"labels\",\"name\":\"Labels\",\"custom\":false,"
+            + "\"schema\":{\"type\":\"array\",\"items\":\"string\"}},"
+            + "{\"id\":\"customfield_10010\",\"name\":\"Story Points\",\"custom\":true,"
+            + "\"schema\":{\"type\":\"number\",\"customId\":10010}},"
+            + "{\"id\":\"customfield_10020\",\"name\":\"Team\",\"custom\":true,"
+            + "\"schema\":{\"type\":\"option\",\"customId\":10020}},"
+            + "{\"id\":\"customfield_10030\",\"name\":\"Notes\",\"custom\":true,\"schema\":{\"type\":\"string\","
+            + "\"custom\":\"com.atlassian.jira.plugin.system.customfieldtypes:textarea\",\"customId\":10030}},"
+            + "{\"id\":\"thumbnail\",\"name\":\"Images\",\"custom\":false}]";
+    static final DateTimeFormatter JIRA_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+            .withZone(ZoneOffset.UTC);
+
+    private SyntheticIssues() {
+    }
+
+    /**
+     * @param count The number of issues.
+     * @return The JSON of a synthetic set of issues with ids from 10000, spread over twenty components
+     * and updated a minute apart going back from now. Each also has a priority, labels and two custom
+     * fields, {@code Story Points} and {@code Team}.
+     */
+    public static List<String> issues(int count) {
+        List<String> issues = new ArrayList<>(count);
+        Instant now = Instant.now();
+        for (int i = 0; i < count; i++) {
+            int id = 10_000 + i;
+            int component = 11_000 + (i % 20);
+            JsonObject fields = new JsonObject();
+            fields.addProperty("summary", "Synthetic issue " + id);
+            fields.addProperty("description", "A description of synthetic issue " + id + " that is long enough "
+                    + "to make the page a realistic size, as descriptions are usually the largest field.");
+            fields.addProperty("updated", JIRA_TIME.format(now.minusSeconds(60L * (count - i))));
+            JsonObject componentJson = new JsonObject();
+            componentJson.addProperty("self", "https://jira.example.com/rest/api/2/component/" + component);
+            componentJson.addProperty("id", Integer.toString(component));
+            componentJson.addProperty("name", "component-" + (i % 20));
+            JsonArray components = new JsonArray();
+            components.add(componentJson);
+            fields.add("components", components);
+            JsonObject priority = new JsonObject();
+            priority.addProperty("self", "https://jira.example.com/rest/api/2/priority/3");
+            priority.addProperty("name", "Major");
+            priority.addProperty("id", "3");
+            fields.add("priority", priority);
+            JsonArray labels = new JsonArray();
+            labels.add("synthetic");
+            labels.add("batch-" + (i % 5));
+            fields.add("labels", labels);
+            fields.addProperty("customfield_10010", i % 8);
+            JsonObject team = new JsonObject();
+            team.addProperty("self", "https://jira.example.com/rest/api/2/customFieldOption/" + (20_000 + i % 3));
+            team.addProperty("value", "Team " + (i % 3));
+            team.addProperty("id", Integer.toString(20_000 + i % 3));
+            fields.add("customfield_10020", team);
+            JsonObject issue = new JsonObject();
+            issue.addProperty("id", Integer.toString(id));
+            issue.addProperty("self", "https://jira.example.com/rest/api/2/issue/" + id);
+            issue.addProperty("key", "SYN-" + id);
+            issue.add("fields", fields);
+            issues.add(issue.toString());
+        }
+        return issues;
+    }
+
+    /**
+     * @param id The id of a synthetic issue.
+     * @return The histories of the issue: none, three, six or nine of them depending on the id, each
+     * moving the issue on a status and made by one of three users.
+     */
+    public static JsonArray histories(int id) {
+        JsonArray histories = new JsonArray();
+        int count = (id % 4) * 3;
+        for (int h = 0; h < count; h++) {
+            JsonObject author = new JsonObject();
+            author.addProperty("name", "user-" + (h % 3));
+            author.addProperty("displayName", "User " + (h % 3));
+            JsonObject item = new JsonObject();
+            item.addProperty("field", "status");
+            item.addProperty("fieldtype", "jira");
+            item.addProperty("from", Integer.toString(h));
+            item.addProperty("fromString", "Status " + h);
+            item.addProperty("to", Integer.toString(h + 1));
+            item.addProperty("toString", "Status " + (h + 1));
+            JsonArray items = new JsonArray();
+            items.add(item);
+            JsonObject history = new JsonObject();
+            history.addProperty("id", Integer.toString(id * 100 + h));
+            history.add("author", author);
+            history.addProperty("created", JIRA_TIME.format(Instant.ofEpochSecond(1_600_000_000L + 3600L * h)));
+            history.add("items", items);
+            histories.add(history);
+        }
+        return histories;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.skip;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.functions.TestBlockFunction;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class ThreadsTest {
+    {
+        describe(Threads.class.getSimpleName(), () -> {
+            for (boolean virtual : new boolean[] { false, true }) {
+                String name = virtual ? "virtual threads are asked for" : "platform threads are asked for";
+                TestBlockFunction cases = () -> {
+                    it("runs no more than the concurrency of tasks at once", () -> {
+                        assertThat(maxRunning(Threads.newExecutor("test", 3, virtual), 20)).isBetween(1, 3);
+                    });
+                    it("runs the tasks on threads that do not keep the JVM running", () -> {
+                        ExecutorService executor = Threads.newExecutor("test", 1, virtual);
+                        try {
+                            assertThat(executor.submit(() -> Thread.currentThread().isDaemon()).get()).isTrue();
+                        } finally {
+                            executor.shutdownNow();
+                        }
+                    });
+                    it("starts every task of an unbounded executor at once", () -> {
+                        assertThat(maxRunning(Threads.newUnboundedExecutor("test", virtual), 8)).isEqualTo(8);
+                    });
+                };
+                // Otherwise the virtual cases would only test the platform threads again
+                if (virtual && !Threads.isVirtualAvailable()) {
+                    skip().when(name + " on a JVM without them", cases);
+                } else {
+                    when(name, cases);
+                }
+            }
+            when("limiting a thread per task executor", () -> {
+                it("runs no more than the concurrency of tasks at once", () -> {
+                    ExecutorService executor = new Threads.LimitedExecutor(Executors.newCachedThreadPool(), 3);
+                    assertThat(maxRunning(executor, 20)).isBetween(1, 3);
+                });
+                it("starts the tasks in the order they were submitted", () -> {
+                    ExecutorService executor = new Threads.LimitedExecutor(Executors.newCachedThreadPool(), 1);
+                    List<Integer> started = Collections.synchronizedList(new ArrayList<>());
+                    List<Future<?>> futures = new ArrayList<>();
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            int task = i;
+                            futures.add(executor.submit(() -> started.add(task)));
+                        }
+                        for (Future<?> future : futures) future.get(10, TimeUnit.SECONDS);
+                    } finally {
+                        executor.shutdownNow();
+                    }
+                    assertThat(started).isSorted().hasSize(50);
+                });
+                it("does not block the caller while the tasks wait to run", () -> {
+                    ExecutorService executor = new Threads.LimitedExecutor(Executors.newCachedThreadPool(), 1);
+                    CountDownLatch release = new CountDownLatch(1);
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+                        Future<?> waiting = executor.submit(() -> { });
+                        assertThat(waiting.isDone()).isFalse();
+                        release.countDown();
+                        waiting.get(10, TimeUnit.SECONDS);
+                    } finally {
+                        executor.shutdownNow();
+                    }
+                });
+                it("finishes the waiting tasks after it is shut down", () -> {
+                    ExecutorService executor = new Threads.LimitedExecutor(Executors.newCachedThreadPool(), 1);
+                    AtomicInteger ran = new AtomicInteger();
+                    for (int i = 0; i < 10; i++) executor.execute(ran::incrementAndGet);
+                    executor.shutdown();
+                    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+                    assertThat(ran).hasValue(10);
+                    assertThatThrownBy(() -> executor.execute(ran::incrementAndGet))
+                            .isInstanceOf(RejectedExecutionException.class);
+                });
+                it("cancels the tasks still waiting to run when it is shut down", () -> {
+                    ExecutorService executor = new Threads.LimitedExecutor(Executors.newCachedThreadPool(), 1);
+                    CountDownLatch started = new CountDownLatch(1);
+                    CountDownLatch release = new CountDownLatch(1);
+                    AtomicBoolean ran = new AtomicBoolean();
+                    Future<?> running = executor.submit(() -> {
+                        started.countDown();
+                        // Hold the permit through the shut down, so the waiting task cannot take it first
+                        while (release.getCount() > 0) {
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                // Keep holding it
+                            }
+                        }
+                    });
+                    Future<?> waiting = executor.submit(() -> ran.set(true));
+                    started.await(10, TimeUnit.SECONDS);
+                    executor.shutdownNow();
+                    assertThatThrownBy(() -> waiting.get(10, TimeUnit.SECONDS))
+                            .isInstanceOf(CancellationException.class);
+                    release.countDown();
+                    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+                    assertThat(ran).isFalse();
+                    assertThat(running.isDone()).isTrue();
+                });
+            });
+        });
+    }
+
+    /**
+     * Submit tasks that each hold on until all have started or a moment has passed.
+     *
+     * @return The most tasks that were running at once.
+     */
+    private static int maxRunning(ExecutorService executor, int tasks) throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger max = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(() -> {
+                    max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                    while (max.get() < tasks && System.nanoTime() < deadline) Thread.sleep(5);
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        return max.get();
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class CachingTransportTest {
+    private FakeTransport fake;
+    private URL url;
+
+    {
+        describe(CachingTransport.class.getSimpleName(), () -> {
+            TempDirectory directory = TempDirectory.eachTest("cache");
+            beforeEach(() -> {
+                fake = new FakeTransport();
+                url = new URL("http://localhost/rest/api/2/search?jql=project%3DSYN");
+            });
+
+            when("the response has an ETag", () -> {
+                it("asks the server whether it has changed and reuses it when it has not", () -> {
+                    fake.etag = "\"1\"";
+                    Transport transport = transport(directory.get(), (url, since) -> false);
+                    assertThat(read(transport)).isEqualTo("first");
+                    fake.body = "second";
+                    fake.status = 304;
+                    assertThat(read(transport)).isEqualTo("first");
+                    assertThat(fake.requests.get(1)).containsEntry("If-None-Match", "\"1\"");
+                    assertThat(fake.stats.getCacheHits()).isEqualTo(1);
+                });
+                it("replaces it when the server has a newer one", () -> {
+                    fake.etag = "\"1\"";
+                    Transport transport = transport(directory.get(), (url, since) -> false);
+                    read(transport);
+                    fake.body = "second";
+                    fake.etag = "\"2\"";
+                    assertThat(read(transport)).isEqualTo("second");
+                    fake.status = 304;
+                    assertThat(read(transport)).isEqualTo("second");
+                    assertThat(fake.requests.get(2)).containsEntry("If-None-Match", "\"2\"");
+                });
+            });
+            when("the response has no validators", () -> {
+                it("reuses it without a request when the probe finds nothing has changed", () -> {
+                    Transport transport = transport(directory.get(), (url, since) -> true);
+                    read(transport);
+                    fake.body = "second";
+                    assertThat(read(transport)).isEqualTo("first");
+                    assertThat(fake.requests).hasSize(1);
+                });
+                it("requests it again when the probe finds something has changed", () -> {
+                    Transport transport = transport(directory.get(), (url, since) -> false);
+                    read(transport);
+                    fake.body = "second";
+                    assertThat(read(transport)).isEqualTo("second");
+                    assertThat(fake.requests).hasSize(2);
+                    assertThat(fake.requests.get(1)).doesNotContainKey("If-None-Match");
+                });
+            });
+            when("the entry is evicted before its body is opened", () -> {
+                it("requests it from the server again", () -> {
+                    Transport transport = transport(directory.get(), (url, since) -> {
+                        delete(directory.get(), ".body");
+                        return true;
+                    });
+                    read(transport);
+                    fake.body = "second";
+                    assertThat(read(transport)).isEqualTo("second");
+                    assertThat(fake.requests).hasSize(2);
+                });
+            });
+            when("the response is not a success", () -> {
+                it("is not stored", () -> {
+                    fake.status = 503;
+                    Transport transport = transport(directory.get(), (url, since) -> true);
+                    read(transport);
+                    fake.status = 200;
+                    read(transport);
+                    assertThat(fake.requests).hasSize(2);
+                });
+            });
+            when("reading the response fails", () -> {
+                it("stores nothing and leaves no temporary files", () -> {
+                    fake.failAfter = true;
+                    Transport transport = transport(directory.get(), (url, since) -> true);
+                    assertThatThrownBy(() -> read(transport)).isInstanceOf(IOException.class);
+                    try (Stream<Path> files = Files.list(directory.get())) {
+                        assertThat(files).isEmpty();
+                    }
+                });
+            });
+        });
+    }
+
+    private Transport transport(Path directory, BiPredicate<URL, Instant> probe) throws IOException {
+        return new CachingTransport(fake, new PageCache(directory, 1024 * 1024), probe);
+    }
+
+    private String read(Transport transport) throws IOException {
+        try (Response response = transport.get(url, Collections.singletonMap("Authorization", "Basic a"))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            InputStream body = response.getBody();
+            byte[] buffer = new byte[16];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void delete(Path directory, String suffix) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(suffix)).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class FakeTransport implements Transport {
+        private final TransportStats stats = new TransportStats();
+        private final List<Map<String, String>> requests = new ArrayList<>();
+        private int status = 200;
+        private String body = "first";
+        private String etag;
+        private boolean failAfter;
+
+        @Override
+        public Response get(URL url, Map<String, String> headers) {
+            requests.add(new HashMap<>(headers));
+            InputStream content = new ByteArrayInputStream(status == 304 ? new byte[0]
+                    : body.getBytes(StandardCharsets.UTF_8));
+            if (failAfter) {
+                content = new SequenceInputStream(content, new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+            }
+            InputStream stream = content;
+            int code = status;
+            String tag = etag;
+            return new Response() {
+                @Override
+                public int getStatus() {
+                    return code;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return "ETag".equals(name) ? tag : null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return stream;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public TransportStats getStats() {
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class CompressingTransportTest {
+    private static final URL URL = url("http://localhost/rest/api/2/search");
+    private static final String BODY = "{\"startAt\":0,\"maxResults\":100,\"total\":0,\"issues\":[]}";
+
+    {
+        describe(CompressingTransport.class.getSimpleName(), () -> {
+            when("performing a request", () -> {
+                it("asks the server for a compressed response", () -> {
+                    FakeTransport fake = new FakeTransport(null, BODY.getBytes(StandardCharsets.UTF_8));
+                    read(new CompressingTransport(fake));
+                    assertThat(fake.headers).containsEntry("Accept-Encoding", CompressingTransport.ACCEPT_ENCODING);
+                });
+            });
+            when("the response is gzip encoded", () -> {
+                it("decompresses the body and counts the bytes", () -> {
+                    byte[] wire = compress(GZIPOutputStream::new);
+                    FakeTransport fake = new FakeTransport("gzip", wire);
+                    assertThat(read(new CompressingTransport(fake))).isEqualTo(BODY);
+                    assertThat(fake.stats.getWireBytes()).isEqualTo(wire.length);
+                    assertThat(fake.stats.getDecodedBytes()).isEqualTo(BODY.length());
+                });
+            });
+            when("the response is zlib deflate encoded", () -> {
+                it("decompresses the body", () -> {
+                    byte[] wire = compress(DeflaterOutputStream::new);
+                    assertThat(read(new CompressingTransport(new FakeTransport("deflate", wire)))).isEqualTo(BODY);
+                });
+            });
+            when("the response is raw deflate encoded", () -> {
+                it("decompresses the body", () -> {
+                    byte[] wire = compress(out -> new DeflaterOutputStream(out,
+                            new Deflater(Deflater.DEFAULT_COMPRESSION, true)));
+                    assertThat(read(new CompressingTransport(new FakeTransport("deflate", wire)))).isEqualTo(BODY);
+                });
+            });
+            when("the response is not encoded", () -> {
+                it("returns the body as it is", () -> {
+                    FakeTransport fake = new FakeTransport(null, BODY.getBytes(StandardCharsets.UTF_8));
+                    assertThat(read(new CompressingTransport(fake))).isEqualTo(BODY);
+                    assertThat(fake.stats.getCompressionRatio()).isEqualTo(1);
+                });
+            });
+            when("a response claiming to be gzip encoded has no body", () -> {
+                it("returns the status and an empty body", () -> {
+                    FakeTransport fake = new FakeTransport("gzip", new byte[0], 304);
+                    try (Response response = new CompressingTransport(fake).get(URL, Collections.emptyMap())) {
+                        assertThat(response.getStatus()).isEqualTo(304);
+                        assertThat(response.getBody().read()).isEqualTo(-1);
+                    }
+                });
+            });
+            when("an error response claims to be gzip encoded", () -> {
+                it("returns the status and the body as it was received", () -> {
+                    byte[] error = "Service Unavailable".getBytes(StandardCharsets.UTF_8);
+                    FakeTransport fake = new FakeTransport("gzip", error, 503);
+                    Response response = new CompressingTransport(fake).get(URL, Collections.emptyMap());
+                    assertThat(response.getStatus()).isEqualTo(503);
+                    assertThat(read(response)).isEqualTo("Service Unavailable");
+                });
+            });
+            when("the response is closed", () -> {
+                it("cannot be read any more", () -> {
+                    FakeTransport fake = new FakeTransport("gzip", compress(GZIPOutputStream::new));
+                    Response response = new CompressingTransport(fake).get(URL, Collections.emptyMap());
+                    InputStream body = response.getBody();
+                    assertThat(body.read()).isEqualTo('{');
+                    response.close();
+                    assertThatThrownBy(body::read).isInstanceOf(IOException.class);
+                });
+            });
+        });
+    }
+
+    private static URL url(String url) {
+        try {
+            return new URL(url);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private interface Compressor {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    private static byte[] compress(Compressor compressor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compressor.wrap(bytes)) {
+            out.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String read(Transport transport) throws IOException {
+        return read(transport.get(URL, Collections.emptyMap()));
+    }
+
+    private static String read(Response response) throws IOException {
+        try (Response closing = response) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            InputStream body = closing.getBody();
+            byte[] buffer = new byte[16];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class FakeTransport implements Transport {
+        private final String encoding;
+        private final byte[] body;
+        private final int status;
+        private final TransportStats stats = new TransportStats();
+        private Map<String, String> headers;
+
+        FakeTransport(String encoding, byte[] body) {
+            this(encoding, body, 200);
+        }
+
+        FakeTransport(String encoding, byte[] body, int status) {
+            this.encoding = encoding;
+            this.body = body;
+            this.status = status;
+        }
+
+        @Override
+        public Response get(URL url, Map<String, String> headers) {
+            this.headers = new HashMap<>(headers);
+            return new Response() {
+                private final InputStream stream = new ByteArrayInputStream(body);
+
+                @Override
+                public int getStatus() {
+                    return status;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return "Content-Encoding".equals(name) ? encoding : null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return stream;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public TransportStats getStats() {
+            return stats;
+        }
+    }
+}
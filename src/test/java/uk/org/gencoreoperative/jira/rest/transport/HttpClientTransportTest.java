@@ -0,0 +1,117 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.JsonParser;
+
+import uk.org.gencoreoperative.jira.config.Config;
+import uk.org.gencoreoperative.jira.rest.FakeJiraFixture;
+import uk.org.gencoreoperative.jira.rest.FakeJiraServer;
+
+/**
+ * Run by the {@code test-java11} execution, which adds the Java 11 classes to the class path.
+ */
+@Test
+@RunWith(CuppaRunner.class)
+public class HttpClientTransportTest {
+    private Transport transport;
+
+    {
+        describe("HttpClientTransport", () -> {
+            FakeJiraFixture jira = FakeJiraFixture.eachTest(30, 10);
+            beforeEach(() -> {
+                Config config = jira.config();
+                config.setHttp2(true);
+                transport = Transports.createConnection(config);
+            });
+
+            when("HTTP/2 is asked for", () -> {
+                it("is created on Java 11 and later", () -> {
+                    assertThat(transport.getClass().getSimpleName()).isEqualTo("HttpClientTransport");
+                });
+            });
+            when("getting a page", () -> {
+                it("returns the status and body of the response", () -> {
+                    try (Response response = transport.get(search(jira, 0), Collections.emptyMap())) {
+                        assertThat(response.getStatus()).isEqualTo(200);
+                        assertThat(JsonParser.parseString(read(response.getBody())).getAsJsonObject()
+                                .getAsJsonArray("issues")).hasSize(10);
+                    }
+                    assertThat(transport.getStats().getRequests()).isEqualTo(1);
+                });
+                it("sends the request headers", () -> {
+                    jira.server().withCompression(true);
+                    Map<String, String> headers = Collections.singletonMap("Accept-Encoding", "gzip");
+                    try (Response response = transport.get(search(jira, 0), headers)) {
+                        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+                    }
+                });
+                it("returns an error response rather than throwing", () -> {
+                    jira.server().withErrors(1, 500);
+                    try (Response response = transport.get(search(jira, 0), Collections.emptyMap())) {
+                        assertThat(response.getStatus()).isEqualTo(500);
+                        assertThat(read(response.getBody())).contains("Injected failure");
+                    }
+                });
+                it("makes the next request after a body closed before its end", () -> {
+                    transport.get(search(jira, 0), Collections.emptyMap()).close();
+                    try (Response response = transport.get(search(jira, 10), Collections.emptyMap())) {
+                        assertThat(read(response.getBody())).contains("\"startAt\":10");
+                    }
+                });
+            });
+        });
+    }
+
+    private static URL search(FakeJiraFixture jira, int startAt) throws IOException {
+        return new URL(jira.server().getURL() + FakeJiraServer.SEARCH + "?jql=project%3DSYN&startAt=" + startAt);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int count; (count = in.read(buffer)) >= 0; ) {
+            out.write(buffer, 0, count);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
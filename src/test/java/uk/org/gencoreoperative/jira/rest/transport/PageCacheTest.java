@@ -0,0 +1,145 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class PageCacheTest {
+    {
+        describe(PageCache.class.getSimpleName(), () -> {
+            TempDirectory directory = TempDirectory.eachTest("cache");
+
+            when("storing a body", () -> {
+                it("can be looked up and read", () -> {
+                    PageCache cache = new PageCache(directory.get(), 100);
+                    store(cache, "a", 40);
+                    PageCache.Entry entry = cache.lookup("a").get();
+                    assertThat(entry.getEtag()).isEqualTo("\"a\"");
+                    assertThat(entry.getUrl()).isEqualTo("http://localhost/a");
+                    assertThat(read(cache, entry)).hasSize(40);
+                });
+                it("does not keep a body larger than the cache", () -> {
+                    PageCache cache = new PageCache(directory.get(), 100);
+                    store(cache, "a", 101);
+                    assertThat(cache.lookup("a")).isEmpty();
+                    assertThat(Files.list(directory.get()).count()).isZero();
+                });
+            });
+            when("the cache goes over its size", () -> {
+                it("evicts the least recently used entries", () -> {
+                    PageCache cache = new PageCache(directory.get(), 100);
+                    store(cache, "a", 40);
+                    store(cache, "b", 40);
+                    cache.lookup("a");
+                    store(cache, "c", 40);
+                    assertThat(cache.lookup("a")).isPresent();
+                    assertThat(cache.lookup("b")).isEmpty();
+                    assertThat(cache.lookup("c")).isPresent();
+                    assertThat(Files.exists(directory.get().resolve("b.body"))).isFalse();
+                });
+                it("keeps the order of use when it is opened again", () -> {
+                    PageCache cache = new PageCache(directory.get(), 100);
+                    store(cache, "a", 40);
+                    store(cache, "b", 40);
+                    Files.setLastModifiedTime(directory.get().resolve("a.body"), FileTime.fromMillis(1000));
+                    PageCache reopened = new PageCache(directory.get(), 100);
+                    store(reopened, "c", 40);
+                    assertThat(reopened.lookup("a")).isEmpty();
+                    assertThat(reopened.lookup("b")).isPresent();
+                });
+            });
+            when("an entry is evicted after it was looked up", () -> {
+                it("cannot be opened", () -> {
+                    PageCache cache = new PageCache(directory.get(), 100);
+                    store(cache, "a", 40);
+                    PageCache.Entry entry = cache.lookup("a").get();
+                    store(cache, "b", 80);
+                    assertThat(cache.open(entry)).isEmpty();
+                });
+            });
+            when("an entry is refreshed", () -> {
+                it("keeps its URL and validators", () -> {
+                    PageCache cache = new PageCache(directory.get(), 100);
+                    store(cache, "a", 40);
+                    cache.refresh(cache.lookup("a").get());
+                    PageCache.Entry entry = cache.lookup("a").get();
+                    assertThat(entry.getUrl()).isEqualTo("http://localhost/a");
+                    assertThat(entry.getEtag()).isEqualTo("\"a\"");
+                });
+            });
+            when("a run died leaving files behind", () -> {
+                it("deletes old temporary files and properties without a body", () -> {
+                    Path stale = Files.createFile(directory.get().resolve("a123.tmp"));
+                    Files.setLastModifiedTime(stale, FileTime.fromMillis(
+                            System.currentTimeMillis() - PageCache.STALE_MILLIS - 1000));
+                    Path fresh = Files.createFile(directory.get().resolve("b123.tmp"));
+                    Path orphan = Files.createFile(directory.get().resolve("c.meta"));
+                    new PageCache(directory.get(), 100);
+                    assertThat(stale).doesNotExist();
+                    assertThat(orphan).doesNotExist();
+                    assertThat(fresh).exists();
+                });
+            });
+        });
+    }
+
+    private static void store(PageCache cache, String id, int size) throws IOException {
+        Path body = cache.newBodyFile(id);
+        Files.write(body, new byte[size]);
+        cache.store(id, "http://localhost/" + id, body, "\"" + id + "\"", null);
+    }
+
+    private static byte[] read(PageCache cache, PageCache.Entry entry) throws IOException {
+        Optional<InputStream> body = cache.open(entry);
+        assertThat(body).isPresent();
+        try (InputStream in = body.get()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URL;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class SchedulingTransportTest {
+    {
+        describe(SchedulingTransport.class.getSimpleName(), () -> {
+            when("the server is unavailable", () -> {
+                it("retries the request with an exponential backoff", () -> {
+                    List<Long> waits = new ArrayList<>();
+                    FakeTransport fake = new FakeTransport(503, 503, 200);
+                    Transport transport = new SchedulingTransport(fake, 1, 5, 100, 1000, waits::add);
+                    assertThat(status(transport)).isEqualTo(200);
+                    assertThat(fake.requests).isEqualTo(3);
+                    assertThat(fake.stats.getRetries()).isEqualTo(2);
+                    assertThat(waits).hasSize(2);
+                    assertThat(waits.get(0)).isBetween(50L, 100L);
+                    assertThat(waits.get(1)).isBetween(100L, 200L);
+                });
+                it("returns the failed response once the retries are used up", () -> {
+                    FakeTransport fake = new FakeTransport(503, 503, 503, 200);
+                    Transport transport = new SchedulingTransport(fake, 1, 2, 1, 1, millis -> { });
+                    assertThat(status(transport)).isEqualTo(503);
+                    assertThat(fake.requests).isEqualTo(3);
+                });
+            });
+            when("the server is throttling", () -> {
+                it("waits for as long as the server asks", () -> {
+                    List<Long> waits = new ArrayList<>();
+                    FakeTransport fake = new FakeTransport(429, 200);
+                    fake.retryAfter = "2";
+                    Transport transport = new SchedulingTransport(fake, 1, 5, 100, 1000, waits::add);
+                    assertThat(status(transport)).isEqualTo(200);
+                    assertThat(waits).hasSize(1);
+                    assertThat(waits.get(0)).isBetween(1900L, 2000L);
+                });
+                it("halves the number of requests in flight", () -> {
+                    SchedulingTransport transport = new SchedulingTransport(
+                            new FakeTransport(429, 429, 200), 8, 5, 1, 1, millis -> { });
+                    status(transport);
+                    assertThat(transport.getLimit()).isEqualTo(2);
+                });
+            });
+            when("the server cannot be reached", () -> {
+                it("retries the request", () -> {
+                    FakeTransport fake = new FakeTransport(-1, 200);
+                    assertThat(status(new SchedulingTransport(fake, 1, 5, 1, 1, millis -> { }))).isEqualTo(200);
+                });
+                it("throws the failure once the retries are used up", () -> {
+                    FakeTransport fake = new FakeTransport(-1, -1, 200);
+                    Transport transport = new SchedulingTransport(fake, 1, 1, 1, 1, millis -> { });
+                    assertThatThrownBy(() -> status(transport)).isInstanceOf(ConnectException.class);
+                });
+            });
+            when("the request is invalid", () -> {
+                it("does not retry it", () -> {
+                    FakeTransport fake = new FakeTransport(400, 200);
+                    assertThat(status(new SchedulingTransport(fake, 1, 5, 1, 1, millis -> { }))).isEqualTo(400);
+                    assertThat(fake.requests).isEqualTo(1);
+                });
+            });
+            when("parsing Retry-After", () -> {
+                it("reads a number of seconds", () -> {
+                    assertThat(SchedulingTransport.parseRetryAfter(" 3 ")).isEqualTo(3000);
+                });
+                it("reads a date", () -> {
+                    String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                            ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+                    assertThat(SchedulingTransport.parseRetryAfter(date)).isBetween(58_000L, 60_000L);
+                });
+                it("ignores a value that is not valid", () -> {
+                    assertThat(SchedulingTransport.parseRetryAfter("soon")).isEqualTo(-1);
+                    assertThat(SchedulingTransport.parseRetryAfter(null)).isEqualTo(-1);
+                });
+            });
+        });
+        describe(AdaptiveLimit.class.getSimpleName(), () -> {
+            it("grows back by about one for each limit's worth of responses", () -> {
+                AdaptiveLimit limit = new AdaptiveLimit(4);
+                limit.acquire();
+                limit.release(100, true);
+                assertThat(limit.getLimit()).isEqualTo(2);
+                for (int i = 0; i < 3; i++) {
+                    limit.acquire();
+                    limit.release(100, false);
+                }
+                assertThat(limit.getLimit()).isEqualTo(3);
+            });
+            it("does not grow while responses are slow", () -> {
+                AdaptiveLimit limit = new AdaptiveLimit(4);
+                limit.acquire();
+                limit.release(100, false);
+                limit.acquire();
+                limit.release(100, true);
+                for (int i = 0; i < 10; i++) {
+                    limit.acquire();
+                    limit.release(1000, false);
+                }
+                assertThat(limit.getLimit()).isEqualTo(2);
+            });
+        });
+    }
+
+    private static int status(Transport transport) throws IOException {
+        try (Response response = transport.get(new URL("http://localhost/rest/api/2/search"), Collections.emptyMap())) {
+            return response.getStatus();
+        }
+    }
+
+    /**
+     * Responds with each status in turn, where -1 fails to connect.
+     */
+    private static class FakeTransport implements Transport {
+        private final LinkedList<Integer> statuses;
+        private final TransportStats stats = new TransportStats();
+        private String retryAfter;
+        private int requests;
+
+        FakeTransport(Integer... statuses) {
+            this.statuses = new LinkedList<>(Arrays.asList(statuses));
+        }
+
+        @Override
+        public Response get(URL url, Map<String, String> headers) throws IOException {
+            requests++;
+            int status = statuses.removeFirst();
+            if (status == -1) throw new ConnectException("Connection refused");
+            return new Response() {
+                @Override
+                public int getStatus() {
+                    return status;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return "Retry-After".equals(name) ? retryAfter : null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public TransportStats getStats() {
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.rest.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.forgerock.cuppa.Cuppa.afterEach;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class URLConnectionTransportTest {
+    private static final int SMALL = 8 * 1024;
+    private static final int LARGE = 256 * 1024;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final List<Integer> ports = Collections.synchronizedList(new ArrayList<>());
+
+    {
+        describe(URLConnectionTransport.class.getSimpleName(), () -> {
+            beforeEach(() -> {
+                ports.clear();
+                executor = Executors.newCachedThreadPool();
+                server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+                server.setExecutor(executor);
+                server.createContext("/", this::respond);
+                server.start();
+            });
+            afterEach(() -> {
+                server.stop(0);
+                executor.shutdownNow();
+            });
+
+            when("a response is closed before its end", () -> {
+                it("drains a short body to keep the connection", () -> {
+                    Transport transport = new URLConnectionTransport(1000, 1000, 2, 5);
+                    transport.get(url("/200/" + SMALL), Collections.emptyMap()).close();
+                    transport.get(url("/200/" + SMALL), Collections.emptyMap()).close();
+                    assertThat(ports).hasSize(2);
+                    assertThat(ports.get(1)).isEqualTo(ports.get(0));
+                });
+                it("drains an error body to keep the connection", () -> {
+                    Transport transport = new URLConnectionTransport(1000, 1000, 2, 5);
+                    try (Response response = transport.get(url("/500/" + SMALL), Collections.emptyMap())) {
+                        assertThat(response.getStatus()).isEqualTo(500);
+                    }
+                    transport.get(url("/200/" + SMALL), Collections.emptyMap()).close();
+                    assertThat(ports.get(1)).isEqualTo(ports.get(0));
+                });
+                it("drops the connection rather than read a long body", () -> {
+                    Transport transport = new URLConnectionTransport(1000, 1000, 2, 5);
+                    transport.get(url("/200/" + LARGE), Collections.emptyMap()).close();
+                    transport.get(url("/200/" + SMALL), Collections.emptyMap()).close();
+                    assertThat(ports.get(1)).isNotEqualTo(ports.get(0));
+                });
+            });
+            when("every connection to the host is in use", () -> {
+                it("waits for a response to be closed", () -> {
+                    Transport transport = new URLConnectionTransport(1000, 1000, 1, 5);
+                    Response open = transport.get(url("/200/" + SMALL), Collections.emptyMap());
+                    Future<Integer> waiting = CompletableFuture.supplyAsync(() -> status(transport, "/200/1"));
+                    assertThatThrownBy(() -> waiting.get(200, TimeUnit.MILLISECONDS))
+                            .isInstanceOf(TimeoutException.class);
+                    open.close();
+                    assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+                });
+            });
+            when("the server is slow", () -> {
+                it("times out waiting for the response and releases the connection", () -> {
+                    Transport transport = new URLConnectionTransport(1000, 100, 1, 5);
+                    assertThatThrownBy(() -> transport.get(url("/slow"), Collections.emptyMap()))
+                            .isInstanceOf(SocketTimeoutException.class);
+                    assertThat(status(transport, "/200/1")).isEqualTo(200);
+                });
+                it("times out connecting to a server that does not accept", () -> {
+                    // A backlog of one, filled by connections that are never accepted
+                    try (ServerSocket full = new ServerSocket(0, 1);
+                         Socket first = new Socket("127.0.0.1", full.getLocalPort());
+                         Socket second = new Socket("127.0.0.1", full.getLocalPort())) {
+                        Transport transport = new URLConnectionTransport(200, 1000, 1, 5);
+                        long start = System.nanoTime();
+                        assertThatThrownBy(() -> transport.get(
+                                new URL("http://127.0.0.1:" + full.getLocalPort() + "/"), Collections.emptyMap()))
+                                .isInstanceOf(SocketTimeoutException.class);
+                        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+                    }
+                });
+            });
+            when("counting the connections", () -> {
+                it("reports the reuse of plain connections as unknown", () -> {
+                    Transport transport = new URLConnectionTransport(1000, 1000, 2, 5);
+                    transport.get(url("/200/1"), Collections.emptyMap()).close();
+                    assertThat(transport.getStats().getRequests()).isEqualTo(1);
+                    assertThat(transport.getStats().getReused()).isEqualTo(TransportStats.UNKNOWN);
+                    assertThat(transport.getStats().getReuseRate()).isEqualTo(TransportStats.UNKNOWN);
+                });
+            });
+        });
+    }
+
+    /**
+     * {@code /status/length} responds with the status and a body of that many bytes, and
+     * {@code /slow} responds after a second.
+     */
+    private void respond(HttpExchange exchange) throws IOException {
+        try (InputStream request = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+            ports.add(exchange.getRemoteAddress().getPort());
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            if ("slow".equals(path[1])) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            int length = Integer.parseInt(path[2]);
+            exchange.sendResponseHeaders(Integer.parseInt(path[1]), length);
+            out.write(new byte[length]);
+        } catch (IOException e) {
+            // The client closed the connection without reading the response
+        }
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private int status(Transport transport, String path) {
+        try (Response response = transport.get(url(path), Collections.emptyMap())) {
+            return response.getStatus();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.junit.CuppaRunner;
+import org.junit.runner.RunWith;
+
+import com.google.gson.Gson;
+
+import uk.org.gencoreoperative.jira.model.Issue;
+import uk.org.gencoreoperative.jira.rest.SyntheticIssues;
+import uk.org.gencoreoperative.jira.utils.TempDirectory;
+
+@Test
+@RunWith(CuppaRunner.class)
+public class IssueStoreTest {
+    private static final Gson GSON = new Gson();
+    private static final List<Issue> ISSUES = SyntheticIssues.issues(3000).stream()
+            .map(json -> GSON.fromJson(json, Issue.class))
+            .collect(Collectors.toList());
+
+    {
+        describe(IssueStore.class.getSimpleName(), () -> {
+            TempDirectory directory = TempDirectory.eachTest("store");
+
+            when("looking up issues", () -> {
+                it("returns the issue with the key", () -> {
+                    try (IssueStore store = IssueStore.open(directory.get())) {
+                        put(store, ISSUES);
+                        assertThat(store.size()).isEqualTo(3000);
+                        assertThat(GSON.toJson(store.get("SYN-10042"))).isEqualTo(GSON.toJson(ISSUES.get(42)));
+                    }
+                });
+                it("returns nothing for a key that is not in the store", () -> {
+                    try (IssueStore store = IssueStore.open(directory.get())) {
+                        put(store, ISSUES.subList(0, 10));
+                        assertThat(store.get("SYN-1")).isNull();
+                        assertThat(store.getRaw("SYN-1")).isNull();
+                    }
+                });
+                it("returns the JSON without decoding it", () -> {
+                    try (IssueStore store = IssueStore.open(directory.get())) {
+                        put(store, ISSUES.subList(0, 10));
+                        ByteBuffer json = store.getRaw("SYN-10003");
+                        assertThat(json.isReadOnly()).isTrue();
+                        assertThat(StandardCharsets.UTF_8.decode(json).toString())
+                                .isEqualTo(GSON.toJson(ISSUES.get(3)));
+                    }
+                });
+            });
+            when("adding an issue that is already in the store", () -> {
+                it("replaces it", () -> {
+                    Issue changed = GSON.fromJson(GSON.toJson(ISSUES.get(1)).replace("Synthetic", "Changed"),
+                            Issue.class);
+                    try (IssueStore store = IssueStore.open(directory.get())) {
+                        put(store, ISSUES.subList(0, 10));
+                        store.put(changed);
+                        assertThat(store.size()).isEqualTo(10);
+                        assertThat(store.get("SYN-10001").getFields().getSummary()).startsWith("Changed");
+                        List<String> keys = new ArrayList<>();
+                        store.forEach(issue -> keys.add(issue.getKey()));
+                        assertThat(keys).hasSize(10).containsOnlyOnce("SYN-10001");
+                    }
+                });
+            });
+            when("the issues fill more than one segment", () -> {
+                it("returns every issue in the order they were added", () -> {
+                    try (IssueStore store = IssueStore.open(directory.get(), 4096)) {
+                        put(store, ISSUES);
+                        List<String> keys = new ArrayList<>();
+                        store.forEach(issue -> keys.add(issue.getKey()));
+                        assertThat(keys).containsExactlyElementsOf(
+                                ISSUES.stream().map(Issue::getKey).collect(Collectors.toList()));
+                        assertThat(store.get("SYN-12999").getKey()).isEqualTo("SYN-12999");
+                    }
+                });
+            });
+            when("the store is opened again", () -> {
+                it("still holds the issues", () -> {
+                    try (IssueStore store = IssueStore.open(directory.get(), 4096)) {
+                        put(store, ISSUES);
+                    }
+                    try (IssueStore store = IssueStore.open(directory.get(), 4096)) {
+                        assertThat(store.size()).isEqualTo(3000);
+                        assertThat(store.get("SYN-10500").getKey()).isEqualTo("SYN-10500");
+                        store.put(ISSUES.get(0));
+                        assertThat(store.size()).isEqualTo(3000);
+                    }
+                });
+            });
+        });
+    }
+
+    private static void put(IssueStore store, List<Issue> issues) throws Exception {
+        for (Issue issue : issues) {
+            store.put(issue);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2024 GencoreOperative
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.org.gencoreoperative.jira.utils;
+
+import static org.forgerock.cuppa.Cuppa.afterEach;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A temporary directory created before each test of the block it is declared in, and deleted
+ * with everything in it after the test.
+ */
+public final class TempDirectory {
+    private Path path;
+
+    private TempDirectory() {
+    }
+
+    /**
+     * Declare the directory in the current Cuppa block.
+     *
+     * @param prefix The prefix of the name of the directory.
+     * @return The directory, which is replaced before each test.
+     */
+    public static TempDirectory eachTest(String prefix) {
+        TempDirectory directory = new TempDirectory();
+        beforeEach(() -> directory.path = Files.createTempDirectory(prefix));
+        afterEach(() -> delete(directory.path));
+        return directory;
+    }
+
+    /**
+     * @return The directory of the current test.
+     */
+    public Path get() {
+        return path;
+    }
+
+    /**
+     * @param path A file or directory to delete, with everything in it.
+     */
+    public static void delete(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) return;
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path each : paths) {
+            Files.deleteIfExists(each);
+        }
+    }
+}